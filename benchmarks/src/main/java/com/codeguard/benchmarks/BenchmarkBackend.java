@@ -0,0 +1,96 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.CodeguardApplication;
+import com.mongodb.client.result.DeleteResult;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The backend application booted for end-to-end benchmarks: toolchain commands
+ * point at {@link FakeToolchain}, cgroups, the warm Java pool and the compile
+ * and result caches are off so every run spawns its stubs, and submission
+ * writes are accepted and dropped instead of going to MongoDB.
+ */
+final class BenchmarkBackend {
+
+    private BenchmarkBackend() {
+    }
+
+    static ConfigurableApplicationContext start() throws IOException {
+        return start(Map.of());
+    }
+
+    /**
+     * Starts the backend with {@code overrides} on top of the benchmark defaults.
+     */
+    static ConfigurableApplicationContext start(Map<String, String> overrides) throws IOException {
+        Path toolchain = FakeToolchain.install();
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.mongodb.driver", "OFF");
+        properties.put("codeguard.execution.toolchain.javac", toolchain.resolve("javac").toString());
+        properties.put("codeguard.execution.toolchain.java", toolchain.resolve("java").toString());
+        properties.put("codeguard.execution.toolchain.cxx", toolchain.resolve("g++").toString());
+        properties.put("codeguard.execution.toolchain.node", toolchain.resolve("node").toString());
+        properties.put("codeguard.execution.toolchain.prepare", "false");
+        properties.put("codeguard.execution.java-pool.enabled", "false");
+        properties.put("codeguard.execution.node-pool.enabled", "false");
+        properties.put("codeguard.execution.compile-cache.enabled", "false");
+        properties.put("codeguard.execution.result-cache.enabled", "false");
+        properties.put("codeguard.execution.cgroups.enabled", "false");
+        properties.put("codeguard.execution.supervisor.reap-interval-ms", "0");
+        properties.putAll(overrides);
+
+        // As command line arguments, since default properties lose to application.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(CodeguardApplication.class, DiscardingPersistence.class).run(args);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class DiscardingPersistence {
+
+        @Bean
+        MongoTemplate mongoTemplate(MongoDatabaseFactory factory, MongoConverter converter) {
+            return new DiscardingMongoTemplate(factory, converter);
+        }
+    }
+
+    /**
+     * Accepts the write-behind stage's bulk upserts and deletes without a server.
+     */
+    static class DiscardingMongoTemplate extends MongoTemplate {
+
+        DiscardingMongoTemplate(MongoDatabaseFactory factory, MongoConverter converter) {
+            super(factory, converter);
+        }
+
+        @Override
+        public BulkOperations bulkOps(BulkOperations.BulkMode mode, String collectionName) {
+            return (BulkOperations) Proxy.newProxyInstance(BulkOperations.class.getClassLoader(),
+                    new Class<?>[]{BulkOperations.class},
+                    (proxy, method, args) -> method.getReturnType() == BulkOperations.class ? proxy : null);
+        }
+
+        @Override
+        public DeleteResult remove(Query query, String collectionName) {
+            return DeleteResult.acknowledged(0);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.execution.JavaSources;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main class detection on submissions of growing size. The public class is
+ * declared last, after imports, comments and helper classes, which is the worst
+ * case for the line scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassNameExtractionBenchmark {
+
+    @Param({"100", "2000", "20000"})
+    private int lines;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = Sources.javaProgram(lines);
+    }
+
+    @Benchmark
+    public String mainClassName() {
+        return JavaSources.mainClassName(source);
+    }
+}
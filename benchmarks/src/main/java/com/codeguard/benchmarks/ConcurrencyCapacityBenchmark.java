@@ -0,0 +1,130 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.execution.OutputCapture;
+import com.codeguard.backend.execution.ProcessSupervisor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * How long a burst of {@code concurrency} simultaneous runs of a 100ms program
+ * takes under the two execution models the service has had.
+ * <ul>
+ *     <li>{@code THREAD_PER_RUN}: the original model. Requests occupy one of
+ *     Tomcat's 200 platform threads, which blocks in {@code future.get} while a
+ *     single-thread executor created for the run pumps its output.</li>
+ *     <li>{@code VIRTUAL}: the current model. Each request is a virtual thread
+ *     and {@link ProcessSupervisor} pumps output on another one, with timeouts
+ *     on the shared timer.</li>
+ * </ul>
+ * The execution budget is not applied to either side. It is a policy limit,
+ * and with it the burst would measure the configured cap, not the threading
+ * model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConcurrencyCapacityBenchmark {
+
+    public enum Model {
+        THREAD_PER_RUN, VIRTUAL
+    }
+
+    private static final List<String> PROGRAM = List.of("/bin/sh", "-c", "echo started; sleep 0.1; echo done");
+    private static final long TIMEOUT_MS = 10000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"THREAD_PER_RUN", "VIRTUAL"})
+    private Model model;
+
+    @Param({"50", "400"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private ProcessSupervisor supervisor;
+    private ExecutionProperties.Output.Limits limits;
+    private ExecutorService requests;
+    private Path workingDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkBackend.start();
+        supervisor = context.getBean(ProcessSupervisor.class);
+        limits = context.getBean(ExecutionProperties.class).getOutput().getDefaults();
+        workingDir = Files.createTempDirectory("codeguard-bench-capacity");
+        requests = model == Model.THREAD_PER_RUN
+                ? Executors.newFixedThreadPool(TOMCAT_MAX_THREADS)
+                : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        requests.shutdownNow();
+        context.close();
+        Files.deleteIfExists(workingDir);
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<String>> runs = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            runs.add(requests.submit(model == Model.THREAD_PER_RUN ? this::threadPerRun : this::supervised));
+        }
+        int completed = 0;
+        for (Future<String> run : runs) {
+            if (!run.get().isEmpty()) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    private String supervised() throws Exception {
+        OutputCapture capture = new OutputCapture(limits, null);
+        supervisor.run(PROGRAM, workingDir, TIMEOUT_MS, capture);
+        return capture.result().text();
+    }
+
+    // executeCommand as it was before virtual threads, shell wrapper included
+    private String threadPerRun() throws Exception {
+        Process process = new ProcessBuilder("bash", "-c", PROGRAM.get(2))
+                .directory(workingDir.toFile())
+                .redirectErrorStream(true)
+                .start();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> future = executor.submit(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                StringBuilder output = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+                return output.toString();
+            }
+        });
+        try {
+            String result = future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            process.waitFor();
+            return result;
+        } catch (TimeoutException e) {
+            process.destroyForcibly();
+            future.cancel(true);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.dto.CodeExecutionRequest;
+import com.codeguard.backend.dto.CodeExecutionResponse;
+import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.services.CodeExecutionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A synchronous execution through {@link CodeExecutionService} against the fake
+ * toolchain: submission bookkeeping, workspace, compilation (in-process for
+ * Java, the stub {@code g++} for C++), process supervision, output capture and
+ * metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionBenchmark {
+
+    @Param({"java", "cpp", "javascript"})
+    private String language;
+
+    private ConfigurableApplicationContext context;
+    private CodeExecutionService service;
+    private CodeExecutionRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkBackend.start();
+        service = context.getBean(CodeExecutionService.class);
+
+        request = new CodeExecutionRequest();
+        request.setLanguage(CodeSubmission.Language.fromValue(language));
+        request.setUserId("bench");
+        switch (request.getLanguage()) {
+            case JAVA -> {
+                request.setFileName("Main.java");
+                request.setCode(Sources.javaHelloWorld());
+            }
+            case CPP -> {
+                request.setFileName("main.cpp");
+                request.setCode("#include <iostream>\nint main() { std::cout << \"Hello\" << std::endl; }\n");
+            }
+            case JAVASCRIPT -> {
+                request.setFileName("main.js");
+                request.setCode("console.log('Hello');\n");
+            }
+        }
+
+        CodeExecutionResponse response = service.executeCode(request);
+        if (response.getStatus() != CodeSubmission.ExecutionStatus.SUCCESS) {
+            throw new IllegalStateException("Stub execution failed: " + response.getError());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CodeExecutionResponse executeCode() {
+        return service.executeCode(request);
+    }
+}
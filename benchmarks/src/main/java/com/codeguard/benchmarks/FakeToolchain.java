@@ -0,0 +1,39 @@
+package com.codeguard.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+/**
+ * Stub {@code javac}, {@code java}, {@code g++} and {@code node} shell scripts
+ * that answer instantly with fixed output, so end-to-end numbers measure the
+ * backend's own overhead and are the same on any Linux machine.
+ */
+final class FakeToolchain {
+
+    private static final List<String> COMMANDS = List.of("javac", "java", "g++", "node");
+
+    private FakeToolchain() {
+    }
+
+    /**
+     * Copies the scripts into a fresh directory and returns it.
+     */
+    static Path install() throws IOException {
+        Path dir = Files.createTempDirectory("codeguard-fake-toolchain");
+        for (String command : COMMANDS) {
+            Path script = dir.resolve(command);
+            try (InputStream in = FakeToolchain.class.getResourceAsStream("/toolchain/" + command)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing stub script for " + command);
+                }
+                Files.copy(in, script);
+            }
+            Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codeguard.benchmarks;
+
+import java.lang.reflect.Field;
+
+/**
+ * Sets injected fields on backend components that are benchmarked outside a
+ * Spring context.
+ */
+final class Fields {
+
+    private Fields() {
+    }
+
+    static <T> T set(T target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.security.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and the signature check the request filter performs for a
+ * token it has not cached yet. {@code legacyKeyPerCall} reproduces the former
+ * validation, which generated a fresh random key on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        Fields.set(jwtUtil, "jwtSecret", "benchmark-secret-benchmark-secret-0123456789");
+        Fields.set(jwtUtil, "jwtExpiration", 86_400_000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("bench@example.com");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("bench@example.com");
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtUtil.isTokenValid(token);
+    }
+
+    @Benchmark
+    public boolean legacyKeyPerCall() {
+        try {
+            Jwts.parserBuilder().setSigningKey(Keys.secretKeyFor(SignatureAlgorithm.HS256)).build()
+                    .parseClaimsJwt(token);
+            return true;
+        } catch (JwtException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.execution.OutputCapture;
+import com.codeguard.backend.execution.OutputListener;
+import com.codeguard.backend.execution.OutputSpillStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The output pump of a run: 8 KiB reads from the program's stdout fed through
+ * {@link OutputCapture} with the default head and tail limits, then the result
+ * the client gets. Output below 1 MiB stays inline; above it the tail ring
+ * buffer and, with spilling on, the gzip copy take over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputCaptureBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int outputBytes;
+
+    @Param({"false", "true"})
+    private boolean spill;
+
+    private byte[] output;
+    private ExecutionProperties.Output.Limits limits;
+    private OutputSpillStore spillStore;
+    private Path spillDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder lines = new StringBuilder(outputBytes + 64);
+        for (int i = 0; lines.length() < outputBytes; i++) {
+            lines.append("iteration ").append(i).append(": value=").append(i * 31L % 1000003).append('\n');
+        }
+        output = lines.substring(0, outputBytes).getBytes(StandardCharsets.UTF_8);
+
+        ExecutionProperties properties = new ExecutionProperties();
+        spillDirectory = Files.createTempDirectory("codeguard-bench-spill");
+        properties.getOutput().setSpillDirectory(spillDirectory.toString());
+        limits = properties.getOutput().getDefaults();
+        limits.setSpill(spill);
+        spillStore = Fields.set(new OutputSpillStore(), "properties", properties);
+        spillStore.init();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSpillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(spillDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public OutputCapture.CapturedOutput capture() throws IOException {
+        OutputCapture capture = new OutputCapture(limits, spillStore);
+        OutputListener sink = capture.andThen(OutputListener.NONE);
+        try (InputStream in = new ByteArrayInputStream(output)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sink.onOutput(buffer, 0, read);
+            }
+        }
+        return capture.result();
+    }
+}
@@ -0,0 +1,99 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.dto.CodeExecutionRequest;
+import com.codeguard.backend.dto.CodeExecutionResponse;
+import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.services.CodeExecutionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One execution through {@link CodeExecutionService} per runner strategy, on
+ * the real toolchains rather than the stubs: the server's own JDK, and
+ * {@code g++} and {@code node} from the PATH. The warm Java and Node pools and
+ * the compile cache are on, as in production, so each strategy shows its steady
+ * state; the result cache stays off so every iteration executes.
+ * {@code strategy} is {@code <language>:<runner>}.
+ * <p>
+ * {@link #executeConcurrently} measures sustained throughput with several
+ * callers. With one run per pooled runner this is where the pools' limit
+ * shows: runs arriving faster than replacements boot fall back to cold
+ * processes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunnerStrategyBenchmark {
+
+    @Param({"java:pooled", "java:in-process", "java:javac", "cpp:gcc", "javascript:pooled", "javascript:node"})
+    private String strategy;
+
+    private ConfigurableApplicationContext context;
+    private CodeExecutionService service;
+    private CodeExecutionRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] parts = strategy.split(":");
+        Path jdk = Path.of(System.getProperty("java.home"), "bin");
+        context = BenchmarkBackend.start(Map.of(
+                "codeguard.execution.runners." + parts[0], parts[1],
+                "codeguard.execution.toolchain.javac", jdk.resolve("javac").toString(),
+                "codeguard.execution.toolchain.java", jdk.resolve("java").toString(),
+                "codeguard.execution.toolchain.cxx", "g++",
+                "codeguard.execution.toolchain.node", "node",
+                "codeguard.execution.java-pool.enabled", "true",
+                "codeguard.execution.node-pool.enabled", "true",
+                "codeguard.execution.compile-cache.enabled", "true"));
+        service = context.getBean(CodeExecutionService.class);
+
+        request = new CodeExecutionRequest();
+        request.setLanguage(CodeSubmission.Language.fromValue(parts[0]));
+        request.setUserId("bench");
+        switch (request.getLanguage()) {
+            case JAVA -> {
+                request.setFileName("Main.java");
+                request.setCode(Sources.javaHelloWorld());
+            }
+            case CPP -> {
+                request.setFileName("main.cpp");
+                request.setCode("#include <iostream>\nint main() { std::cout << \"Hello\" << std::endl; }\n");
+            }
+            case JAVASCRIPT -> {
+                request.setFileName("main.js");
+                request.setCode("console.log('Hello');\n");
+            }
+        }
+
+        CodeExecutionResponse response = service.executeCode(request);
+        if (response.getStatus() != CodeSubmission.ExecutionStatus.SUCCESS) {
+            throw new IllegalStateException(strategy + " execution failed: " + response.getError());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CodeExecutionResponse executeCode() {
+        return service.executeCode(request);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public CodeExecutionResponse executeConcurrently() {
+        return service.executeCode(request);
+    }
+}
@@ -0,0 +1,43 @@
+package com.codeguard.benchmarks;
+
+/**
+ * Synthetic submissions shaped like real ones.
+ */
+final class Sources {
+
+    private Sources() {
+    }
+
+    /**
+     * A Java program of roughly {@code lines} lines: imports, javadoc, package
+     * private helper classes with methods, and the public class at the end.
+     */
+    static String javaProgram(int lines) {
+        StringBuilder source = new StringBuilder();
+        source.append("import java.util.*;\nimport java.util.stream.*;\nimport java.io.*;\n\n");
+        // Each helper class below is 15 lines
+        int helpers = Math.max(1, (lines - 10) / 15);
+        for (int helper = 0; helper < helpers; helper++) {
+            source.append("/**\n * Helper number ").append(helper).append(" used by the solution.\n */\n")
+                    .append("class Helper").append(helper).append(" {\n")
+                    .append("    // Memoised values for the recursive case\n")
+                    .append("    private final Map<Integer, Long> memo = new HashMap<>();\n\n")
+                    .append("    long compute(int n) {\n")
+                    .append("        if (n < 2) {\n            return n;\n        }\n")
+                    .append("        return memo.computeIfAbsent(n, k -> compute(k - 1) + compute(k - 2));\n")
+                    .append("    }\n}\n\n");
+        }
+        source.append("public class Solution {\n")
+                .append("    public static void main(String[] args) {\n")
+                .append("        System.out.println(new Helper0().compute(40));\n")
+                .append("    }\n}\n");
+        return source.toString();
+    }
+
+    static String javaHelloWorld() {
+        return "public class Main {\n"
+                + "    public static void main(String[] args) {\n"
+                + "        System.out.println(\"Hello\");\n"
+                + "    }\n}\n";
+    }
+}
@@ -0,0 +1,100 @@
+package com.codeguard.benchmarks;
+
+import com.codeguard.backend.dto.CodeExecutionResponse;
+import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.model.ExecutionPhases;
+import com.codeguard.backend.model.ResourceUsage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON writing of what the submission endpoints return, with the same
+ * {@link ObjectMapper} configuration Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubmissionSerializationBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    private int outputBytes;
+
+    private ObjectMapper mapper;
+    private CodeSubmission submission;
+    private CodeExecutionResponse response;
+    private List<CodeSubmission> recent;
+    private byte[] submissionJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        String output = "x".repeat(79) + "\n";
+        output = output.repeat(Math.max(1, outputBytes / output.length()));
+        submission = submission(output);
+
+        response = new CodeExecutionResponse(submission.getId(), output, CodeSubmission.ExecutionStatus.SUCCESS, 42);
+        response.setOutputBytes((long) output.length());
+        response.setPhases(submission.getPhases());
+        response.setResourceUsage(submission.getResourceUsage());
+
+        recent = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            recent.add(submission(output));
+        }
+        submissionJson = mapper.writeValueAsBytes(submission);
+    }
+
+    @Benchmark
+    public byte[] writeSubmission() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(submission);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writeRecentSubmissions() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(recent);
+    }
+
+    @Benchmark
+    public CodeSubmission readSubmission() throws Exception {
+        return mapper.readValue(submissionJson, CodeSubmission.class);
+    }
+
+    private static CodeSubmission submission(String output) {
+        CodeSubmission submission = new CodeSubmission("Solution.java", Sources.javaProgram(200),
+                CodeSubmission.Language.JAVA);
+        submission.setId("652f1c0e8a1b2c3d4e5f6789");
+        submission.setUserId("652f1c0e8a1b2c3d4e5f0001");
+        submission.setOutput(output);
+        submission.setOutputBytes((long) output.length());
+        submission.setStatus(CodeSubmission.ExecutionStatus.SUCCESS);
+        submission.setExecutionTime(42L);
+
+        ExecutionPhases phases = new ExecutionPhases();
+        phases.setQueueWaitNanos(120_000);
+        phases.setCompileNanos(35_000_000);
+        phases.setSpawnNanos(900_000);
+        phases.setRunNanos(6_000_000);
+        phases.setPersistNanos(400_000);
+        submission.setPhases(phases);
+        submission.setResourceUsage(new ResourceUsage(5_000, 1_000, 48L * 1024 * 1024, ResourceUsage.Source.PROC));
+        submission.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        submission.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0, 1));
+        return submission;
+    }
+}
@@ -0,0 +1,95 @@
+package com.codeguard.loadtest;
+
+import com.codeguard.backend.CodeguardApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The backend started in this JVM on a random port, backed by an in-memory
+ * MongoDB wire-protocol server and the stub {@code g++} and {@code node}
+ * scripts. Everything else, cgroups included, runs as configured in
+ * application.properties unless overridden on the command line.
+ */
+final class EmbeddedBackend implements AutoCloseable {
+
+    private static final List<String> STUBS = List.of("g++", "node");
+
+    private final MongoServer mongo;
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+
+    private EmbeddedBackend(MongoServer mongo, ConfigurableApplicationContext context) {
+        this.mongo = mongo;
+        this.context = context;
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    static EmbeddedBackend start(Map<String, String> overrides) throws IOException {
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongo.bind();
+        Path toolchain = installStubs();
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("spring.data.mongodb.uri",
+                "mongodb://" + address.getHostString() + ":" + address.getPort() + "/codeguard");
+        properties.put("codeguard.execution.toolchain.cxx", toolchain.resolve("g++").toString());
+        properties.put("codeguard.execution.toolchain.node", toolchain.resolve("node").toString());
+        properties.put("codeguard.execution.toolchain.prepare", "false");
+        // The stub node scripts cannot host a worker
+        properties.put("codeguard.execution.node-pool.enabled", "false");
+        properties.putAll(overrides);
+
+        // As command line arguments, since default properties lose to application.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        try {
+            return new EmbeddedBackend(mongo, new SpringApplicationBuilder(CodeguardApplication.class).run(args));
+        } catch (RuntimeException e) {
+            mongo.shutdownNow();
+            throw e;
+        }
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        mongo.shutdownNow();
+    }
+
+    private static Path installStubs() throws IOException {
+        Path dir = Files.createTempDirectory("codeguard-loadtest-toolchain");
+        for (String command : STUBS) {
+            Path script = dir.resolve(command);
+            try (InputStream in = EmbeddedBackend.class.getResourceAsStream("/toolchain/" + command)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing stub script for " + command);
+                }
+                Files.copy(in, script);
+            }
+            Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+        return dir;
+    }
+}
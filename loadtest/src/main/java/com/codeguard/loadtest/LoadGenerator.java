@@ -0,0 +1,146 @@
+package com.codeguard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop driver: requests are issued at the target arrival rate whether or
+ * not earlier ones have been answered, each on its own virtual thread, so a
+ * saturated backend shows up as growing latency and errors rather than as a
+ * silently lower request rate.
+ */
+final class LoadGenerator {
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LoadTestOptions options;
+    private final URI executeUri;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong responded = new AtomicLong();
+
+    LoadGenerator(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.executeUri = URI.create(baseUrl + "/api/execute");
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    List<Sample> run() throws InterruptedException {
+        Random random = new Random(options.seed);
+        Scenario.Mix mix = new Scenario.Mix(options.mix);
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+        long sequence = 0;
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long due = start; due < end; due += gap(random, intervalNanos)) {
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Scenario scenario = mix.pick(random);
+                String userId = "loadtest-" + random.nextInt(options.users);
+                boolean measured = due >= measureFrom;
+                if (outstanding.incrementAndGet() > options.maxOutstanding) {
+                    outstanding.decrementAndGet();
+                    samples.add(new Sample(scenario, due - start, measured, 0, Sample.Outcome.DROPPED));
+                } else {
+                    long scheduled = due;
+                    long number = sequence;
+                    senders.submit(() -> {
+                        try {
+                            samples.add(send(scenario, number, userId, start, scheduled, measured));
+                        } finally {
+                            outstanding.decrementAndGet();
+                        }
+                    });
+                }
+                sequence++;
+
+                if (System.nanoTime() >= nextProgress) {
+                    nextProgress += PROGRESS_INTERVAL_NANOS;
+                    System.out.printf("%4ds  issued %d, answered %d, outstanding %d%n",
+                            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                            sequence, responded.get(), outstanding.get());
+                }
+            }
+            // Closing the executor waits for every request still in flight
+        }
+        return List.copyOf(samples);
+    }
+
+    private long gap(Random random, long intervalNanos) {
+        if (options.arrival == LoadTestOptions.Arrival.CONSTANT) {
+            return intervalNanos;
+        }
+        return Math.max(1, (long) (-Math.log(1 - random.nextDouble()) * intervalNanos));
+    }
+
+    private Sample send(Scenario scenario, long sequence, String userId, long start, long scheduled,
+                        boolean measured) {
+        Sample.Outcome outcome;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("code", scenario.source(sequence, options));
+            body.put("language", scenario.language().getName());
+            body.put("fileName", scenario.fileName());
+            body.put("userId", userId);
+            HttpRequest request = HttpRequest.newBuilder(executeUri)
+                    .timeout(options.requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                    .build();
+
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            responded.incrementAndGet();
+            outcome = outcomeOf(response);
+        } catch (IOException e) {
+            outcome = Sample.Outcome.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Sample.Outcome.FAILED;
+        }
+        return new Sample(scenario, scheduled - start, measured, System.nanoTime() - scheduled, outcome);
+    }
+
+    private Sample.Outcome outcomeOf(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() == 429) {
+            return Sample.Outcome.REJECTED;
+        }
+        if (response.statusCode() != 200) {
+            return Sample.Outcome.HTTP_ERROR;
+        }
+        JsonNode status = mapper.readTree(response.body()).path("status");
+        return switch (status.asText()) {
+            case "SUCCESS" -> Sample.Outcome.SUCCESS;
+            case "TIMEOUT" -> Sample.Outcome.TIMEOUT;
+            default -> Sample.Outcome.ERROR;
+        };
+    }
+}
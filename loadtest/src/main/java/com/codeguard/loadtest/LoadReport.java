@@ -0,0 +1,164 @@
+package com.codeguard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON summary of a run: throughput, error rate, outcome counts and latency
+ * percentiles, overall and per scenario. Throughput counts responses that
+ * arrived inside the measured window; the other figures cover the requests
+ * that were due inside it, however long they took to answer. Keys
+ * and units are fixed so reports from different builds can be diffed or fed
+ * back in as a {@code baseline}.
+ */
+final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadReport() {
+    }
+
+    static Map<String, Object> build(LoadTestOptions options, Instant startedAt, List<Sample> samples,
+                                     Map<String, Object> serverStats) {
+        Window window = new Window(options.warmup.toNanos(), options.warmup.plus(options.duration).toNanos());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.label);
+        report.put("startedAt", startedAt.toString());
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("java", Runtime.version().toString());
+        environment.put("cpus", Runtime.getRuntime().availableProcessors());
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        report.put("environment", environment);
+        report.put("settings", options.describe());
+        report.put("summary", summarize(samples, window));
+
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (Scenario scenario : Scenario.values()) {
+            List<Sample> ofScenario = samples.stream().filter(sample -> sample.scenario() == scenario).toList();
+            if (ofScenario.stream().anyMatch(Sample::measured)) {
+                scenarios.put(scenario.id(), summarize(ofScenario, window));
+            }
+        }
+        report.put("scenarios", scenarios);
+        report.put("server", serverStats);
+        return report;
+    }
+
+    static void write(Map<String, Object> report, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        MAPPER.writeValue(file.toFile(), report);
+    }
+
+    /**
+     * One line per headline figure: this run, the baseline and the change.
+     */
+    static String compare(Map<String, Object> report, Path baselineFile) throws IOException {
+        JsonNode current = MAPPER.valueToTree(report);
+        JsonNode baseline = MAPPER.readTree(baselineFile.toFile());
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Compared with %s (%s)%n", baselineFile, baseline.path("label").asText()));
+        compareSection(out, "overall", current.path("summary"), baseline.path("summary"));
+        current.path("scenarios").fieldNames().forEachRemaining(id -> compareSection(out, id,
+                current.path("scenarios").path(id), baseline.path("scenarios").path(id)));
+        return out.toString();
+    }
+
+    private static void compareSection(StringBuilder out, String name, JsonNode current, JsonNode baseline) {
+        if (baseline.isMissingNode()) {
+            out.append(String.format("  %-20s not in baseline%n", name));
+            return;
+        }
+        line(out, name, "throughput/s", current.path("throughputPerSecond"), baseline.path("throughputPerSecond"));
+        line(out, name, "error rate", current.path("errorRate"), baseline.path("errorRate"));
+        for (String percentile : List.of("p50", "p95", "p99")) {
+            line(out, name, percentile + " ms", current.path("latencyMs").path(percentile),
+                    baseline.path("latencyMs").path(percentile));
+        }
+    }
+
+    private static void line(StringBuilder out, String section, String metric, JsonNode current, JsonNode baseline) {
+        double now = current.asDouble();
+        double before = baseline.asDouble();
+        String change = before == 0 ? "n/a" : String.format("%+.1f%%", (now - before) / before * 100);
+        out.append(String.format("  %-20s %-14s %12.3f %12.3f %10s%n", section, metric, now, before, change));
+    }
+
+    private static Map<String, Object> summarize(List<Sample> all, Window window) {
+        List<Sample> samples = all.stream().filter(Sample::measured).toList();
+        long responded = samples.stream().filter(Sample::responded).count();
+        long expected = samples.stream().filter(Sample::asExpected).count();
+        List<Sample> completedInWindow = all.stream()
+                .filter(sample -> sample.responded() && window.contains(sample.completedNanos()))
+                .toList();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", samples.size());
+        summary.put("responses", responded);
+        summary.put("throughputPerSecond", round(completedInWindow.size() / window.seconds()));
+        // Responses with the status their scenario should produce
+        summary.put("goodputPerSecond",
+                round(completedInWindow.stream().filter(Sample::asExpected).count() / window.seconds()));
+        summary.put("errorRate", samples.isEmpty() ? 0.0 : round((double) (samples.size() - expected) / samples.size()));
+
+        Map<String, Long> outcomes = new LinkedHashMap<>();
+        for (Sample.Outcome outcome : Sample.Outcome.values()) {
+            outcomes.put(outcome.name(), samples.stream().filter(sample -> sample.outcome() == outcome).count());
+        }
+        summary.put("outcomes", outcomes);
+        summary.put("latencyMs", latency(samples));
+        return summary;
+    }
+
+    // Over answered requests; dropped and failed ones have no meaningful latency
+    private static Map<String, Object> latency(List<Sample> samples) {
+        long[] nanos = samples.stream().filter(Sample::responded).mapToLong(Sample::latencyNanos).sorted().toArray();
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (nanos.length == 0) {
+            return latency;
+        }
+        for (double percentile : PERCENTILES) {
+            // Nearest rank
+            int rank = (int) Math.ceil(percentile / 100 * nanos.length);
+            String key = "p" + (percentile == Math.rint(percentile)
+                    ? Integer.toString((int) percentile)
+                    : Double.toString(percentile).replace(".", ""));
+            latency.put(key, millis(nanos[Math.max(0, rank - 1)]));
+        }
+        latency.put("max", millis(nanos[nanos.length - 1]));
+        latency.put("mean", millis((long) Arrays.stream(nanos).average().orElse(0)));
+        return latency;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private record Window(long fromNanos, long toNanos) {
+
+        boolean contains(long nanos) {
+            return nanos >= fromNanos && nanos < toNanos;
+        }
+
+        double seconds() {
+            return (toNanos - fromNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+}
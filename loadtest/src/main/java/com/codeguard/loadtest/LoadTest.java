@@ -0,0 +1,79 @@
+package com.codeguard.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives {@code /api/execute} with a mixed workload at a fixed arrival rate and
+ * writes a JSON report. Without {@code target=} the backend is started in this
+ * JVM against an in-memory MongoDB and stub compilers, so runs need nothing but
+ * a JDK and give comparable numbers build to build.
+ * <p>
+ * Options are {@code key=value}: {@code rate}, {@code warmup}, {@code duration},
+ * {@code arrival} (constant or poisson), {@code mix}, {@code users},
+ * {@code seed}, {@code unique-sources}, {@code short-run-ms},
+ * {@code long-run-ms}, {@code compile-ms}, {@code max-outstanding},
+ * {@code request-timeout}, {@code target}, {@code label}, {@code report} and
+ * {@code baseline}, plus any {@code codeguard.*}, {@code spring.*} or
+ * {@code server.*} property for the embedded backend.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        EmbeddedBackend backend = null;
+        String baseUrl = options.target;
+        if (baseUrl.isEmpty()) {
+            backend = EmbeddedBackend.start(options.backendProperties);
+            baseUrl = backend.baseUrl();
+        }
+        try {
+            System.out.printf("Load test against %s: %.1f req/s, %ds warm-up, %ds measured%n",
+                    baseUrl, options.rate, options.warmup.toSeconds(), options.duration.toSeconds());
+            Instant startedAt = Instant.now();
+            List<Sample> samples = new LoadGenerator(options, baseUrl).run();
+
+            Map<String, Object> report = LoadReport.build(options, startedAt, samples, serverStats(baseUrl));
+            LoadReport.write(report, options.report);
+            System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+                    .writeValueAsString(report.get("summary")));
+            System.out.println("Report written to " + options.report.toAbsolutePath());
+            if (options.baseline != null) {
+                System.out.print(LoadReport.compare(report, options.baseline));
+            }
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+        }
+        // Stray non-daemon threads of the embedded backend must not keep the JVM alive
+        System.exit(0);
+    }
+
+    private static Map<String, Object> serverStats(String baseUrl) {
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/api/execution/stats"))
+                            .timeout(Duration.ofSeconds(10))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return new ObjectMapper().readValue(response.body(), new TypeReference<>() {
+            });
+        } catch (Exception e) {
+            return Map.of("error", String.valueOf(e.getMessage()));
+        }
+    }
+}
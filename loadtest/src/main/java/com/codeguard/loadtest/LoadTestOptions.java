@@ -0,0 +1,119 @@
+package com.codeguard.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of one load test run, given on the command line as {@code key=value}.
+ * Keys starting with {@code codeguard.}, {@code spring.} or {@code server.} are
+ * passed to the embedded backend instead.
+ */
+final class LoadTestOptions {
+
+    enum Arrival {
+        // Requests exactly 1/rate apart
+        CONSTANT,
+        // Exponentially distributed gaps with mean 1/rate, closer to real traffic
+        POISSON
+    }
+
+    // Requests per second
+    double rate = 10;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(60);
+    Arrival arrival = Arrival.POISSON;
+    // Requests still waiting for a response beyond this are counted as DROPPED instead of sent
+    int maxOutstanding = 2000;
+    Duration requestTimeout = Duration.ofSeconds(60);
+    int users = 20;
+    long seed = 42;
+    String mix = Scenario.DEFAULT_MIX;
+    // Each request gets unique source text, so the compile cache only helps repeated submissions
+    boolean uniqueSources = true;
+    long shortRunMs = 20;
+    long longRunMs = 1000;
+    long compileMs = 150;
+    // Base URL of a running backend; empty starts one in-process against the stubs
+    String target = "";
+    String label = "";
+    Path report = Paths.get("target", "loadtest-report.json");
+    // Earlier report to print a comparison against
+    Path baseline;
+    final Map<String, String> backendProperties = new LinkedHashMap<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (key.startsWith("codeguard.") || key.startsWith("spring.") || key.startsWith("server.")) {
+                options.backendProperties.put(key, value);
+                continue;
+            }
+            switch (key) {
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "duration" -> options.duration = parseDuration(value);
+                case "arrival" -> options.arrival = Arrival.valueOf(value.toUpperCase());
+                case "max-outstanding" -> options.maxOutstanding = Integer.parseInt(value);
+                case "request-timeout" -> options.requestTimeout = parseDuration(value);
+                case "users" -> options.users = Integer.parseInt(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "mix" -> options.mix = value;
+                case "unique-sources" -> options.uniqueSources = Boolean.parseBoolean(value);
+                case "short-run-ms" -> options.shortRunMs = Long.parseLong(value);
+                case "long-run-ms" -> options.longRunMs = Long.parseLong(value);
+                case "compile-ms" -> options.compileMs = Long.parseLong(value);
+                case "target" -> options.target = value;
+                case "label" -> options.label = value;
+                case "report" -> options.report = Paths.get(value);
+                case "baseline" -> options.baseline = Paths.get(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (options.rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        return options;
+    }
+
+    // 90s, 2m, 500ms, or plain seconds
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", rate);
+        settings.put("warmupSeconds", warmup.toSeconds());
+        settings.put("durationSeconds", duration.toSeconds());
+        settings.put("arrival", arrival);
+        settings.put("maxOutstanding", maxOutstanding);
+        settings.put("users", users);
+        settings.put("seed", seed);
+        settings.put("mix", mix);
+        settings.put("uniqueSources", uniqueSources);
+        settings.put("shortRunMs", shortRunMs);
+        settings.put("longRunMs", longRunMs);
+        settings.put("compileMs", compileMs);
+        settings.put("target", target.isEmpty() ? "embedded" : target);
+        settings.put("backendProperties", backendProperties);
+        return settings;
+    }
+}
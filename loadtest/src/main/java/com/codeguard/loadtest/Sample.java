@@ -0,0 +1,37 @@
+package com.codeguard.loadtest;
+
+/**
+ * One request of the run. Latency is measured from when the request was due,
+ * not when it was actually sent, so a stalled client cannot hide a stalled
+ * server (coordinated omission).
+ *
+ * @param dueNanos when the request was due, relative to the start of the run
+ * @param measured false for requests due during the warm-up
+ */
+record Sample(Scenario scenario, long dueNanos, boolean measured, long latencyNanos, Outcome outcome) {
+
+    enum Outcome {
+        // Statuses of a 200 response
+        SUCCESS, ERROR, TIMEOUT,
+        // 429: execution queue full
+        REJECTED,
+        // Any other HTTP status
+        HTTP_ERROR,
+        // No response: connection failure or client timeout
+        FAILED,
+        // Never sent because too many requests were already outstanding
+        DROPPED
+    }
+
+    boolean responded() {
+        return outcome != Outcome.FAILED && outcome != Outcome.DROPPED;
+    }
+
+    long completedNanos() {
+        return dueNanos + latencyNanos;
+    }
+
+    boolean asExpected() {
+        return outcome.name().equals(scenario.expected().name());
+    }
+}
@@ -0,0 +1,148 @@
+package com.codeguard.loadtest;
+
+import com.codeguard.backend.model.CodeSubmission.ExecutionStatus;
+import com.codeguard.backend.model.CodeSubmission.Language;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Kinds of submission in the workload mix, each with the status a correct
+ * backend answers with. Java runs for real on the in-process compiler and warm
+ * runners; C++ and JavaScript go to the stub toolchain, steered by
+ * {@code // loadtest:} comments.
+ */
+enum Scenario {
+
+    JAVA_SHORT("java-short", Language.JAVA, ExecutionStatus.SUCCESS),
+    JAVA_LONG("java-long", Language.JAVA, ExecutionStatus.SUCCESS),
+    JAVA_COMPILE_ERROR("java-compile-error", Language.JAVA, ExecutionStatus.ERROR),
+    JAVA_TIMEOUT("java-timeout", Language.JAVA, ExecutionStatus.TIMEOUT),
+    CPP_SHORT("cpp-short", Language.CPP, ExecutionStatus.SUCCESS),
+    CPP_LONG("cpp-long", Language.CPP, ExecutionStatus.SUCCESS),
+    CPP_COMPILE_ERROR("cpp-compile-error", Language.CPP, ExecutionStatus.ERROR),
+    JS_SHORT("js-short", Language.JAVASCRIPT, ExecutionStatus.SUCCESS),
+    JS_LONG("js-long", Language.JAVASCRIPT, ExecutionStatus.SUCCESS),
+    JS_TIMEOUT("js-timeout", Language.JAVASCRIPT, ExecutionStatus.TIMEOUT);
+
+    static final String DEFAULT_MIX = "java-short:25,java-long:5,java-compile-error:4,java-timeout:1,"
+            + "cpp-short:20,cpp-long:5,cpp-compile-error:4,js-short:25,js-long:5,js-timeout:1";
+
+    private final String id;
+    private final Language language;
+    private final ExecutionStatus expected;
+
+    Scenario(String id, Language language, ExecutionStatus expected) {
+        this.id = id;
+        this.language = language;
+        this.expected = expected;
+    }
+
+    String id() {
+        return id;
+    }
+
+    Language language() {
+        return language;
+    }
+
+    ExecutionStatus expected() {
+        return expected;
+    }
+
+    String fileName() {
+        return switch (language) {
+            case JAVA -> "Main.java";
+            case CPP -> "main.cpp";
+            case JAVASCRIPT -> "main.js";
+        };
+    }
+
+    /**
+     * Source for the {@code sequence}-th request. With unique sources every
+     * request differs by a comment, which defeats the compile cache the way
+     * distinct user programs do.
+     */
+    String source(long sequence, LoadTestOptions options) {
+        String marker = options.uniqueSources ? "request " + sequence : "shared";
+        return switch (this) {
+            case JAVA_SHORT -> javaMain(marker, "System.out.println(\"hello \" + args.length);");
+            case JAVA_LONG -> javaMain(marker, "Thread.sleep(" + options.longRunMs + "L);\n"
+                    + "        System.out.println(\"done\");");
+            case JAVA_COMPILE_ERROR -> javaMain(marker, "int x = \"not a number\"");
+            case JAVA_TIMEOUT -> javaMain(marker, "while (true) {\n            Thread.sleep(1000);\n        }");
+            case CPP_SHORT -> cpp(marker, "// loadtest:run-ms=" + options.shortRunMs + "\n", options);
+            case CPP_LONG -> cpp(marker, "// loadtest:run-ms=" + options.longRunMs + "\n", options);
+            case CPP_COMPILE_ERROR -> cpp(marker, "// loadtest:compile-error\n", options);
+            case JS_SHORT -> js(marker, "// loadtest:run-ms=" + options.shortRunMs + "\n");
+            case JS_LONG -> js(marker, "// loadtest:run-ms=" + options.longRunMs + "\n");
+            case JS_TIMEOUT -> js(marker, "// loadtest:hang\n");
+        };
+    }
+
+    private static String javaMain(String marker, String body) {
+        return "// " + marker + "\n"
+                + "public class Main {\n"
+                + "    public static void main(String[] args) throws Exception {\n"
+                + "        " + body + "\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private static String cpp(String marker, String directives, LoadTestOptions options) {
+        return "// " + marker + "\n"
+                + "// loadtest:compile-ms=" + options.compileMs + "\n"
+                + directives
+                + "#include <iostream>\n"
+                + "int main() { std::cout << \"hello\" << std::endl; }\n";
+    }
+
+    private static String js(String marker, String directives) {
+        return "// " + marker + "\n" + directives + "console.log('hello');\n";
+    }
+
+    static Scenario byId(String id) {
+        for (Scenario scenario : values()) {
+            if (scenario.id.equals(id)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + id);
+    }
+
+    /**
+     * Weighted random choice over a mix like {@code java-short:3,js-long:1}.
+     */
+    static final class Mix {
+
+        private final List<Scenario> scenarios = new ArrayList<>();
+        private final List<Double> cumulative = new ArrayList<>();
+        private double total;
+
+        Mix(String spec) {
+            for (String part : spec.split(",")) {
+                String[] entry = part.trim().split(":");
+                double weight = entry.length > 1 ? Double.parseDouble(entry[1]) : 1.0;
+                if (weight > 0) {
+                    total += weight;
+                    scenarios.add(byId(entry[0]));
+                    cumulative.add(total);
+                }
+            }
+            if (scenarios.isEmpty()) {
+                throw new IllegalArgumentException("Empty workload mix: " + spec);
+            }
+        }
+
+        Scenario pick(Random random) {
+            double point = random.nextDouble() * total;
+            for (int i = 0; i < scenarios.size(); i++) {
+                if (point < cumulative.get(i)) {
+                    return scenarios.get(i);
+                }
+            }
+            return scenarios.get(scenarios.size() - 1);
+        }
+    }
+}
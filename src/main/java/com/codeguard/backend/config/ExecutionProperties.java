@@ -0,0 +1,275 @@
+package com.codeguard.backend.config;
+
+import com.codeguard.backend.model.CodeSubmission;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "codeguard.execution")
+public class ExecutionProperties {
+
+    private JavaPool javaPool = new JavaPool();
+
+    private NodePool nodePool = new NodePool();
+
+    private CompileCache compileCache = new CompileCache();
+
+    private ResultCache resultCache = new ResultCache();
+
+    private Workspace workspace = new Workspace();
+
+    private Queue queue = new Queue();
+
+    private Stream stream = new Stream();
+
+    private Output output = new Output();
+
+    private Budget budget = new Budget();
+
+    private Supervisor supervisor = new Supervisor();
+
+    private Cgroups cgroups = new Cgroups();
+
+    private Toolchain toolchain = new Toolchain();
+
+    private Judge judge = new Judge();
+
+    private Diagnostics diagnostics = new Diagnostics();
+
+    private Projects projects = new Projects();
+
+    // Strategy per language, e.g. codeguard.execution.runners.java=pooled; see LanguageRunners
+    private Map<CodeSubmission.Language, String> runners = new EnumMap<>(Map.of(
+            CodeSubmission.Language.JAVA, "pooled",
+            CodeSubmission.Language.CPP, "gcc",
+            CodeSubmission.Language.JAVASCRIPT, "pooled"));
+
+    @Data
+    public static class JavaPool {
+        private boolean enabled = true;
+        // 0 means one runner per available core
+        private int size = 0;
+        // One program per runner: a class loader is no security boundary, so a reused runner could leak between runs
+        private int maxRunsPerRunner = 1;
+        private long acquireTimeoutMs = 250;
+        private String maxHeap = "256m";
+    }
+
+    @Data
+    public static class NodePool {
+        private boolean enabled = true;
+        // 0 means one worker per available core
+        private int size = 0;
+        // One program per worker: a vm context is no security boundary, so a reused worker could leak between runs
+        private int maxRunsPerWorker = 1;
+        private long acquireTimeoutMs = 250;
+        // V8 heap limit of each worker, and so the memory cap of the programs it runs;
+        // kept below the JavaScript cgroup limit, which also has to hold node itself
+        private int maxHeapMb = 192;
+    }
+
+    @Data
+    public static class CompileCache {
+        private boolean enabled = true;
+        private String directory = System.getProperty("java.io.tmpdir") + "/codeguard-compile-cache";
+        private long maxSizeBytes = 512L * 1024 * 1024;
+    }
+
+    @Data
+    public static class ResultCache {
+        private boolean enabled = true;
+        private long maxSizeBytes = 64L * 1024 * 1024;
+        // Larger results are always executed again
+        private long maxEntryBytes = 1024 * 1024;
+        private long ttlMs = 10 * 60 * 1000;
+    }
+
+    @Data
+    public static class Workspace {
+        // Blank picks /dev/shm when available, otherwise java.io.tmpdir
+        private String root = "";
+        private int maxIdle = 64;
+    }
+
+    @Data
+    public static class Queue {
+        // 0 means one worker per available core
+        private int workersPerLanguage = 0;
+        private int capacity = 100;
+        private long retryAfterSeconds = 2;
+        private long longPollMaxMs = 25000;
+        // 0 means a single user may fill the whole queue
+        private int maxQueuedPerUser = 0;
+        // Relative share of workers per user id; users not listed get 1.0
+        private Map<String, Double> userWeights = new HashMap<>();
+
+        public double weightOf(String userId) {
+            return userId == null ? 1.0 : userWeights.getOrDefault(userId, 1.0);
+        }
+    }
+
+    @Data
+    public static class Stream {
+        public enum Overflow {
+            // Discard output the client cannot keep up with and report the gap
+            DROP,
+            // Stop reading from the program until the client catches up
+            BLOCK
+        }
+
+        private int bufferBytes = 64 * 1024;
+        private Overflow overflow = Overflow.DROP;
+        private long emitterTimeoutMs = 60000;
+    }
+
+    @Data
+    public static class Output {
+        private Limits defaults = new Limits();
+        // Per-language overrides, e.g. codeguard.execution.output.languages.cpp.head-bytes
+        private Map<CodeSubmission.Language, Limits> languages = new EnumMap<>(CodeSubmission.Language.class);
+        private String spillDirectory = System.getProperty("java.io.tmpdir") + "/codeguard-output";
+        private long spillRetentionMs = 24L * 60 * 60 * 1000;
+
+        public Limits limitsFor(CodeSubmission.Language language) {
+            return languages.getOrDefault(language, defaults);
+        }
+
+        @Data
+        public static class Limits {
+            private int headBytes = 1024 * 1024;
+            private int tailBytes = 64 * 1024;
+            private boolean spill = false;
+            private long maxSpillBytes = 256L * 1024 * 1024;
+        }
+    }
+
+    @Data
+    public static class Budget {
+        private double runsPerCore = 2.0;
+        // Compiles have permits of their own, so the next job compiles while the previous one runs
+        private double compilesPerCore = 1.0;
+        // 0 means half of physical memory
+        private long memoryBytes = 0;
+        private long memoryPerRunBytes = 256L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Supervisor {
+        // 0 disables the periodic sweep for stray processes in the workspace root
+        private long reapIntervalMs = 10000;
+        // Processes younger than this are left alone in case their run is still registering
+        private long reapGraceMs = 2000;
+        // How often CPU time and memory of unconfined runs are sampled from /proc; 0 disables sampling
+        private long sampleIntervalMs = 10;
+    }
+
+    @Data
+    public static class Cgroups {
+        private boolean enabled = true;
+        // Blank means /sys/fs/cgroup/codeguard; needs a writable cgroup v2 hierarchy
+        private String root = "";
+        private Quota defaults = new Quota();
+        // Per-language overrides, e.g. codeguard.execution.cgroups.languages.java.memory-bytes
+        private Map<CodeSubmission.Language, Quota> languages = new EnumMap<>(CodeSubmission.Language.class);
+
+        public Quota quotaFor(CodeSubmission.Language language) {
+            return languages.getOrDefault(language, defaults);
+        }
+
+        @Data
+        public static class Quota {
+            // CPU cores per run; 0 means unlimited
+            private double cpus = 1.0;
+            private long cpuPeriodMicros = 100_000;
+            // 0 means unlimited
+            private long memoryBytes = 256L * 1024 * 1024;
+            // Counts threads as well as processes; 0 means unlimited
+            private int pids = 64;
+        }
+    }
+
+    @Data
+    public static class Judge {
+        // Test cases run at once per judge request; 0 means one per available core
+        private int parallelism = 0;
+        // Upper bound and default for a test case's own output limit
+        private long maxOutputBytes = 1024 * 1024;
+        // Output kept per test case for the response
+        private int outputPreviewBytes = 4096;
+    }
+
+    @Data
+    public static class Diagnostics {
+        // How long a check waits for a newer version of the same file before compiling
+        private long debounceMs = 100;
+        // Checks compiling at once; 0 means half of the available cores, at least one
+        private int maxConcurrent = 0;
+        // Results kept per distinct source
+        private int cacheEntries = 1024;
+        private long timeoutMs = 5000;
+    }
+
+    @Data
+    public static class Projects {
+        // Compiled state of multi-file projects, kept between runs so only what changed is rebuilt
+        private String directory = System.getProperty("java.io.tmpdir") + "/codeguard-projects";
+        // Projects whose state is kept; the least recently built is dropped first
+        private int maxProjects = 256;
+        private int maxFiles = 200;
+        private long maxTotalBytes = 4L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Toolchain {
+        // Commands resolved through PATH unless given as absolute paths
+        private String javac = "javac";
+        private String java = "java";
+        private String cxx = "g++";
+        private String node = "node";
+        // Build precompiled headers and CDS archives at startup, then log the cold-start cost of each toolchain
+        private boolean prepare = true;
+        private String artifactsDirectory = System.getProperty("java.io.tmpdir") + "/codeguard-toolchain";
+        // Launches per cold-start measurement; the median is reported
+        private int coldStartSamples = 3;
+        // Per-language launch profiles, e.g. codeguard.execution.toolchain.profiles.cpp.compile-flags
+        private Map<CodeSubmission.Language, Profile> profiles = defaultProfiles();
+
+        public Profile profileFor(CodeSubmission.Language language) {
+            return profiles.getOrDefault(language, new Profile());
+        }
+
+        private static Map<CodeSubmission.Language, Profile> defaultProfiles() {
+            Map<CodeSubmission.Language, Profile> profiles = new EnumMap<>(CodeSubmission.Language.class);
+            Profile cpp = new Profile();
+            cpp.setCompileFlags(new ArrayList<>(List.of("-O2", "-std=gnu++17", "-pipe")));
+            cpp.setPrecompiledHeaders(new ArrayList<>(List.of("bits/stdc++.h")));
+            profiles.put(CodeSubmission.Language.CPP, cpp);
+            Profile java = new Profile();
+            java.setRunFlags(new ArrayList<>(List.of("-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-XX:-UsePerfData")));
+            java.setClassDataSharing(true);
+            profiles.put(CodeSubmission.Language.JAVA, java);
+            profiles.put(CodeSubmission.Language.JAVASCRIPT, new Profile());
+            return profiles;
+        }
+
+        @Data
+        public static class Profile {
+            // g++ flags, or javac flags when the in-process compiler is unavailable
+            private List<String> compileFlags = new ArrayList<>();
+            // Flags for the runtime that starts the program (java, node)
+            private List<String> runFlags = new ArrayList<>();
+            // C++ headers precompiled with compileFlags at startup, e.g. bits/stdc++.h
+            private List<String> precompiledHeaders = new ArrayList<>();
+            // Java: start programs from a shared archive of the JDK classes they typically load
+            private boolean classDataSharing = false;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.codeguard.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "codeguard.persistence")
+public class PersistenceProperties {
+
+    public enum Durability {
+        // The final state is written before the response is returned
+        SYNC,
+        // The final state waits for the next scheduled flush like every other transition
+        ASYNC
+    }
+
+    private long flushIntervalMs = 200;
+    private int maxBatchSize = 500;
+    private Durability finalState = Durability.SYNC;
+    // Create the indexes declared on @Document classes in the background after startup
+    private boolean createIndexes = true;
+    private long indexRetryIntervalMs = 30000;
+}
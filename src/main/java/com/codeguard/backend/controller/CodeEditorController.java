@@ -4,14 +4,30 @@ package com.codeguard.backend.controller;
 
 import com.codeguard.backend.dto.CodeExecutionRequest;
 import com.codeguard.backend.dto.CodeExecutionResponse;
+import com.codeguard.backend.dto.DiagnosticsRequest;
+import com.codeguard.backend.dto.DiagnosticsResponse;
+import com.codeguard.backend.dto.JudgeRequest;
+import com.codeguard.backend.dto.JudgeResponse;
+import com.codeguard.backend.dto.ProjectExecutionRequest;
+import com.codeguard.backend.dto.SubmissionPage;
+import com.codeguard.backend.dto.SubmissionSummary;
+import com.codeguard.backend.exception.ExecutionQueueFullException;
 import com.codeguard.backend.model.CodeSubmission;
 import com.codeguard.backend.services.CodeExecutionService;
+import com.codeguard.backend.services.DiagnosticsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -21,12 +37,17 @@ public class CodeEditorController {
     @Autowired
     private CodeExecutionService codeExecutionService;
 
+    @Autowired
+    private DiagnosticsService diagnosticsService;
+
     @PostMapping("/execute")
     public ResponseEntity<CodeExecutionResponse> executeCode(
             @Valid @RequestBody CodeExecutionRequest request) {
         try {
             CodeExecutionResponse response = codeExecutionService.executeCode(request);
             return ResponseEntity.ok(response);
+        } catch (ExecutionQueueFullException e) {
+            throw e;
         } catch (Exception e) {
             CodeExecutionResponse errorResponse = new CodeExecutionResponse();
             errorResponse.setError("Internal server error: " + e.getMessage());
@@ -35,24 +56,64 @@ public class CodeEditorController {
         }
     }
 
+    @PostMapping("/execute/async")
+    public ResponseEntity<CodeExecutionResponse> submitCode(
+            @Valid @RequestBody CodeExecutionRequest request) {
+        CodeExecutionResponse response = codeExecutionService.submitCode(request);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @PostMapping(value = "/execute/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCode(@Valid @RequestBody CodeExecutionRequest request) {
+        return codeExecutionService.streamCode(request);
+    }
+
+    @PostMapping("/projects/execute")
+    public ResponseEntity<CodeExecutionResponse> executeProject(@Valid @RequestBody ProjectExecutionRequest request) {
+        return ResponseEntity.ok(codeExecutionService.executeCode(codeExecutionService.toExecutionRequest(request)));
+    }
+
+    @PostMapping("/projects/execute/async")
+    public ResponseEntity<CodeExecutionResponse> submitProject(@Valid @RequestBody ProjectExecutionRequest request) {
+        return ResponseEntity.accepted().body(
+                codeExecutionService.submitCode(codeExecutionService.toExecutionRequest(request)));
+    }
+
+    @PostMapping(value = "/projects/execute/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProject(@Valid @RequestBody ProjectExecutionRequest request) {
+        return codeExecutionService.streamCode(codeExecutionService.toExecutionRequest(request));
+    }
+
+    @PostMapping("/judge")
+    public ResponseEntity<JudgeResponse> judge(@Valid @RequestBody JudgeRequest request) {
+        return ResponseEntity.ok(codeExecutionService.judge(request));
+    }
+
+    @PostMapping("/diagnostics")
+    public ResponseEntity<DiagnosticsResponse> diagnostics(@Valid @RequestBody DiagnosticsRequest request) {
+        return ResponseEntity.ok(diagnosticsService.diagnose(request));
+    }
+
     @GetMapping("/submissions")
-    public ResponseEntity<List<CodeSubmission>> getUserSubmissions(
-            @RequestParam(required = false) String userId) {
+    public ResponseEntity<SubmissionPage> getUserSubmissions(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
         if (userId == null || userId.isEmpty()) {
             userId = "anonymous";
         }
-        List<CodeSubmission> submissions = codeExecutionService.getUserSubmissions(userId);
-        return ResponseEntity.ok(submissions);
+        SubmissionPage page = codeExecutionService.getUserSubmissions(userId, cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/submissions/recent")
-    public ResponseEntity<List<CodeSubmission>> getRecentSubmissions(
+    public ResponseEntity<List<SubmissionSummary>> getRecentSubmissions(
             @RequestParam(required = false) String userId,
             @RequestParam(defaultValue = "10") int limit) {
         if (userId == null || userId.isEmpty()) {
             userId = "anonymous";
         }
-        List<CodeSubmission> submissions = codeExecutionService.getRecentSubmissions(userId, limit);
+        List<SubmissionSummary> submissions = codeExecutionService.getRecentSubmissions(userId, limit);
         return ResponseEntity.ok(submissions);
     }
 
@@ -64,4 +125,37 @@ public class CodeEditorController {
         }
         return ResponseEntity.ok(submission);
     }
+
+    @GetMapping("/submissions/{id}/output")
+    public ResponseEntity<?> getSubmissionOutput(@PathVariable String id) {
+        CodeSubmission submission = codeExecutionService.getSubmissionById(id);
+        if (submission == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Path spilled = codeExecutionService.getSpilledOutput(submission);
+        if (spilled == null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(submission.getOutput() == null ? "" : submission.getOutput());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(new FileSystemResource(spilled));
+    }
+
+    @GetMapping("/submissions/{id}/wait")
+    public CompletableFuture<ResponseEntity<CodeExecutionResponse>> waitForSubmission(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "20000") long timeoutMs) {
+        return codeExecutionService.awaitResult(id, timeoutMs)
+                .thenApply(response -> response == null
+                        ? ResponseEntity.notFound().build()
+                        : ResponseEntity.ok(response));
+    }
+
+    @GetMapping("/execution/stats")
+    public ResponseEntity<Map<String, Object>> getExecutionStats() {
+        return ResponseEntity.ok(codeExecutionService.getExecutionStats());
+    }
 }
\ No newline at end of file
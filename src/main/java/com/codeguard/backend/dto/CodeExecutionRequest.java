@@ -2,12 +2,15 @@ package com.codeguard.backend.dto;
 
 
 import com.codeguard.backend.model.CodeSubmission;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -23,5 +26,21 @@ public class CodeExecutionRequest {
     private String fileName;
     
     private String userId;
+
+    private String stdin;
+
+    // true or false overrides the source check deciding whether the result may be reused
+    private Boolean deterministic;
+
+    // Project submissions only: every file by path; fileName and code then hold the entry file.
+    // Set from a validated ProjectExecutionRequest, never bound from the request body
+    @JsonIgnore
+    private Map<String, String> files;
+
+    @JsonIgnore
+    private String projectId;
+
+    @JsonIgnore
+    private String entryPoint;
 }
     
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.codeguard.backend.dto;
 
 import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.model.ExecutionPhases;
+import com.codeguard.backend.model.ResourceUsage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -13,9 +16,17 @@ public class CodeExecutionResponse {
 
     private String submissionId;
     private String output;
+    private Long outputBytes;
+    private boolean outputTruncated;
     private String error;
     private CodeSubmission.ExecutionStatus status;
     private Long executionTime;
+    private boolean oomKilled;
+    private Long cpuThrottledMs; // time spent held back by the CPU quota, null when unconfined
+    private ExecutionPhases phases;
+    private ResourceUsage resourceUsage;
+    private List<CompilationDiagnostic> diagnostics;
+    private boolean cached; // replayed from an earlier identical run
 
 
     public CodeExecutionResponse(String id, String output, CodeSubmission.ExecutionStatus executionStatus, long executionTime) {
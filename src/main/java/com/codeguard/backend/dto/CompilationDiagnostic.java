@@ -0,0 +1,33 @@
+package com.codeguard.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompilationDiagnostic {
+
+    public enum Severity {
+        ERROR, WARNING, NOTE
+    }
+
+    private Severity severity;
+    private long line;
+    private long column;
+    private String message;
+
+    // Path within the project for multi-file submissions, null for single files
+    private String file;
+
+    public CompilationDiagnostic(Severity severity, long line, long column, String message) {
+        this(severity, line, column, message, null);
+    }
+
+    @Override
+    public String toString() {
+        return (file != null ? file + ":" : "") + line + ":" + column + ": " + severity.name().toLowerCase()
+                + ": " + message;
+    }
+}
@@ -0,0 +1,26 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiagnosticsRequest {
+
+    @NotBlank
+    private String code;
+
+    @NotNull
+    private CodeSubmission.Language language;
+
+    // Together with userId identifies the editor buffer; a newer request for it supersedes older ones
+    @NotBlank
+    private String fileName;
+
+    private String userId;
+}
@@ -0,0 +1,19 @@
+package com.codeguard.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiagnosticsResponse {
+
+    private List<CompilationDiagnostic> diagnostics;
+    private boolean superseded; // a newer version of the same file arrived first; diagnostics are empty
+    private boolean cached; // the same source was checked before
+    private Long checkTime; // milliseconds, null when cached or superseded
+    private String error;
+}
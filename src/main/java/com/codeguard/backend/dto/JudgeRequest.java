@@ -0,0 +1,57 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JudgeRequest {
+
+    @NotBlank
+    private String code;
+
+    @NotNull
+    private CodeSubmission.Language language;
+
+    @NotBlank
+    private String fileName;
+
+    private String userId;
+
+    @NotEmpty
+    @Size(max = 200)
+    @Valid
+    private List<TestCase> testCases;
+
+    // Skip the remaining cases once one fails
+    private boolean failFast;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TestCase {
+
+        private String stdin;
+
+        @NotNull
+        private String expectedOutput;
+
+        // Both capped by the server's own limits; null means the server default
+        @Positive
+        private Long timeoutMs;
+
+        @Positive
+        private Long maxOutputBytes;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.model.JudgeVerdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JudgeResponse {
+
+    private String submissionId;
+    private JudgeVerdict verdict; // first failing case in order, ACCEPTED when all passed
+    private int passed;
+    private int total;
+    private Long compileTime; // milliseconds
+    private Long executionTime; // milliseconds, compilation and all cases
+    private String error;
+    private List<CompilationDiagnostic> diagnostics;
+    private List<TestCaseResult> results;
+}
@@ -0,0 +1,35 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectExecutionRequest {
+
+    // Contents by relative path, e.g. "src/util/Strings.java" or "lib/math.h"
+    @NotEmpty
+    private Map<String, String> files;
+
+    @NotNull
+    private CodeSubmission.Language language;
+
+    // Java: a class name or the path of its file; JavaScript: the path of the script. Detected when null
+    private String entryPoint;
+
+    // Together with userId identifies the project whose compiled state later runs build on
+    private String projectId;
+
+    private String userId;
+
+    private String stdin;
+
+    private Boolean deterministic;
+}
@@ -0,0 +1,55 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a user's submissions, newest first. {@code nextCursor} is passed
+ * back as {@code cursor} to get the following page and is null on the last one.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SubmissionPage {
+
+    private List<SubmissionSummary> items;
+    private String nextCursor;
+
+    /**
+     * Position after the last submission of a page, ordered by createdAt then id
+     * descending. Because it is a key rather than an offset, pages stay stable
+     * while new submissions arrive and every page costs one index seek.
+     */
+    public record Cursor(LocalDateTime createdAt, String id) {
+
+        public static Cursor after(SubmissionSummary last) {
+            return new Cursor(last.getCreatedAt(), last.getId());
+        }
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = value.indexOf('|');
+                if (separator < 0) {
+                    throw new InvalidCursorException(token);
+                }
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new InvalidCursorException(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.model.CodeSubmission;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Submission metadata for history lists, without the code and output bodies.
+ * Read straight from MongoDB through a projection; the full submission is at
+ * {@code /api/submissions/{id}}.
+ */
+@Data
+@NoArgsConstructor
+public class SubmissionSummary {
+
+    private String id;
+    private String fileName;
+    private CodeSubmission.Language language;
+    private String userId;
+    private CodeSubmission.ExecutionStatus status;
+    private String errorMessage;
+    private Long executionTime;
+    private Long outputBytes;
+    private boolean outputTruncated;
+    private boolean oomKilled;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static SubmissionSummary of(CodeSubmission submission) {
+        SubmissionSummary summary = new SubmissionSummary();
+        summary.setId(submission.getId());
+        summary.setFileName(submission.getFileName());
+        summary.setLanguage(submission.getLanguage());
+        summary.setUserId(submission.getUserId());
+        summary.setStatus(submission.getStatus());
+        summary.setErrorMessage(submission.getErrorMessage());
+        summary.setExecutionTime(submission.getExecutionTime());
+        summary.setOutputBytes(submission.getOutputBytes());
+        summary.setOutputTruncated(submission.isOutputTruncated());
+        summary.setOomKilled(submission.isOomKilled());
+        summary.setCreatedAt(submission.getCreatedAt());
+        summary.setUpdatedAt(submission.getUpdatedAt());
+        return summary;
+    }
+}
@@ -0,0 +1,31 @@
+package com.codeguard.backend.dto;
+
+import com.codeguard.backend.model.JudgeVerdict;
+import com.codeguard.backend.model.ResourceUsage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TestCaseResult {
+
+    private int index;
+    private JudgeVerdict verdict;
+    private Long executionTime;
+    private Integer exitCode;
+    private String output; // leading part only, reading stops at the first difference
+    private Long outputBytes;
+    private String error;
+    // One-based position of the first difference; expectedLine is null for surplus output
+    private Long mismatchLine;
+    private Long mismatchColumn;
+    private String expectedLine;
+    private ResourceUsage resourceUsage;
+
+    public TestCaseResult(int index, JudgeVerdict verdict) {
+        this.index = index;
+        this.verdict = verdict;
+    }
+}
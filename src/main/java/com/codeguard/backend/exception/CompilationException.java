@@ -0,0 +1,26 @@
+package com.codeguard.backend.exception;
+
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class CompilationException extends RuntimeException {
+
+    private final List<CompilationDiagnostic> diagnostics;
+
+    public CompilationException(List<CompilationDiagnostic> diagnostics) {
+        super("Compilation Error: " + diagnostics.stream()
+                .map(CompilationDiagnostic::toString)
+                .collect(Collectors.joining("\n")));
+        this.diagnostics = diagnostics;
+    }
+
+    // For toolchains whose output is passed through as is rather than parsed into diagnostics
+    public CompilationException(String compilerOutput) {
+        super("Compilation Error: " + compilerOutput);
+        this.diagnostics = List.of();
+    }
+}
@@ -0,0 +1,14 @@
+package com.codeguard.backend.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ExecutionQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ExecutionQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.codeguard.backend.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ExecutionTimeoutException extends RuntimeException {
+
+    private final long timeoutMs;
+
+    public ExecutionTimeoutException(long timeoutMs) {
+        super("Execution timeout - process took longer than " + timeoutMs + "ms to complete");
+        this.timeoutMs = timeoutMs;
+    }
+}
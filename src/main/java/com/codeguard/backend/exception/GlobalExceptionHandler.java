@@ -4,6 +4,7 @@ package com.codeguard.backend.exception;
 
 import com.codeguard.backend.dto.CodeExecutionResponse;
 import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -35,6 +36,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
     
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursor(InvalidCursorException ex) {
+        return ResponseEntity.badRequest().body(Map.of("cursor", ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidProjectException.class)
+    public ResponseEntity<CodeExecutionResponse> handleInvalidProject(InvalidProjectException ex) {
+        CodeExecutionResponse response = new CodeExecutionResponse();
+        response.setError(ex.getMessage());
+        response.setStatus(CodeSubmission.ExecutionStatus.ERROR);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(ExecutionQueueFullException.class)
+    public ResponseEntity<CodeExecutionResponse> handleQueueFull(ExecutionQueueFullException ex) {
+        CodeExecutionResponse response = new CodeExecutionResponse();
+        response.setError(ex.getMessage());
+        response.setStatus(CodeSubmission.ExecutionStatus.ERROR);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<CodeExecutionResponse> handleGenericException(Exception ex) {
         CodeExecutionResponse response = new CodeExecutionResponse();
@@ -0,0 +1,8 @@
+package com.codeguard.backend.exception;
+
+public class InvalidProjectException extends RuntimeException {
+
+    public InvalidProjectException(String message) {
+        super(message);
+    }
+}
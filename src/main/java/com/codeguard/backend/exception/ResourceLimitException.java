@@ -0,0 +1,8 @@
+package com.codeguard.backend.exception;
+
+public class ResourceLimitException extends RuntimeException {
+
+    public ResourceLimitException(String message) {
+        super(message);
+    }
+}
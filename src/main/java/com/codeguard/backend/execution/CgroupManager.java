@@ -0,0 +1,284 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Places each program run in its own cgroup v2 group under a dedicated root,
+ * with the CPU quota, memory limit and pids limit configured for its language.
+ * When the host has no writable cgroup v2 hierarchy every run gets
+ * {@link Slot#NONE} and executes without quotas.
+ */
+@Slf4j
+@Component
+public class CgroupManager {
+
+    private static final Path CGROUP_FS = Paths.get("/sys/fs/cgroup");
+    private static final String CONTROLLERS = "+cpu +memory +pids";
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong oomKills = new AtomicLong();
+    private final AtomicLong throttledRuns = new AtomicLong();
+    private Path root;
+    private volatile boolean available;
+
+    @PostConstruct
+    public void init() {
+        ExecutionProperties.Cgroups settings = properties.getCgroups();
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (!Files.exists(CGROUP_FS.resolve("cgroup.controllers"))) {
+            log.info("No cgroup v2 hierarchy at {}, running executions without resource quotas", CGROUP_FS);
+            return;
+        }
+
+        root = settings.getRoot() == null || settings.getRoot().isBlank()
+                ? CGROUP_FS.resolve("codeguard")
+                : Paths.get(settings.getRoot());
+        try {
+            Files.createDirectories(root);
+            // Groups left here belong to a previous process
+            try (Stream<Path> stale = Files.list(root)) {
+                stale.filter(Files::isDirectory).forEach(CgroupManager::remove);
+            }
+            enableControllers(root.getParent());
+            enableControllers(root);
+            available = true;
+            log.info("Execution cgroups under {}", root);
+        } catch (IOException e) {
+            log.warn("cgroup quotas disabled, cannot set up {}: {}", root, e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Creates a group with the language's quotas. Falls back to {@link Slot#NONE}
+     * if the group cannot be created, so a cgroup failure never fails the run.
+     */
+    public Slot open(CodeSubmission.Language language) {
+        if (!available) {
+            return Slot.NONE;
+        }
+        ExecutionProperties.Cgroups.Quota quota = properties.getCgroups().quotaFor(language);
+        Path dir = root.resolve("run-" + sequence.incrementAndGet());
+        try {
+            Files.createDirectory(dir);
+            long period = quota.getCpuPeriodMicros();
+            write(dir, "cpu.max", quota.getCpus() > 0
+                    ? (long) (quota.getCpus() * period) + " " + period
+                    : "max " + period);
+            write(dir, "memory.max", quota.getMemoryBytes() > 0 ? Long.toString(quota.getMemoryBytes()) : "max");
+            write(dir, "pids.max", quota.getPids() > 0 ? Integer.toString(quota.getPids()) : "max");
+            try {
+                // Without this a limited program swaps instead of being OOM-killed
+                write(dir, "memory.swap.max", "0");
+            } catch (IOException e) {
+                // No swap accounting on this host
+            }
+            return new Slot(this, dir, quota);
+        } catch (IOException e) {
+            log.warn("Failed to create cgroup {}, running without quotas: {}", dir, e.getMessage());
+            remove(dir);
+            return Slot.NONE;
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(available, oomKills.get(), throttledRuns.get());
+    }
+
+    private void enableControllers(Path dir) throws IOException {
+        String enabled = Files.readString(dir.resolve("cgroup.subtree_control"));
+        if (!(enabled.contains("cpu") && enabled.contains("memory") && enabled.contains("pids"))) {
+            write(dir, "cgroup.subtree_control", CONTROLLERS);
+        }
+    }
+
+    private static void write(Path dir, String file, String value) throws IOException {
+        Files.writeString(dir.resolve(file), value);
+    }
+
+    private static long readKey(Path file, String key) {
+        try {
+            for (String line : Files.readAllLines(file)) {
+                String[] parts = line.split(" ");
+                if (parts.length == 2 && parts[0].equals(key)) {
+                    return Long.parseLong(parts[1].trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Missing on older kernels
+        }
+        return 0;
+    }
+
+    private static long readValue(Path file) {
+        try {
+            return Long.parseLong(Files.readString(file).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void remove(Path dir) {
+        try {
+            write(dir, "cgroup.kill", "1");
+        } catch (IOException e) {
+            // Kernel before 5.14 or group already gone
+        }
+        // rmdir only succeeds once the killed processes have actually exited
+        for (int attempt = 0; attempt < 50; attempt++) {
+            try {
+                Files.deleteIfExists(dir);
+                return;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.warn("Could not remove cgroup {}", dir);
+    }
+
+    public record Stats(boolean enabled, long oomKills, long throttledRuns) {
+    }
+
+    /**
+     * What the kernel recorded for one group. {@code throttledMicros} is the time
+     * the run spent waiting because it had used up its CPU quota;
+     * {@code memoryPeakBytes} is 0 on kernels without {@code memory.peak}.
+     */
+    public record Usage(boolean oomKilled, boolean pidsLimitHit, long throttledPeriods, long throttledMicros,
+                        long cpuUserMicros, long cpuSystemMicros, long memoryPeakBytes) {
+
+        static final Usage NONE = new Usage(false, false, 0, 0, 0, 0, 0);
+
+        /**
+         * What the group recorded after {@code before} was read: the limits hit
+         * and the counters accrued since. The memory peak stays the group's.
+         */
+        public Usage since(Usage before) {
+            return new Usage(oomKilled && !before.oomKilled, pidsLimitHit && !before.pidsLimitHit,
+                    throttledPeriods - before.throttledPeriods, throttledMicros - before.throttledMicros,
+                    cpuUserMicros - before.cpuUserMicros, cpuSystemMicros - before.cpuSystemMicros,
+                    memoryPeakBytes);
+        }
+    }
+
+    /**
+     * One run's group. Commands passed through {@link #wrap} start inside it, and
+     * everything they spawn stays inside it; closing the slot kills what is left
+     * and removes the group.
+     */
+    public static final class Slot implements AutoCloseable {
+
+        public static final Slot NONE = new Slot(null, null, null);
+
+        private final CgroupManager manager;
+        private final Path dir;
+        private final ExecutionProperties.Cgroups.Quota quota;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Usage finalUsage;
+
+        private Slot(CgroupManager manager, Path dir, ExecutionProperties.Cgroups.Quota quota) {
+            this.manager = manager;
+            this.dir = dir;
+            this.quota = quota;
+        }
+
+        public boolean isConfined() {
+            return dir != null;
+        }
+
+        public ExecutionProperties.Cgroups.Quota quota() {
+            return quota;
+        }
+
+        /**
+         * Prefixes the command with a tiny shell that moves itself into the group
+         * and then execs the real program, so not a single instruction of the
+         * program runs outside its limits.
+         */
+        public List<String> wrap(List<String> command) {
+            if (dir == null) {
+                return command;
+            }
+            List<String> wrapped = new ArrayList<>(List.of(
+                    "/bin/sh", "-c", "echo $$ > \"$0\" && exec \"$@\"", dir.resolve("cgroup.procs").toString()));
+            wrapped.addAll(command);
+            return wrapped;
+        }
+
+        public void kill() {
+            if (dir != null) {
+                try {
+                    write(dir, "cgroup.kill", "1");
+                } catch (IOException e) {
+                    // Already gone
+                }
+            }
+        }
+
+        /**
+         * Current totals of the group; once closed, the totals it had when it
+         * was removed.
+         */
+        public Usage usage() {
+            if (dir == null) {
+                return Usage.NONE;
+            }
+            if (finalUsage != null) {
+                return finalUsage;
+            }
+            Path cpuStat = dir.resolve("cpu.stat");
+            return new Usage(
+                    readKey(dir.resolve("memory.events"), "oom_kill") > 0,
+                    readKey(dir.resolve("pids.events"), "max") > 0,
+                    readKey(cpuStat, "nr_throttled"),
+                    readKey(cpuStat, "throttled_usec"),
+                    readKey(cpuStat, "user_usec"),
+                    readKey(cpuStat, "system_usec"),
+                    readValue(dir.resolve("memory.peak")));
+        }
+
+        @Override
+        public void close() {
+            if (dir == null || !closed.compareAndSet(false, true)) {
+                return;
+            }
+            Usage usage = usage();
+            finalUsage = usage;
+            if (usage.oomKilled()) {
+                manager.oomKills.incrementAndGet();
+            }
+            if (usage.throttledPeriods() > 0) {
+                manager.throttledRuns.incrementAndGet();
+            }
+            remove(dir);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for compiler output. Entries live on disk under
+ * {@code <directory>/<language>/<sha256>} and are keyed by language, toolchain
+ * version, compiler flags and source, so an unchanged re-run skips compilation.
+ * The total size is bounded; least recently used entries are evicted first.
+ */
+@Slf4j
+@Component
+public class CompilationCache {
+
+    // Lists the classes of a Java entry, so a read racing an eviction cannot pass for a complete hit
+    private static final String MANIFEST = "classes.list";
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<CodeSubmission.Language, Counters> counters = new ConcurrentHashMap<>();
+    private final Map<String, String> toolchainVersions = new ConcurrentHashMap<>();
+    private long totalBytes;
+    private Path root;
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(properties.getCompileCache().getDirectory());
+        try {
+            Files.createDirectories(root);
+            loadExistingEntries();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create compile cache directory", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getCompileCache().isEnabled();
+    }
+
+    public String key(CodeSubmission.Language language, String toolchain, List<String> flags, String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : List.of(language.name(), toolchain, String.join(" ", flags), source)) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the cache directory holding the artifacts for {@code key}, or empty
+     * on a miss.
+     */
+    public Optional<Path> lookup(CodeSubmission.Language language, String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(entryId(language, key));
+        }
+        if (entry == null || !Files.isDirectory(entry.dir())) {
+            countersFor(language).misses.incrementAndGet();
+            return Optional.empty();
+        }
+        countersFor(language).hits.incrementAndGet();
+        touch(entry.dir());
+        return Optional.of(entry.dir());
+    }
+
+    /**
+     * Returns the classes stored under {@code key}, or null on a miss. Exactly
+     * the classes in the entry's manifest are read, so an entry evicted while
+     * being read is a miss rather than a partial class set.
+     */
+    public Map<String, byte[]> lookupClasses(String key) {
+        String id = entryId(CodeSubmission.Language.JAVA, key);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(id);
+        }
+        Counters counters = countersFor(CodeSubmission.Language.JAVA);
+        if (entry == null) {
+            counters.misses.incrementAndGet();
+            return null;
+        }
+
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        try {
+            for (String name : Files.readAllLines(entry.dir().resolve(MANIFEST), StandardCharsets.UTF_8)) {
+                classes.put(name, Files.readAllBytes(entry.dir().resolve(name + ".class")));
+            }
+        } catch (NoSuchFileException e) {
+            // Evicted while being read, or stored before entries carried a manifest
+            counters.misses.incrementAndGet();
+            drop(id, entry);
+            return null;
+        } catch (IOException e) {
+            counters.misses.incrementAndGet();
+            return null;
+        }
+        if (classes.isEmpty()) {
+            counters.misses.incrementAndGet();
+            drop(id, entry);
+            return null;
+        }
+        counters.hits.incrementAndGet();
+        touch(entry.dir());
+        return classes;
+    }
+
+    public void storeClasses(String key, Map<String, byte[]> classes) throws IOException {
+        store(CodeSubmission.Language.JAVA, key, staging -> {
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                Files.write(staging.resolve(entry.getKey() + ".class"), entry.getValue());
+            }
+            // Written last: an entry with a manifest has all of its classes
+            Files.write(staging.resolve(MANIFEST), classes.keySet(), StandardCharsets.UTF_8);
+        });
+    }
+
+    public void storeFile(CodeSubmission.Language language, String key, Path file) throws IOException {
+        store(language, key, staging ->
+                Files.copy(file, staging.resolve(file.getFileName()), StandardCopyOption.COPY_ATTRIBUTES));
+    }
+
+    /**
+     * Version string of an external toolchain, resolved once per process.
+     */
+    public String toolchainVersion(String executable) {
+        return toolchainVersions.computeIfAbsent(executable, exe -> {
+            try {
+                Process process = new ProcessBuilder(exe, "--version").redirectErrorStream(true).start();
+                String firstLine = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+                        .lines().findFirst().orElse("");
+                process.waitFor();
+                return exe + " " + firstLine;
+            } catch (IOException e) {
+                return exe;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return exe;
+            }
+        });
+    }
+
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    public Map<CodeSubmission.Language, Stats> getStats() {
+        Map<CodeSubmission.Language, Stats> stats = new EnumMap<>(CodeSubmission.Language.class);
+        counters.forEach((language, c) ->
+                stats.put(language, new Stats(c.hits.get(), c.misses.get(), c.evictions.get())));
+        return stats;
+    }
+
+    private void store(CodeSubmission.Language language, String key, Writer writer) throws IOException {
+        Path languageDir = root.resolve(language.getName());
+        Files.createDirectories(languageDir);
+        Path target = languageDir.resolve(key);
+        Path staging = Files.createTempDirectory(languageDir, key + ".tmp");
+        try {
+            writer.write(staging);
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // Another request compiled the same source first
+            deleteRecursively(staging);
+            return;
+        } catch (IOException e) {
+            deleteRecursively(staging);
+            throw e;
+        }
+
+        synchronized (this) {
+            Entry entry = new Entry(language, target, sizeOf(target));
+            Entry previous = entries.put(entryId(language, key), entry);
+            totalBytes += entry.size() - (previous == null ? 0 : previous.size());
+            evictIfNeeded();
+        }
+    }
+
+    // Forgets an entry that turned out to be unusable, unless it was replaced in the meantime
+    private synchronized void drop(String id, Entry entry) {
+        if (entries.get(id) == entry) {
+            entries.remove(id);
+            totalBytes -= entry.size();
+            deleteRecursively(entry.dir());
+        }
+    }
+
+    private void evictIfNeeded() {
+        long limit = properties.getCompileCache().getMaxSizeBytes();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > limit && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size();
+            countersFor(entry.language()).evictions.incrementAndGet();
+            deleteRecursively(entry.dir());
+        }
+    }
+
+    private void loadExistingEntries() throws IOException {
+        List<Entry> existing = new ArrayList<>();
+        for (CodeSubmission.Language language : CodeSubmission.Language.values()) {
+            Path languageDir = root.resolve(language.getName());
+            if (!Files.isDirectory(languageDir)) {
+                continue;
+            }
+            try (Stream<Path> dirs = Files.list(languageDir)) {
+                for (Path dir : dirs.toList()) {
+                    if (dir.getFileName().toString().contains(".tmp")) {
+                        deleteRecursively(dir);
+                    } else {
+                        existing.add(new Entry(language, dir, sizeOf(dir)));
+                    }
+                }
+            }
+        }
+        existing.sort(Comparator.comparing(entry -> lastModified(entry.dir())));
+        synchronized (this) {
+            for (Entry entry : existing) {
+                entries.put(entryId(entry.language(), entry.dir().getFileName().toString()), entry);
+                totalBytes += entry.size();
+            }
+            evictIfNeeded();
+        }
+        if (!existing.isEmpty()) {
+            log.info("Compile cache loaded {} entries ({} bytes)", existing.size(), totalBytes);
+        }
+    }
+
+    private Counters countersFor(CodeSubmission.Language language) {
+        return counters.computeIfAbsent(language, l -> new Counters());
+    }
+
+    private static String entryId(CodeSubmission.Language language, String key) {
+        return language.getName() + "/" + key;
+    }
+
+    private static void touch(Path dir) {
+        try {
+            Files.setLastModifiedTime(dir, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects eviction order after a restart
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            long size = 0;
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    // Ignore cleanup errors
+                }
+            });
+        } catch (IOException e) {
+            // Ignore cleanup errors
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions) {
+    }
+
+    private record Entry(CodeSubmission.Language language, Path dir, long size) {
+    }
+
+    private static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(Path staging) throws IOException;
+    }
+}
@@ -0,0 +1,103 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.model.CodeSubmission;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A submission compiled once and ready to run any number of times. Artifacts
+ * live in {@code dir}; {@code command} starts the program from any working
+ * directory. Java programs also carry their classes for the warm runner pool,
+ * and only land on disk once a run needs a cold JVM; scripts carry their
+ * source for the warm Node workers.
+ */
+public final class CompiledProgram {
+
+    private final CodeSubmission.Language language;
+    private final Path dir;
+    private final List<String> command;
+    private final String className;
+    private final Map<String, byte[]> classes;
+    private final Path sourceFile;
+    private final String source;
+    private boolean classFilesWritten;
+
+    private CompiledProgram(CodeSubmission.Language language, Path dir, List<String> command, String className,
+                            Map<String, byte[]> classes, Path sourceFile, String source) {
+        this.language = language;
+        this.dir = dir;
+        this.command = command;
+        this.className = className;
+        this.classes = classes;
+        this.sourceFile = sourceFile;
+        this.source = source;
+    }
+
+    public static CompiledProgram of(CodeSubmission.Language language, Path dir, List<String> command) {
+        return new CompiledProgram(language, dir, command, null, null, null, null);
+    }
+
+    public static CompiledProgram javaClasses(Path dir, List<String> command, String className,
+                                              Map<String, byte[]> classes) {
+        return new CompiledProgram(CodeSubmission.Language.JAVA, dir, command, className, classes, null, null);
+    }
+
+    public static CompiledProgram script(CodeSubmission.Language language, Path dir, List<String> command,
+                                         Path sourceFile, String source) {
+        return new CompiledProgram(language, dir, command, null, null, sourceFile, source);
+    }
+
+    public CodeSubmission.Language language() {
+        return language;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    public List<String> command() {
+        return command;
+    }
+
+    public String className() {
+        return className;
+    }
+
+    /**
+     * Compiled classes by binary name, or null when the program only exists on disk.
+     */
+    public Map<String, byte[]> classes() {
+        return classes;
+    }
+
+    public Path sourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * Script source, or null when the program is not a script.
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Writes the in-memory classes under {@link #dir()}, once, for runs outside
+     * the runner pool.
+     */
+    public synchronized void writeClassFiles() throws IOException {
+        if (classes == null || classFilesWritten) {
+            return;
+        }
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Path classFile = dir.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, entry.getValue());
+        }
+        classFilesWritten = true;
+    }
+}
@@ -0,0 +1,150 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.exception.InvalidProjectException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Incremental builds of C++ projects. Each translation unit is compiled to its
+ * own object with the launch profile's flags, and {@code -MMD} records the
+ * project headers it included. A run recompiles the units whose source or
+ * included headers changed and relinks only when an object did.
+ */
+@Component
+public class CppProjectBuilder {
+
+    private static final List<String> SOURCE_EXTENSIONS = List.of(".cpp", ".cc", ".cxx", ".c++");
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    ProjectCompiler.Build build(ProjectState state, Map<String, String> files, WorkspaceManager.Workspace workspace)
+            throws Exception {
+        List<String> units = files.keySet().stream()
+                .filter(path -> SOURCE_EXTENSIONS.stream().anyMatch(path::endsWith))
+                .sorted()
+                .toList();
+        if (units.isEmpty()) {
+            throw new InvalidProjectException("A C++ project needs at least one .cpp file");
+        }
+
+        Path sources = state.dir.resolve("src");
+        Path objects = state.dir.resolve("obj");
+        Path binary = state.dir.resolve("program");
+        Map<String, String> hashes = new HashMap<>();
+        files.forEach((path, content) -> hashes.put(path, ProjectState.hash(content)));
+        sync(state, sources, files, hashes);
+
+        for (Iterator<String> known = state.translationUnits.keySet().iterator(); known.hasNext(); ) {
+            String unit = known.next();
+            if (!hashes.containsKey(unit)) {
+                Files.deleteIfExists(ProjectCompiler.resolveInside(objects, unit + ".o"));
+                known.remove();
+            }
+        }
+
+        String cxx = properties.getToolchain().getCxx();
+        StringBuilder errors = new StringBuilder();
+        int compiled = 0;
+        for (String unit : units) {
+            Path object = ProjectCompiler.resolveInside(objects, unit + ".o");
+            ProjectState.TranslationUnit known = state.translationUnits.get(unit);
+            if (known != null && known.isCurrent(unit, hashes) && Files.exists(object)) {
+                continue;
+            }
+            state.translationUnits.remove(unit);
+            Path dependencies = ProjectCompiler.resolveInside(objects, unit + ".d");
+            Files.createDirectories(object.getParent());
+            Files.deleteIfExists(object);
+            // Quoted includes resolve from the project root as well as from the including file's directory
+            String output = launcher.compile(launcher.compileCommand(CodeSubmission.Language.CPP, cxx,
+                    "-iquote", ".", "-c", "-MMD", "-MF", dependencies.toString(),
+                    "-o", object.toString(), unit), sources);
+            compiled++;
+            // Warnings alone still produce the object, so the object rather than the output decides
+            if (!Files.exists(object)) {
+                errors.append(output);
+                continue;
+            }
+            state.translationUnits.put(unit, new ProjectState.TranslationUnit(hashes.get(unit),
+                    includedHeaders(unit, dependencies, sources, hashes)));
+        }
+        if (!errors.isEmpty()) {
+            throw new CompilationException(errors.toString());
+        }
+
+        if (compiled > 0 || !units.equals(state.linked) || !Files.exists(binary)) {
+            List<String> link = new ArrayList<>(List.of("-o", binary.toString()));
+            units.forEach(unit -> link.add(ProjectCompiler.resolveInside(objects, unit + ".o").toString()));
+            Files.deleteIfExists(binary);
+            state.linked = List.of();
+            String output = launcher.compile(launcher.compileCommand(CodeSubmission.Language.CPP, cxx,
+                    link.toArray(String[]::new)), sources);
+            if (!Files.exists(binary)) {
+                throw new CompilationException(output);
+            }
+            state.linked = units;
+        }
+
+        Path executable = workspace.resolve("output");
+        Files.copy(binary, executable, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        return new ProjectCompiler.Build(CompiledProgram.of(CodeSubmission.Language.CPP, workspace.dir(),
+                List.of(executable.toString())), compiled, units.size() - compiled);
+    }
+
+    // Mirrors the submitted files under dir/src, rewriting only the ones whose content changed
+    private static void sync(ProjectState state, Path sources, Map<String, String> files, Map<String, String> hashes)
+            throws IOException {
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            if (hashes.get(file.getKey()).equals(state.written.get(file.getKey()))) {
+                continue;
+            }
+            Path target = ProjectCompiler.resolveInside(sources, file.getKey());
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, file.getValue());
+            state.written.put(file.getKey(), hashes.get(file.getKey()));
+        }
+        for (Iterator<String> written = state.written.keySet().iterator(); written.hasNext(); ) {
+            String path = written.next();
+            if (!files.containsKey(path)) {
+                Files.deleteIfExists(ProjectCompiler.resolveInside(sources, path));
+                written.remove();
+            }
+        }
+    }
+
+    /**
+     * Project headers named in a make-style dependency file, with the hashes the
+     * object was compiled against. System headers are not listed by
+     * {@code -MMD} and headers outside the project are skipped.
+     */
+    static Map<String, String> includedHeaders(String unit, Path dependencies, Path sources,
+                                               Map<String, String> hashes) throws IOException {
+        String rule = Files.readString(dependencies).replace("\\\n", " ");
+        int targetEnd = rule.indexOf(": ");
+        Map<String, String> headers = new HashMap<>();
+        for (String prerequisite : rule.substring(targetEnd + 2).trim().split("\\s+")) {
+            Path header = sources.resolve(prerequisite).normalize();
+            if (!header.startsWith(sources)) {
+                continue;
+            }
+            String path = sources.relativize(header).toString();
+            if (!path.equals(unit) && hashes.containsKey(path)) {
+                headers.put(path, hashes.get(path));
+            }
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,42 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.model.CodeSubmission;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Source-level guess whether a program prints the same output every time it
+ * runs on the same input. Anything that reads clocks, random sources, the
+ * environment, files, the network, other processes or thread scheduling marks
+ * the program as nondeterministic. Matches inside comments and strings count
+ * too, so the guess errs towards running the program again.
+ */
+public final class DeterminismHeuristic {
+
+    private static final Map<CodeSubmission.Language, Pattern> NONDETERMINISTIC = Map.of(
+            CodeSubmission.Language.JAVA, Pattern.compile(
+                    "\\b(Random|SecureRandom|ThreadLocalRandom|SplittableRandom|UUID|Math\\.random"
+                            + "|currentTimeMillis|nanoTime|Instant|Clock|Date|Calendar|LocalDate|LocalTime"
+                            + "|LocalDateTime|ZonedDateTime|OffsetDateTime|getenv|getProperty|Runtime|ProcessBuilder"
+                            + "|ProcessHandle|Thread|Executors?|ExecutorService|CompletableFuture|ForkJoinPool"
+                            + "|parallelStream|parallel|identityHashCode|hashCode|File\\w*|Paths?|Socket|URL|URI"
+                            + "|HttpClient|java\\.net|java\\.nio\\.file)\\b"),
+            CodeSubmission.Language.CPP, Pattern.compile(
+                    "\\b(rand|srand|random|drand48|random_device|mt19937(_64)?|default_random_engine|time"
+                            + "|clock|chrono|gettimeofday|clock_gettime|getenv|getpid|thread|jthread|async|fork"
+                            + "|system|popen|fopen|ifstream|ofstream|fstream|socket)\\b|__TIME__|__DATE__|%p"),
+            CodeSubmission.Language.JAVASCRIPT, Pattern.compile(
+                    "\\b(Math\\.random|Date|performance|hrtime|crypto|randomUUID|getRandomValues|process\\.env"
+                            + "|process\\.pid|fetch|XMLHttpRequest|WebSocket|Worker|worker_threads|child_process|fs"
+                            + "|net|http|https|dgram|os)\\b")
+    );
+
+    private DeterminismHeuristic() {
+    }
+
+    public static boolean isLikelyDeterministic(CodeSubmission.Language language, String code) {
+        Pattern pattern = NONDETERMINISTIC.get(language);
+        return pattern != null && !pattern.matcher(code).find();
+    }
+}
@@ -0,0 +1,91 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps how many programs compile or run at once. With executions on virtual
+ * threads the thread count no longer limits anything, so the cap is derived
+ * from CPU cores and the memory set aside for user programs instead. Compiles
+ * and runs draw from separate permits, so a job compiling never waits for a
+ * run slot and the run slots stay busy while the next jobs compile.
+ */
+@Slf4j
+@Component
+public class ExecutionBudget {
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private Semaphore permits;
+    private Semaphore compilePermits;
+    private int limit;
+    private int compileLimit;
+
+    @PostConstruct
+    public void init() {
+        ExecutionProperties.Budget budget = properties.getBudget();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int byCpu = (int) Math.max(1, Math.round(cores * budget.getRunsPerCore()));
+
+        long memory = budget.getMemoryBytes() > 0 ? budget.getMemoryBytes() : defaultMemoryBudget();
+        int byMemory = (int) Math.max(1, memory / budget.getMemoryPerRunBytes());
+
+        limit = Math.min(byCpu, byMemory);
+        permits = new Semaphore(limit, true);
+        compileLimit = (int) Math.max(1, Math.round(cores * budget.getCompilesPerCore()));
+        compilePermits = new Semaphore(compileLimit, true);
+        log.info("Execution budget: {} concurrent runs (cpu allows {}, memory allows {}), {} concurrent compiles",
+                limit, byCpu, byMemory, compileLimit);
+    }
+
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public void acquireCompile() throws InterruptedException {
+        compilePermits.acquire();
+    }
+
+    public void releaseCompile() {
+        compilePermits.release();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return limit - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public int getCompileLimit() {
+        return compileLimit;
+    }
+
+    public int getCompiling() {
+        return compileLimit - compilePermits.availablePermits();
+    }
+
+    // Half of physical memory; the other half stays with the server and the OS
+    private static long defaultMemoryBudget() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getTotalMemorySize() / 2;
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+}
@@ -0,0 +1,177 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.ExecutionQueueFullException;
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs queued executions on a bounded worker pool per language, so slow
+ * programs in one language cannot starve the others and never hold a servlet
+ * thread. Within a language, queued work is handed out in weighted fair order
+ * across users (see {@link FairShareQueue}) so one heavy user cannot starve
+ * everyone else. Submissions beyond the queue capacity are rejected rather than
+ * buffered without limit.
+ * <p>
+ * Jobs are pipelined in two stages: a lane starts up to {@code workers} jobs,
+ * and each one frees its place as soon as it reports that its compile stage is
+ * over, so the next job compiles while the previous one still runs. At most
+ * twice the workers are in flight per lane, which keeps the fair order from
+ * draining into runs all waiting for the execution budget.
+ */
+@Component
+public class ExecutionDispatcher {
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final Map<CodeSubmission.Language, Lane> lanes = new EnumMap<>(CodeSubmission.Language.class);
+
+    @PostConstruct
+    public void init() {
+        ExecutionProperties.Queue queue = properties.getQueue();
+        int workers = queue.getWorkersPerLanguage() > 0
+                ? queue.getWorkersPerLanguage()
+                : Runtime.getRuntime().availableProcessors();
+
+        for (CodeSubmission.Language language : CodeSubmission.Language.values()) {
+            Lane lane = new Lane(language, new FairShareQueue<>(
+                    queue.getCapacity(), queue.getMaxQueuedPerUser(), queue::weightOf), workers);
+            lane.feeder = Thread.ofVirtual().name("exec-" + language.getName()).start(lane::feed);
+            lanes.put(language, lane);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(CodeSubmission.Language language, String userId, Job<T> job) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Task task = compiled -> {
+            try {
+                future.complete(job.run(compiled));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        if (!lanes.get(language).queue.offer(userId, task)) {
+            throw new ExecutionQueueFullException(
+                    "Execution queue for " + language.getName() + " is full, try again later",
+                    properties.getQueue().getRetryAfterSeconds());
+        }
+        return future;
+    }
+
+    public Map<CodeSubmission.Language, Stats> getStats() {
+        Map<CodeSubmission.Language, Stats> stats = new EnumMap<>(CodeSubmission.Language.class);
+        lanes.forEach((language, lane) -> stats.put(language, new Stats(
+                lane.running.size(),
+                lane.compilingJobs.get(),
+                lane.queue.size(),
+                lane.queue.remainingCapacity(),
+                lane.completed.get(),
+                lane.queue.waitingUsers())));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(lane -> {
+            lane.feeder.interrupt();
+            lane.running.forEach(Thread::interrupt);
+        });
+    }
+
+    /**
+     * Queued work. The job calls {@code compiled} once its compile stage is over
+     * (calling it again does nothing) to let its lane start the next job; a job
+     * that never calls it holds its place until it finishes.
+     */
+    @FunctionalInterface
+    public interface Job<T> {
+        T run(Runnable compiled);
+    }
+
+    /**
+     * {@code active} counts jobs in flight, {@code compiling} those of them not
+     * yet past their compile stage.
+     */
+    public record Stats(int active, int compiling, int queued, int remainingCapacity, long completed,
+                        int waitingUsers) {
+    }
+
+    private interface Task {
+        void run(Runnable compiled);
+    }
+
+    private static final class Lane {
+
+        final CodeSubmission.Language language;
+        final FairShareQueue<Task> queue;
+        final Semaphore compiling;
+        final Semaphore inFlight;
+        final Set<Thread> running = ConcurrentHashMap.newKeySet();
+        final AtomicInteger compilingJobs = new AtomicInteger();
+        final AtomicLong completed = new AtomicLong();
+        Thread feeder;
+
+        Lane(CodeSubmission.Language language, FairShareQueue<Task> queue, int workers) {
+            this.language = language;
+            this.queue = queue;
+            this.compiling = new Semaphore(workers);
+            this.inFlight = new Semaphore(2 * workers);
+        }
+
+        void feed() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    inFlight.acquire();
+                    compiling.acquire();
+                    Task task;
+                    try {
+                        task = queue.take();
+                    } catch (InterruptedException e) {
+                        compiling.release();
+                        inFlight.release();
+                        throw e;
+                    }
+                    // Jobs run on virtual threads; ExecutionBudget, not the thread count, bounds actual load
+                    Thread.ofVirtual().name("exec-" + language.getName() + "-job").start(() -> execute(task));
+                }
+            } catch (InterruptedException e) {
+                // Shutting down
+            }
+        }
+
+        private void execute(Task task) {
+            Thread current = Thread.currentThread();
+            running.add(current);
+            AtomicBoolean compiled = new AtomicBoolean();
+            compilingJobs.incrementAndGet();
+            Runnable compileStageOver = () -> {
+                if (compiled.compareAndSet(false, true)) {
+                    compilingJobs.decrementAndGet();
+                    compiling.release();
+                }
+            };
+            try {
+                task.run(compileStageOver);
+            } finally {
+                compileStageOver.run();
+                running.remove(current);
+                inFlight.release();
+                completed.incrementAndGet();
+            }
+        }
+    }
+}
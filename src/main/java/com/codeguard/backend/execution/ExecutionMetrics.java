@@ -0,0 +1,148 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.model.ExecutionPhases;
+import com.codeguard.backend.model.JudgeVerdict;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Micrometer meters for the execution pipeline: latency histograms per language
+ * and outcome, failure and rejection counters, and gauges over the live state
+ * of the queues, process supervisor and temporary directories. Exported on
+ * {@code /actuator/prometheus}.
+ */
+@Component
+public class ExecutionMetrics implements MeterBinder {
+
+    public enum Outcome {
+        SUCCESS, ERROR, COMPILE_ERROR, TIMEOUT, OOM_KILLED
+    }
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ExecutionDispatcher dispatcher;
+
+    @Autowired
+    private ExecutionBudget budget;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private CompilationCache compilationCache;
+
+    @Autowired
+    private OutputSpillStore outputSpillStore;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CodeSubmission.Language language : CodeSubmission.Language.values()) {
+            Gauge.builder("codeguard.execution.queue.depth",
+                            dispatcher, d -> d.getStats().get(language).queued())
+                    .tag("language", language.getName())
+                    .description("Submissions waiting for a worker")
+                    .register(registry);
+        }
+        Gauge.builder("codeguard.execution.in.flight", budget, ExecutionBudget::getInFlight)
+                .description("Executions holding a slot of the execution budget")
+                .register(registry);
+        Gauge.builder("codeguard.execution.processes.active", processSupervisor, p -> p.getStats().active())
+                .description("Supervised processes currently running")
+                .register(registry);
+        Gauge.builder("codeguard.execution.temp.bytes", workspaceManager, w -> directorySize(w.getRoot()))
+                .tag("directory", "workspaces")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("codeguard.execution.temp.bytes", outputSpillStore, s -> directorySize(s.getRoot()))
+                .tag("directory", "output-spill")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("codeguard.execution.temp.bytes", compilationCache, CompilationCache::getSizeBytes)
+                .tag("directory", "compile-cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public void recordExecution(CodeSubmission.Language language, Outcome outcome, long wallNanos,
+                                ExecutionPhases phases) {
+        Timer.builder("codeguard.execution")
+                .description("End-to-end execution latency, queue wait included")
+                .tag("language", language.getName())
+                .tag("outcome", outcome.name())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(wallNanos, TimeUnit.NANOSECONDS);
+
+        recordPhase(language, "queue_wait", phases.getQueueWaitNanos());
+        recordPhase(language, "compile", phases.getCompileNanos());
+        recordPhase(language, "spawn", phases.getSpawnNanos());
+        recordPhase(language, "run", phases.getRunNanos());
+        recordPhase(language, "persist", phases.getPersistNanos());
+
+        switch (outcome) {
+            case COMPILE_ERROR -> count("codeguard.execution.compile.failures", language);
+            case TIMEOUT -> count("codeguard.execution.timeouts", language);
+            case OOM_KILLED -> count("codeguard.execution.oom.kills", language);
+            default -> {
+            }
+        }
+    }
+
+    public void recordRejection(CodeSubmission.Language language) {
+        count("codeguard.execution.rejections", language);
+    }
+
+    public void recordJudgeCase(CodeSubmission.Language language, JudgeVerdict verdict) {
+        registry.counter("codeguard.judge.cases", "language", language.getName(), "verdict", verdict.name())
+                .increment();
+    }
+
+    public void recordResultCache(CodeSubmission.Language language, boolean hit) {
+        registry.counter("codeguard.execution.result.cache",
+                "language", language.getName(), "result", hit ? "hit" : "miss").increment();
+    }
+
+    private void recordPhase(CodeSubmission.Language language, String phase, long nanos) {
+        Timer.builder("codeguard.execution.phase")
+                .tag("language", language.getName())
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void count(String name, CodeSubmission.Language language) {
+        registry.counter(name, "language", language.getName()).increment();
+    }
+
+    private static double directorySize(Path dir) {
+        if (dir == null || !Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.mapToLong(file -> {
+                try {
+                    return Files.isRegularFile(file) ? Files.size(file) : 0;
+                } catch (IOException e) {
+                    return 0; // Deleted while walking
+                }
+            }).sum();
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+}
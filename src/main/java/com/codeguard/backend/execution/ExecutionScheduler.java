@@ -0,0 +1,57 @@
+package com.codeguard.backend.execution;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Threads shared by every execution: virtual threads for blocking work such as
+ * output pumping and SSE delivery, and one platform thread that fires all
+ * timeouts, so no run needs a dedicated thread of its own. The timer thread only
+ * fires tasks; they run on virtual threads, so a slow kill or sample cannot hold
+ * up every other run's timeout.
+ */
+@Component
+public class ExecutionScheduler {
+
+    private final ExecutorService virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("exec-io-", 0).factory());
+
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "exec-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExecutorService virtualThreads() {
+        return virtualThreads;
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return timers.schedule(() -> virtualThreads.execute(task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // A tick that fires while the previous one still runs is skipped rather than run alongside it
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodMs) {
+        AtomicBoolean running = new AtomicBoolean();
+        return timers.scheduleAtFixedRate(() -> {
+            if (running.compareAndSet(false, true)) {
+                virtualThreads.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timers.shutdownNow();
+        virtualThreads.shutdownNow();
+    }
+}
@@ -0,0 +1,125 @@
+package com.codeguard.backend.execution;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded blocking queue that hands out work in weighted fair order across
+ * users rather than in arrival order. Uses start-time fair queuing: every entry
+ * is stamped with a virtual start time of {@code max(now, user's last finish)}
+ * and advances its user's finish by {@code 1 / weight}, and {@link #take()}
+ * always returns the smallest stamp. A user with a hundred queued jobs
+ * therefore gets one turn for every turn of each other waiting user instead of
+ * running all hundred first.
+ */
+public class FairShareQueue<T> {
+
+    private final int capacity;
+    private final int maxPerUser;
+    private final ToDoubleFunction<String> weights;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final PriorityQueue<Entry<T>> entries = new PriorityQueue<>();
+    private final Map<String, Flow> flows = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+
+    /**
+     * @param maxPerUser queued entries allowed per user, 0 for no per-user cap
+     * @param weights    relative share of each user, must be positive
+     */
+    public FairShareQueue(int capacity, int maxPerUser, ToDoubleFunction<String> weights) {
+        this.capacity = capacity;
+        this.maxPerUser = maxPerUser;
+        this.weights = weights;
+    }
+
+    /**
+     * Queues {@code item} for {@code user}; returns false when the queue or the
+     * user's share of it is full.
+     */
+    public boolean offer(String user, T item) {
+        String key = user == null ? "" : user;
+        lock.lock();
+        try {
+            Flow flow = flows.computeIfAbsent(key, k -> new Flow());
+            if (entries.size() >= capacity || (maxPerUser > 0 && flow.queued >= maxPerUser)) {
+                if (flow.queued == 0) {
+                    flows.remove(key);
+                }
+                return false;
+            }
+            double start = Math.max(virtualTime, flow.finish);
+            flow.finish = start + 1.0 / Math.max(weights.applyAsDouble(key), 1e-6);
+            flow.queued++;
+            entries.add(new Entry<>(key, item, start, sequence++));
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+            Entry<T> entry = entries.poll();
+            virtualTime = entry.start;
+            Flow flow = flows.get(entry.user);
+            if (--flow.queued == 0) {
+                // A user who comes back later starts level with everyone else, not in debt or credit
+                flows.remove(entry.user);
+            }
+            return entry.item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Number of distinct users with at least one queued entry.
+     */
+    public int waitingUsers() {
+        lock.lock();
+        try {
+            return flows.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Flow {
+        double finish;
+        int queued;
+    }
+
+    private record Entry<T>(String user, T item, double start, long sequence) implements Comparable<Entry<T>> {
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            int byStart = Double.compare(start, other.start);
+            return byStart != 0 ? byStart : Long.compare(sequence, other.sequence);
+        }
+    }
+}
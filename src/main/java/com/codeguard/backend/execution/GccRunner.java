@@ -0,0 +1,100 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * C++ compiled by {@code g++} with the launch profile's flags, the binary kept
+ * in the compile cache, and run directly.
+ */
+@Component
+public class GccRunner implements LanguageRunner {
+
+    private static final Capabilities CAPABILITIES = new Capabilities(true, false, true);
+
+    @Autowired
+    private CompilationCache compilationCache;
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Override
+    public CodeSubmission.Language language() {
+        return CodeSubmission.Language.CPP;
+    }
+
+    @Override
+    public String strategy() {
+        return "gcc";
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception {
+        Path filePath = workspace.resolve(ProgramLauncher.sourceFileName(fileName, CodeSubmission.Language.CPP));
+        Path executablePath = workspace.resolve("output");
+
+        // Write code to file
+        Files.write(filePath, code.getBytes());
+
+        long compileStarted = System.nanoTime();
+        // Precompiled headers only make compiling faster, so the cache key leaves them out
+        List<String> flags = properties.getToolchain().profileFor(CodeSubmission.Language.CPP).getCompileFlags();
+        String cacheKey = null;
+        Optional<Path> cached = Optional.empty();
+        if (compilationCache.isEnabled()) {
+            cacheKey = compilationCache.key(CodeSubmission.Language.CPP,
+                    compilationCache.toolchainVersion(properties.getToolchain().getCxx()), flags, code);
+            cached = compilationCache.lookup(CodeSubmission.Language.CPP, cacheKey);
+        }
+
+        if (cached.isPresent()) {
+            try {
+                Files.copy(cached.get().resolve(executablePath.getFileName()), executablePath,
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                run.compiled(compileStarted);
+                return CompiledProgram.of(CodeSubmission.Language.CPP, workspace.dir(),
+                        List.of(executablePath.toString()));
+            } catch (IOException e) {
+                // Entry evicted while reading, compile again
+            }
+        }
+
+        String compileOutput = launcher.compile(launcher.compileCommand(CodeSubmission.Language.CPP,
+                properties.getToolchain().getCxx(), "-o", executablePath.toString(), filePath.toString()),
+                workspace.dir());
+        run.compiled(compileStarted);
+
+        if (!compileOutput.isEmpty()) {
+            throw new CompilationException(compileOutput);
+        }
+        if (cacheKey != null) {
+            compilationCache.storeFile(CodeSubmission.Language.CPP, cacheKey, executablePath);
+        }
+        return CompiledProgram.of(CodeSubmission.Language.CPP, workspace.dir(), List.of(executablePath.toString()));
+    }
+
+    @Override
+    public int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+                   OutputCapture capture, OutputListener listener) throws Exception {
+        return launcher.execute(program.command(), workingDir, run, capture, listener, stdin, timeoutMs);
+    }
+}
@@ -0,0 +1,243 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import org.springframework.stereotype.Component;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Compiles Java sources with the compiler of the running JVM instead of spawning
+ * a {@code javac} process. Sources are read from strings and class files are kept
+ * in memory, so nothing touches the disk until the caller decides to write them.
+ */
+@Component
+public class InMemoryJavaCompiler {
+
+    private static final List<String> OPTIONS = List.of("-proc:none", "-g");
+    // Submissions compile against the JDK only, never the server's own classpath
+    private static final List<String> KEY_OPTIONS = List.of("-proc:none", "-g", "-classpath", "<none>");
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    /**
+     * What besides the source decides a single-file compile's output, for cache keys.
+     */
+    public List<String> options() {
+        return KEY_OPTIONS;
+    }
+
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    public Result compile(String className, String source) {
+        return compile(List.of(new SourceFile(className, source)), OPTIONS, false);
+    }
+
+    /**
+     * Compiles the sources, keyed by their path within a project, together and
+     * against the classes already under {@code classpath}, or against the JDK
+     * alone when it is null. {@link Result#origins()} tells which source each class
+     * came from, and diagnostics carry the path of their file.
+     */
+    public Result compile(Map<String, String> sources, Path classpath) {
+        List<SourceFile> files = new ArrayList<>();
+        sources.forEach((path, source) -> files.add(new SourceFile(URI.create("string:///" + path), path, source)));
+        List<String> options = new ArrayList<>(OPTIONS);
+        if (classpath != null) {
+            options.addAll(List.of("-classpath", classpath.toString()));
+        }
+        return compile(files, options, true);
+    }
+
+    private Result compile(List<SourceFile> sources, List<String> options, boolean withPaths) {
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler available in this runtime");
+        }
+
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager =
+                compiler.getStandardFileManager(collector, null, StandardCharsets.UTF_8);
+        withoutClasspath(standardManager);
+
+        try (MemoryFileManager fileManager = new MemoryFileManager(standardManager)) {
+            Boolean ok = compiler.getTask(null, fileManager, collector, options, null, sources).call();
+
+            List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
+                CompilationDiagnostic converted = toDiagnostic(diagnostic);
+                if (withPaths && diagnostic.getSource() instanceof SourceFile file) {
+                    converted.setFile(file.path);
+                }
+                diagnostics.add(converted);
+            }
+
+            return new Result(Boolean.TRUE.equals(ok), fileManager.classes(), fileManager.origins(), diagnostics);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close compiler file manager", e);
+        }
+    }
+
+    // Left alone, javac falls back to java.class.path, which is the server's; -classpath still overrides this
+    private static void withoutClasspath(StandardJavaFileManager fileManager) {
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_PATH, List.of());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses and attributes the source without generating classes, for
+     * diagnostics only. Interrupting the calling thread abandons the analysis
+     * at the next compiler phase with a {@link CancellationException}.
+     */
+    public List<CompilationDiagnostic> analyze(String className, String source) {
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler available in this runtime");
+        }
+
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager =
+                compiler.getStandardFileManager(collector, null, StandardCharsets.UTF_8);
+        withoutClasspath(standardManager);
+
+        try (MemoryFileManager fileManager = new MemoryFileManager(standardManager)) {
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, collector, OPTIONS, null,
+                    List.of(new SourceFile(className, source)));
+            task.addTaskListener(new TaskListener() {
+                @Override
+                public void started(TaskEvent event) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new CancellationException("Analysis of " + className + " cancelled");
+                    }
+                }
+            });
+            try {
+                task.analyze();
+            } catch (RuntimeException e) {
+                // javac wraps what its listeners throw
+                if (e.getCause() instanceof CancellationException cancelled) {
+                    throw cancelled;
+                }
+                throw e;
+            }
+
+            List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
+                diagnostics.add(toDiagnostic(diagnostic));
+            }
+            return diagnostics;
+        } catch (IOException e) {
+            throw new RuntimeException("Java analysis failed", e);
+        }
+    }
+
+    private CompilationDiagnostic toDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+        CompilationDiagnostic.Severity severity = switch (diagnostic.getKind()) {
+            case ERROR -> CompilationDiagnostic.Severity.ERROR;
+            case WARNING, MANDATORY_WARNING -> CompilationDiagnostic.Severity.WARNING;
+            default -> CompilationDiagnostic.Severity.NOTE;
+        };
+        return new CompilationDiagnostic(
+                severity,
+                diagnostic.getLineNumber(),
+                diagnostic.getColumnNumber(),
+                diagnostic.getMessage(Locale.ROOT)
+        );
+    }
+
+    /**
+     * Outcome of a compilation: bytecode keyed by binary class name, the path of
+     * the source each class was generated from, and every diagnostic the
+     * compiler reported.
+     */
+    public record Result(boolean success, Map<String, byte[]> classes, Map<String, String> origins,
+                         List<CompilationDiagnostic> diagnostics) {
+
+        public List<CompilationDiagnostic> errors() {
+            return diagnostics.stream()
+                    .filter(d -> d.getSeverity() == CompilationDiagnostic.Severity.ERROR)
+                    .toList();
+        }
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String path;
+        private final String source;
+
+        SourceFile(String className, String source) {
+            this(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+                    className.replace('.', '/') + Kind.SOURCE.extension, source);
+        }
+
+        SourceFile(URI uri, String path, String source) {
+            super(uri, Kind.SOURCE);
+            this.path = path;
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String binaryName) {
+            super(URI.create("bytes:///" + binaryName.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ClassFile> outputs = new LinkedHashMap<>();
+        private final Map<String, String> origins = new HashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            ClassFile file = new ClassFile(className);
+            outputs.put(className, file);
+            if (sibling instanceof SourceFile source) {
+                origins.put(className, source.path);
+            }
+            return file;
+        }
+
+        Map<String, String> origins() {
+            return origins;
+        }
+
+        Map<String, byte[]> classes() {
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            outputs.forEach((name, file) -> classes.put(name, file.bytes.toByteArray()));
+            return classes;
+        }
+    }
+}
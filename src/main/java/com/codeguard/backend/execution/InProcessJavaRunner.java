@@ -0,0 +1,92 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Java compiled by the server's own compiler into memory, with the classes
+ * kept in the compile cache, and run on a fresh JVM. Falls back to
+ * {@link JavacRunner} when this runtime has no compiler.
+ */
+@Component
+public class InProcessJavaRunner implements LanguageRunner {
+
+    private static final Capabilities CAPABILITIES = new Capabilities(true, false, true);
+
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+
+    @Autowired
+    private CompilationCache compilationCache;
+
+    @Autowired
+    private JavacRunner javacRunner;
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Override
+    public CodeSubmission.Language language() {
+        return CodeSubmission.Language.JAVA;
+    }
+
+    @Override
+    public String strategy() {
+        return "in-process";
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception {
+        if (!javaCompiler.isAvailable()) {
+            return javacRunner.compile(fileName, code, workspace, run);
+        }
+        String className = JavacRunner.mainClassName(fileName, code);
+        long compileStarted = System.nanoTime();
+        try {
+            return CompiledProgram.javaClasses(workspace.dir(), javacRunner.command(workspace.dir(), className),
+                    className, compileClasses(className, code));
+        } finally {
+            run.compiled(compileStarted);
+        }
+    }
+
+    @Override
+    public int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+                   OutputCapture capture, OutputListener listener) throws Exception {
+        program.writeClassFiles();
+        return launcher.execute(program.command(), workingDir, run, capture, listener, stdin, timeoutMs);
+    }
+
+    private Map<String, byte[]> compileClasses(String className, String code) throws IOException {
+        String cacheKey = null;
+        if (compilationCache.isEnabled()) {
+            cacheKey = compilationCache.key(CodeSubmission.Language.JAVA,
+                    "javac " + Runtime.version(), javaCompiler.options(), className + "\n" + code);
+            Map<String, byte[]> cached = compilationCache.lookupClasses(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        InMemoryJavaCompiler.Result result = javaCompiler.compile(className, code);
+        if (!result.success()) {
+            throw new CompilationException(result.errors());
+        }
+        if (cacheKey != null) {
+            compilationCache.storeClasses(cacheKey, result.classes());
+        }
+        return result.classes();
+    }
+}
@@ -0,0 +1,194 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.exception.InvalidProjectException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Incremental builds of Java projects. Every source is parsed for the types it
+ * declares and the names it mentions; a run recompiles the files that changed
+ * plus every file mentioning a type declared in one of them, transitively, and
+ * compiles them against the classes the untouched files produced last time.
+ */
+@Component
+public class JavaProjectBuilder {
+
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+
+    @Autowired
+    private JavacRunner javacRunner;
+
+    ProjectCompiler.Build build(ProjectState state, Map<String, String> files, String entryPoint,
+                                WorkspaceManager.Workspace workspace) throws IOException {
+        if (!javaCompiler.isAvailable()) {
+            throw new UnsupportedOperationException("Java projects need a runtime with a Java compiler");
+        }
+        Map<String, String> sources = new TreeMap<>();
+        files.forEach((path, content) -> {
+            if (path.endsWith(".java")) {
+                sources.put(path, content);
+            }
+        });
+        if (sources.isEmpty()) {
+            throw new InvalidProjectException("A Java project needs at least one .java file");
+        }
+
+        Map<String, ProjectState.JavaSource> known = state.javaSources;
+        Map<String, JavaSources.Unit> units = new HashMap<>();
+        Set<String> dirty = new TreeSet<>();
+        // Types declared before or after a change; files mentioning one of them must be recompiled
+        Set<String> touched = new HashSet<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            ProjectState.JavaSource previous = known.get(source.getKey());
+            if (previous != null && previous.hash().equals(ProjectState.hash(source.getValue()))) {
+                units.put(source.getKey(), previous.unit());
+                continue;
+            }
+            JavaSources.Unit unit = JavaSources.parse(source.getValue());
+            units.put(source.getKey(), unit);
+            dirty.add(source.getKey());
+            addTypeNames(unit, touched);
+            if (previous != null) {
+                addTypeNames(previous.unit(), touched);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, ProjectState.JavaSource> previous : known.entrySet()) {
+            if (!sources.containsKey(previous.getKey())) {
+                removed.add(previous.getKey());
+                addTypeNames(previous.getValue().unit(), touched);
+            }
+        }
+
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (Map.Entry<String, JavaSources.Unit> unit : units.entrySet()) {
+                if (!dirty.contains(unit.getKey()) && !Collections.disjoint(unit.getValue().references(), touched)) {
+                    dirty.add(unit.getKey());
+                    addTypeNames(unit.getValue(), touched);
+                    grew = true;
+                }
+            }
+        }
+
+        // Stale classes must not satisfy the compile below; on failure the files stay dirty for the next run
+        Path classes = state.dir.resolve("classes");
+        Files.createDirectories(classes);
+        for (String path : dirty) {
+            discard(known.remove(path), classes);
+        }
+        for (String path : removed) {
+            discard(known.remove(path), classes);
+        }
+
+        if (!dirty.isEmpty()) {
+            Map<String, String> batch = new TreeMap<>();
+            dirty.forEach(path -> batch.put(path, sources.get(path)));
+            InMemoryJavaCompiler.Result result = javaCompiler.compile(batch, classes);
+            if (!result.success()) {
+                throw new CompilationException(result.errors());
+            }
+            Map<String, Map<String, byte[]>> bySource = new HashMap<>();
+            for (Map.Entry<String, byte[]> compiled : result.classes().entrySet()) {
+                String origin = result.origins().get(compiled.getKey());
+                if (origin != null) {
+                    bySource.computeIfAbsent(origin, path -> new HashMap<>())
+                            .put(compiled.getKey(), compiled.getValue());
+                }
+            }
+            for (String path : dirty) {
+                Map<String, byte[]> produced = bySource.getOrDefault(path, Map.of());
+                for (Map.Entry<String, byte[]> compiled : produced.entrySet()) {
+                    Path classFile = classes.resolve(compiled.getKey().replace('.', '/') + ".class");
+                    Files.createDirectories(classFile.getParent());
+                    Files.write(classFile, compiled.getValue());
+                }
+                known.put(path, new ProjectState.JavaSource(ProjectState.hash(sources.get(path)), units.get(path),
+                        produced));
+            }
+        }
+
+        String mainClass = entryClass(units, entryPoint);
+        Map<String, byte[]> program = new HashMap<>();
+        known.values().forEach(source -> program.putAll(source.classes()));
+        return new ProjectCompiler.Build(CompiledProgram.javaClasses(workspace.dir(),
+                javacRunner.command(workspace.dir(), mainClass), mainClass, program),
+                dirty.size(), sources.size() - dirty.size());
+    }
+
+    /**
+     * The class to launch: {@code entryPoint} as a class name, simple or
+     * qualified, or as the path of a file; otherwise the only class declaring
+     * {@code main}, or the one of those named Main.
+     */
+    static String entryClass(Map<String, JavaSources.Unit> units, String entryPoint) {
+        if (entryPoint != null && entryPoint.endsWith(".java")) {
+            JavaSources.Unit unit = units.get(entryPoint);
+            if (unit == null || unit.types().isEmpty()) {
+                throw new InvalidProjectException("Entry point " + entryPoint + " is not a Java file of the project");
+            }
+            JavaSources.TypeDeclaration type = unit.types().stream()
+                    .filter(JavaSources.TypeDeclaration::hasMain)
+                    .findFirst()
+                    .orElse(unit.launchableType());
+            return unit.qualify(type.name());
+        }
+
+        List<String> matches = new ArrayList<>();
+        for (JavaSources.Unit unit : units.values()) {
+            for (JavaSources.TypeDeclaration type : unit.types()) {
+                String qualified = unit.qualify(type.name());
+                boolean match = entryPoint != null
+                        ? qualified.equals(entryPoint) || type.name().equals(entryPoint)
+                        : type.hasMain();
+                if (match) {
+                    matches.add(qualified);
+                }
+            }
+        }
+        Collections.sort(matches);
+        if (entryPoint != null) {
+            if (matches.size() != 1) {
+                throw new InvalidProjectException(matches.isEmpty()
+                        ? "No class " + entryPoint + " in the project"
+                        : "Several classes are named " + entryPoint + ": " + String.join(", ", matches));
+            }
+            return matches.get(0);
+        }
+        if (matches.isEmpty()) {
+            throw new InvalidProjectException("No class declares public static void main(String[]); set entryPoint");
+        }
+        if (matches.size() > 1) {
+            List<String> named = matches.stream()
+                    .filter(name -> name.equals("Main") || name.endsWith(".Main"))
+                    .toList();
+            if (named.size() != 1) {
+                throw new InvalidProjectException("Several classes declare main: " + String.join(", ", matches)
+                        + "; set entryPoint");
+            }
+            return named.get(0);
+        }
+        return matches.get(0);
+    }
+
+    private static void addTypeNames(JavaSources.Unit unit, Set<String> names) {
+        unit.types().forEach(type -> names.add(type.name()));
+    }
+
+    private static void discard(ProjectState.JavaSource source, Path classes) throws IOException {
+        if (source == null) {
+            return;
+        }
+        for (String className : source.classes().keySet()) {
+            Files.deleteIfExists(classes.resolve(className.replace('.', '/') + ".class"));
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.model.ResourceUsage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a set of long-lived JVMs running {@code runner/JavaRunner.java}. Compiled
+ * submissions are shipped to an idle runner over its stdin, loaded in a throwaway
+ * class loader and executed there, which skips JVM boot and most class loading.
+ * When no runner frees up within the acquire timeout the caller falls back to a
+ * cold {@code java} process.
+ * <p>
+ * Runners start inside their own cgroup with the Java quota and their own
+ * workspace as working directory, like cold runs, and are supervised like them.
+ * A class loader does not keep a hostile program from the runner's pipes, so by
+ * default a runner is retired after a single program.
+ */
+@Slf4j
+@Component
+public class JavaRunnerPool {
+
+    private static final String RUNNER_CLASS = "JavaRunner";
+    private static final String WARMUP_CLASS = "Warmup";
+    private static final String WARMUP_SOURCE =
+            "public class Warmup { public static void main(String[] a) { System.out.println(\"ok\"); } }";
+    private static final int FRAME_OUTPUT = 0;
+    // JavaRunner's FrameOutputStream never sends more per frame; a program writing to fd 1 itself may try to
+    private static final int MAX_FRAME_BYTES = 8192;
+    private static final int STATUS_EXITED = 1;
+    private static final long JAVA_PROFILE_WAIT_MS = 30_000;
+    // How often a run checks whether its caller was interrupted, e.g. by a fail-fast judge
+    private static final long CANCEL_POLL_MS = 20;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Autowired
+    private InMemoryJavaCompiler compiler;
+
+    @Autowired
+    private ExecutionScheduler scheduler;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private CgroupManager cgroupManager;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    private final BlockingQueue<Runner> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+
+    // Sized to the pool in start(): with one run per runner, replacements boot as fast as runs retire them
+    private final ThreadPoolExecutor spawner = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), daemon("java-runner-spawner"));
+
+    private Path runnerDir;
+    private Map<String, byte[]> warmupClasses;
+    private volatile boolean ready;
+    private volatile boolean closed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.getJavaPool().isEnabled() || !compiler.isAvailable()) {
+            return;
+        }
+        spawner.setMaximumPoolSize(targetSize());
+        spawner.setCorePoolSize(targetSize());
+        spawner.allowCoreThreadTimeOut(true);
+        spawner.execute(() -> {
+            try {
+                prepareRunnerClasspath();
+                // Runners live long, so starting them from the shared archive is worth a short wait
+                toolchainProfiles.awaitJava(JAVA_PROFILE_WAIT_MS);
+                // The first runner proves the setup works; the rest boot in parallel
+                spawnRunner();
+                for (int i = 1; i < targetSize(); i++) {
+                    spawner.execute(this::spawnReplacement);
+                }
+                ready = true;
+                log.info("Java runner pool ready, starting {} runners", targetSize());
+            } catch (Exception e) {
+                log.warn("Java runner pool disabled: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs the given classes on a warm runner. Returns empty when the pool is
+     * disabled or every runner stayed busy for the whole acquire timeout.
+     */
+    public Optional<Outcome> run(String className, Map<String, byte[]> classes, byte[] stdin, long timeoutMs,
+                                 OutputListener listener) {
+        if (!ready || closed) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        Runner runner;
+        waiting.incrementAndGet();
+        try {
+            runner = idle.poll(properties.getJavaPool().getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runner = null;
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        if (runner == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+
+        CgroupManager.Usage before = runner.slot.usage();
+        Outcome outcome = null;
+        try {
+            outcome = runner.execute(className, classes, stdin, timeoutMs, listener)
+                    .limitedBy(runner.slot, before);
+        } finally {
+            // A listener failing or a runner misbehaving must not strand the runner outside the pool
+            release(runner, outcome != null ? outcome : new Outcome(-1, false, true, 0, null));
+        }
+        return Optional.of(outcome);
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new Stats(
+                live.get(),
+                idle.size(),
+                waiting.get(),
+                hitCount,
+                missCount,
+                total == 0 ? 0.0 : (double) hitCount / total,
+                recycled.get()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        spawner.shutdownNow();
+        Runner runner;
+        while ((runner = idle.poll()) != null) {
+            runner.destroy();
+        }
+    }
+
+    private void release(Runner runner, Outcome outcome) {
+        boolean exhausted = runner.runs >= properties.getJavaPool().getMaxRunsPerRunner();
+        if (closed || outcome.retire() || exhausted) {
+            retire(runner);
+        } else {
+            idle.offer(runner);
+        }
+    }
+
+    private void retire(Runner runner) {
+        runner.destroy();
+        live.decrementAndGet();
+        recycled.incrementAndGet();
+        if (!closed) {
+            spawner.execute(this::spawnReplacement);
+        }
+    }
+
+    private void spawnReplacement() {
+        try {
+            spawnRunner();
+        } catch (IOException e) {
+            log.warn("Failed to replace Java runner: {}", e.getMessage());
+        }
+    }
+
+    private void prepareRunnerClasspath() throws IOException {
+        String source;
+        try (InputStream in = new ClassPathResource("runner/" + RUNNER_CLASS + ".java").getInputStream()) {
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        InMemoryJavaCompiler.Result result = compiler.compile(RUNNER_CLASS, source);
+        if (!result.success()) {
+            throw new IllegalStateException("Runner bootstrap failed to compile: " + result.errors());
+        }
+
+        runnerDir = Files.createTempDirectory("codeguard-runner");
+        for (Map.Entry<String, byte[]> entry : result.classes().entrySet()) {
+            Files.write(runnerDir.resolve(entry.getKey() + ".class"), entry.getValue());
+        }
+        warmupClasses = compiler.compile(WARMUP_CLASS, WARMUP_SOURCE).classes();
+    }
+
+    private void spawnRunner() throws IOException {
+        if (closed) {
+            return;
+        }
+        String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(javaBin));
+        command.addAll(toolchainProfiles.runFlags(CodeSubmission.Language.JAVA, javaBin));
+        command.addAll(List.of("-Xmx" + properties.getJavaPool().getMaxHeap(), "-cp", runnerDir.toString(),
+                RUNNER_CLASS));
+        // Whatever the programs write relative to their working directory stays in the runner's workspace
+        WorkspaceManager.Workspace workspace = workspaceManager.acquire();
+        CgroupManager.Slot slot = cgroupManager.open(CodeSubmission.Language.JAVA);
+        Process process;
+        try {
+            process = new ProcessBuilder(slot.wrap(command))
+                    .directory(workspace.dir().toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            slot.close();
+            workspace.close();
+            throw e;
+        }
+        processSupervisor.adopt(process);
+
+        Runner runner = new Runner(process, slot, workspace);
+        live.incrementAndGet();
+
+        // Push one trivial program through so class loading and the reflective call path are hot
+        Outcome warmup = runner.execute(WARMUP_CLASS, warmupClasses, new byte[0], 10_000, OutputListener.NONE);
+        runner.runs = 0;
+        if (warmup.retire() || warmup.exitCode() != 0) {
+            runner.destroy();
+            live.decrementAndGet();
+            throw new IOException("Java runner failed its warm-up run");
+        }
+        idle.offer(runner);
+    }
+
+    private int targetSize() {
+        int size = properties.getJavaPool().getSize();
+        return size > 0 ? size : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Result of one pooled run; the output itself went to the run's listener.
+     * {@code retire} is set when the runner cannot be reused: it timed out, died,
+     * or reported leftover threads or changed state. {@code runNanos} counts from
+     * the moment the classes were shipped; {@code usage} is null if the runner
+     * never reported back. {@code limits} is what
+     * the runner's cgroup recorded during the run, null if it has none.
+     */
+    public record Outcome(int exitCode, boolean timedOut, boolean retire, long runNanos, ResourceUsage usage,
+                          CgroupManager.Usage limits) {
+
+        Outcome(int exitCode, boolean timedOut, boolean retire, long runNanos, ResourceUsage usage) {
+            this(exitCode, timedOut, retire, runNanos, usage, null);
+        }
+
+        // A group that hit a limit keeps its counters, so it cannot vouch for the next run
+        Outcome limitedBy(CgroupManager.Slot slot, CgroupManager.Usage before) {
+            if (!slot.isConfined()) {
+                return this;
+            }
+            CgroupManager.Usage during = slot.usage().since(before);
+            return new Outcome(exitCode, timedOut, retire || during.oomKilled() || during.pidsLimitHit(), runNanos,
+                    usage, during);
+        }
+    }
+
+    public record Stats(int size, int idle, int queueDepth, long hits, long misses, double hitRate, long recycled) {
+    }
+
+    private final class Runner {
+
+        private final Process process;
+        private final CgroupManager.Slot slot;
+        private final WorkspaceManager.Workspace workspace;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private final byte[] chunk = new byte[MAX_FRAME_BYTES];
+        private final AtomicBoolean destroyed = new AtomicBoolean();
+        private int runs;
+
+        Runner(Process process, CgroupManager.Slot slot, WorkspaceManager.Workspace workspace) {
+            this.process = process;
+            this.slot = slot;
+            this.workspace = workspace;
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        Outcome execute(String className, Map<String, byte[]> classes, byte[] stdin, long timeoutMs,
+                        OutputListener listener) {
+            runs++;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> timer = scheduler.schedule(() -> {
+                timedOut.set(true);
+                destroy();
+            }, timeoutMs);
+            // Blocking reads of the pipe ignore interrupts, so a cancelled caller is polled for instead
+            Thread caller = Thread.currentThread();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            ScheduledFuture<?> watch = scheduler.scheduleAtFixedRate(() -> {
+                if (caller.isInterrupted() && !cancelled.getAndSet(true)) {
+                    destroy();
+                }
+            }, CANCEL_POLL_MS);
+            long runStarted = System.nanoTime();
+
+            try {
+                out.writeUTF(className);
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+                out.writeInt(stdin.length);
+                out.write(stdin);
+                out.flush();
+                runStarted = System.nanoTime();
+
+                while (in.readInt() == FRAME_OUTPUT) {
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_FRAME_BYTES) {
+                        throw new IOException("Malformed output frame of " + length + " bytes");
+                    }
+                    in.readFully(chunk, 0, length);
+                    listener.onOutput(chunk, 0, length);
+                }
+                int status = in.readInt();
+                int exitCode = in.readInt();
+                boolean contaminated = in.readBoolean();
+                ResourceUsage usage = new ResourceUsage(
+                        in.readLong() / 1000, in.readLong() / 1000, in.readLong(), ResourceUsage.Source.JVM);
+                long runNanos = System.nanoTime() - runStarted;
+                timer.cancel(false);
+                watch.cancel(false);
+
+                if (status == STATUS_EXITED) {
+                    exitCode = process.waitFor();
+                }
+                return new Outcome(exitCode, false,
+                        contaminated || status == STATUS_EXITED || cancelled.get(), runNanos, usage);
+
+            } catch (OutputRejectedException e) {
+                // The rest of the output is unwanted and the runner is mid-program, so it cannot be reused
+                timer.cancel(false);
+                destroy();
+                return new Outcome(-1, false, true, System.nanoTime() - runStarted, null);
+            } catch (IOException e) {
+                timer.cancel(false);
+                if (cancelled.get()) {
+                    return new Outcome(-1, false, true, System.nanoTime() - runStarted, null);
+                }
+                if (timedOut.get()) {
+                    return new Outcome(-1, true, true, timeoutMs * 1_000_000, null);
+                }
+                // The runner died mid-run (halt, crash, out of memory) or broke the protocol
+                destroy();
+                return new Outcome(exitCodeOf(process), false, true, 0, null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Outcome(-1, false, true, 0, null);
+            } finally {
+                watch.cancel(false);
+            }
+        }
+
+        // Also reached from the kill timer and the cancel watch, so only the first call tears down
+        void destroy() {
+            if (!destroyed.compareAndSet(false, true)) {
+                return;
+            }
+            processSupervisor.release(process, workspace.dir());
+            slot.close();
+            workspace.close();
+        }
+
+        private int exitCodeOf(Process process) {
+            try {
+                return process.waitFor(1, TimeUnit.SECONDS) ? process.exitValue() : -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+}
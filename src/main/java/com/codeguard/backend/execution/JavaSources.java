@@ -0,0 +1,207 @@
+package com.codeguard.backend.execution;
+
+import com.sun.source.tree.*;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreeScanner;
+
+import javax.lang.model.element.Modifier;
+import javax.tools.JavaCompiler;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Source-level helpers for submitted Java programs.
+ */
+public final class JavaSources {
+
+    private static final JavaCompiler COMPILER = ToolProvider.getSystemJavaCompiler();
+
+    private JavaSources() {
+    }
+
+    /**
+     * Name of the class a submission should be launched with, found by parsing
+     * the source: see {@link Unit#launchableType()}. Null when the source
+     * declares no type.
+     */
+    public static String mainClassName(String code) {
+        Unit unit = parse(code);
+        if (unit == null) {
+            return scanForClassName(code);
+        }
+        TypeDeclaration main = unit.launchableType();
+        return main != null ? main.name() : null;
+    }
+
+    /**
+     * Parses one compilation unit with the compiler's parser, without attributing
+     * it. Returns null when this runtime has no compiler. Syntax errors do not
+     * fail the parse; whatever javac recovered is described.
+     */
+    public static Unit parse(String code) {
+        if (COMPILER == null) {
+            return null;
+        }
+        JavacTask task = (JavacTask) COMPILER.getTask(null, null, diagnostic -> {
+        }, List.of("-proc:none"), null, List.of(new Source(code)));
+        try {
+            for (CompilationUnitTree tree : task.parse()) {
+                return describe(tree);
+            }
+            return new Unit(null, List.of(), Set.of());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse Java source", e);
+        }
+    }
+
+    private static Unit describe(CompilationUnitTree tree) {
+        String packageName = tree.getPackageName() != null ? tree.getPackageName().toString() : null;
+        List<TypeDeclaration> types = new ArrayList<>();
+        for (Tree declaration : tree.getTypeDecls()) {
+            if (declaration instanceof ClassTree type && !type.getSimpleName().isEmpty()) {
+                types.add(new TypeDeclaration(type.getSimpleName().toString(),
+                        type.getModifiers().getFlags().contains(Modifier.PUBLIC), declaresMain(type)));
+            }
+        }
+
+        // Every name the unit mentions, qualified or not; a superset of the types it depends on
+        Set<String> references = new HashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void unused) {
+                references.add(node.getName().toString());
+                return null;
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, Void unused) {
+                references.add(node.getIdentifier().toString());
+                return super.visitMemberSelect(node, unused);
+            }
+        }.scan(tree, null);
+        return new Unit(packageName, types, references);
+    }
+
+    // public static void main(String[] args), or String... args
+    private static boolean declaresMain(ClassTree type) {
+        for (Tree member : type.getMembers()) {
+            if (!(member instanceof MethodTree method) || !method.getName().contentEquals("main")) {
+                continue;
+            }
+            Set<Modifier> flags = method.getModifiers().getFlags();
+            if (!flags.contains(Modifier.PUBLIC) || !flags.contains(Modifier.STATIC)
+                    || !"void".equals(String.valueOf(method.getReturnType()))
+                    || method.getParameters().size() != 1) {
+                continue;
+            }
+            Tree parameter = method.getParameters().get(0).getType();
+            if (parameter instanceof ArrayTypeTree array && isString(array.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isString(Tree type) {
+        String name = type.toString();
+        return name.equals("String") || name.equals("java.lang.String");
+    }
+
+    // For runtimes without a compiler: the first "public class", else the first class outside a comment line
+    private static String scanForClassName(String code) {
+        String[] lines = code.split("\n");
+        for (String line : lines) {
+            line = line.trim();
+            if (line.startsWith("public class ")) {
+                String className = classNameIn(line);
+                if (className != null) {
+                    return className;
+                }
+            }
+        }
+
+        for (String line : lines) {
+            line = line.trim();
+            if (line.contains("class ") && !line.startsWith("//") && !line.startsWith("*")) {
+                String className = classNameIn(line);
+                if (className != null) {
+                    return className;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static String classNameIn(String line) {
+        String[] parts = line.split("\\s+");
+        for (int i = 0; i < parts.length - 1; i++) {
+            if ("class".equals(parts[i])) {
+                String className = parts[i + 1];
+                // Remove any opening brace
+                if (className.contains("{")) {
+                    className = className.substring(0, className.indexOf("{"));
+                }
+                return className.trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * What one source file declares and mentions. {@code references} holds every
+     * simple name used in the file, which over-approximates the types it needs.
+     */
+    public record Unit(String packageName, List<TypeDeclaration> types, Set<String> references) {
+
+        public String qualify(String simpleName) {
+            return packageName == null || packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        }
+
+        /**
+         * The type to launch a single-file submission with: the public top-level
+         * type, since javac wants the file named after it, otherwise the first
+         * type declaring {@code main}, otherwise the first type.
+         */
+        public TypeDeclaration launchableType() {
+            TypeDeclaration publicType = null;
+            TypeDeclaration mainType = null;
+            for (TypeDeclaration type : types) {
+                if (type.isPublic() && publicType == null) {
+                    publicType = type;
+                }
+                if (type.hasMain() && mainType == null) {
+                    mainType = type;
+                }
+            }
+            if (publicType != null) {
+                return publicType;
+            }
+            if (mainType != null) {
+                return mainType;
+            }
+            return types.isEmpty() ? null : types.get(0);
+        }
+    }
+
+    public record TypeDeclaration(String name, boolean isPublic, boolean hasMain) {
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        Source(String code) {
+            super(URI.create("string:///Source.java"), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
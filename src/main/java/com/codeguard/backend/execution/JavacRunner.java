@@ -0,0 +1,87 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Java through the external toolchain: a {@code javac} process per compile and
+ * a fresh JVM per run. Also the fallback for runtimes that ship without
+ * javax.tools (plain JRE images).
+ */
+@Component
+public class JavacRunner implements LanguageRunner {
+
+    private static final Capabilities CAPABILITIES = new Capabilities(false, false, true);
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Override
+    public CodeSubmission.Language language() {
+        return CodeSubmission.Language.JAVA;
+    }
+
+    @Override
+    public String strategy() {
+        return "javac";
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception {
+        String className = mainClassName(fileName, code);
+        // Use the extracted class name for the file
+        Path filePath = workspace.resolve(className + ".java");
+        Files.write(filePath, code.getBytes());
+
+        long compileStarted = System.nanoTime();
+        String compileOutput = launcher.compile(launcher.compileCommand(CodeSubmission.Language.JAVA,
+                properties.getToolchain().getJavac(), filePath.toString()), workspace.dir());
+        run.compiled(compileStarted);
+
+        if (!compileOutput.trim().isEmpty()) {
+            throw new CompilationException(compileOutput);
+        }
+        // Check if class file was created
+        if (!Files.exists(workspace.resolve(className + ".class"))) {
+            throw new RuntimeException("Compilation failed: .class file not generated");
+        }
+        return CompiledProgram.of(CodeSubmission.Language.JAVA, workspace.dir(), command(workspace.dir(), className));
+    }
+
+    @Override
+    public int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+                   OutputCapture capture, OutputListener listener) throws Exception {
+        // Project builds hand over in-memory classes whatever the configured Java runner
+        program.writeClassFiles();
+        return launcher.execute(program.command(), workingDir, run, capture, listener, stdin, timeoutMs);
+    }
+
+    List<String> command(Path classpath, String className) {
+        return launcher.command(CodeSubmission.Language.JAVA, properties.getToolchain().getJava(),
+                "-cp", classpath.toString(), className);
+    }
+
+    // Extract class name from the code itself, not just filename
+    static String mainClassName(String fileName, String code) {
+        String className = JavaSources.mainClassName(code);
+        return className != null
+                ? className
+                : ProgramLauncher.sourceFileName(fileName, CodeSubmission.Language.JAVA).replace(".java", "");
+    }
+}
@@ -0,0 +1,51 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.model.CodeSubmission;
+
+import java.nio.file.Path;
+
+/**
+ * One strategy for compiling and running programs of a language. Runners are
+ * Spring beans collected by {@link LanguageRunners}, which picks one per
+ * language from {@code codeguard.execution.runners.<language>}. Compiling and
+ * running are separate calls so the service can compile the next job while the
+ * previous one still runs.
+ */
+public interface LanguageRunner {
+
+    CodeSubmission.Language language();
+
+    /**
+     * Name the strategy is selected by, unique within its language.
+     */
+    String strategy();
+
+    Capabilities capabilities();
+
+    /**
+     * Compiles the source into {@code workspace}, recording the time spent in
+     * {@code run}. Throws {@link CompilationException} when the source does not
+     * compile.
+     */
+    CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception;
+
+    /**
+     * Runs a program this runner compiled once, with {@code workingDir} as its
+     * current directory, and returns its exit code. Output goes to
+     * {@code capture} and {@code listener}; a listener rejecting the output ends
+     * the run early.
+     */
+    int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+            OutputCapture capture, OutputListener listener) throws Exception;
+
+    /**
+     * What a strategy offers: {@code compileCacheable} when unchanged sources skip
+     * compilation, {@code poolable} when runs reuse warm processes instead of
+     * starting one each, {@code streaming} when output reaches the listener while
+     * the program runs rather than once it has finished.
+     */
+    record Capabilities(boolean compileCacheable, boolean poolable, boolean streaming) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Every {@link LanguageRunner} in the context, by language and strategy, and
+ * the one selected per language by {@code codeguard.execution.runners.<language>}.
+ * A selection naming no known strategy fails the startup.
+ */
+@Slf4j
+@Component
+public class LanguageRunners {
+
+    @Autowired
+    private List<LanguageRunner> runners;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final Map<CodeSubmission.Language, Map<String, LanguageRunner>> byLanguage =
+            new EnumMap<>(CodeSubmission.Language.class);
+    private final Map<CodeSubmission.Language, LanguageRunner> selected = new EnumMap<>(CodeSubmission.Language.class);
+
+    @PostConstruct
+    public void init() {
+        for (LanguageRunner runner : runners) {
+            LanguageRunner previous = byLanguage
+                    .computeIfAbsent(runner.language(), language -> new TreeMap<>())
+                    .putIfAbsent(runner.strategy(), runner);
+            if (previous != null) {
+                throw new IllegalStateException("Two " + runner.language().getName() + " runners named "
+                        + runner.strategy());
+            }
+        }
+        for (CodeSubmission.Language language : CodeSubmission.Language.values()) {
+            Map<String, LanguageRunner> strategies = byLanguage.getOrDefault(language, Map.of());
+            String strategy = properties.getRunners().get(language);
+            LanguageRunner runner = strategy != null ? strategies.get(strategy) : null;
+            if (runner == null) {
+                throw new IllegalStateException("No " + language.getName() + " runner named " + strategy
+                        + ", available: " + strategies.keySet());
+            }
+            selected.put(language, runner);
+        }
+        log.info("Language runners: {}", selected.values().stream()
+                .map(runner -> runner.language().getName() + "=" + runner.strategy())
+                .toList());
+    }
+
+    public LanguageRunner forLanguage(CodeSubmission.Language language) {
+        return selected.get(language);
+    }
+
+    /**
+     * The selected runner, or with {@code streaming} and a selection that only
+     * delivers output at the end, another strategy of the language that streams.
+     */
+    public LanguageRunner forLanguage(CodeSubmission.Language language, boolean streaming) {
+        LanguageRunner runner = selected.get(language);
+        if (!streaming || runner.capabilities().streaming()) {
+            return runner;
+        }
+        return byLanguage.get(language).values().stream()
+                .filter(candidate -> candidate.capabilities().streaming())
+                .findFirst()
+                .orElse(runner);
+    }
+
+    public Map<CodeSubmission.Language, Selection> getSelections() {
+        Map<CodeSubmission.Language, Selection> selections = new EnumMap<>(CodeSubmission.Language.class);
+        selected.forEach((language, runner) -> selections.put(language,
+                new Selection(runner.strategy(), runner.capabilities(), byLanguage.get(language).keySet())));
+        return selections;
+    }
+
+    public record Selection(String strategy, LanguageRunner.Capabilities capabilities, Set<String> available) {
+    }
+}
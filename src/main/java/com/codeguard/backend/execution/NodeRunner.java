@@ -0,0 +1,57 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JavaScript run by a fresh {@code node} process; compiling only writes the
+ * script into the workspace.
+ */
+@Component
+public class NodeRunner implements LanguageRunner {
+
+    private static final Capabilities CAPABILITIES = new Capabilities(false, false, true);
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Override
+    public CodeSubmission.Language language() {
+        return CodeSubmission.Language.JAVASCRIPT;
+    }
+
+    @Override
+    public String strategy() {
+        return "node";
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception {
+        Path filePath = workspace.resolve(ProgramLauncher.sourceFileName(fileName, CodeSubmission.Language.JAVASCRIPT));
+        // Write code to file
+        Files.write(filePath, code.getBytes());
+        return CompiledProgram.script(CodeSubmission.Language.JAVASCRIPT, workspace.dir(), launcher.command(
+                CodeSubmission.Language.JAVASCRIPT, properties.getToolchain().getNode(), filePath.toString()),
+                filePath, code);
+    }
+
+    @Override
+    public int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+                   OutputCapture capture, OutputListener listener) throws Exception {
+        return launcher.execute(program.command(), workingDir, run, capture, listener, stdin, timeoutMs);
+    }
+}
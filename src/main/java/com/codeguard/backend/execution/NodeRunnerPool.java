@@ -0,0 +1,442 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.model.ResourceUsage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a set of long-lived {@code node} processes running
+ * {@code runner/node-runner.js}. Scripts are shipped to an idle worker over its
+ * stdin as length-prefixed frames and run in a fresh vm context there, which
+ * skips V8 boot and loading node's own modules. When no worker frees up within
+ * the acquire timeout the caller falls back to a cold {@code node} process.
+ * <p>
+ * A vm context does not contain a hostile program, so every worker runs inside
+ * its own cgroup with the JavaScript quota, like a cold run, and by default is
+ * retired after a single program: the pool then saves start-up latency, not
+ * processes.
+ */
+@Slf4j
+@Component
+public class NodeRunnerPool {
+
+    private static final String BOOTSTRAP = "node-runner.js";
+    private static final String WARMUP_SOURCE = "console.log('ok');";
+    private static final int FRAME_OUTPUT = 0;
+    // node-runner.js splits output into frames of at most this much; results are small JSON documents.
+    // The program can write to fd 1 itself, so both bounds are enforced on every frame
+    private static final int MAX_OUTPUT_FRAME_BYTES = 8192;
+    private static final int MAX_RESULT_FRAME_BYTES = 64 * 1024;
+    // The worker enforces the timeout itself; this only catches a worker stuck outside the program's deadline
+    private static final long KILL_GRACE_MS = 1000;
+    // How often a run checks whether its caller was interrupted, e.g. by a fail-fast judge
+    private static final long CANCEL_POLL_MS = 20;
+    // Room in the worker's cgroup for node itself and off-heap memory, so V8 reports a full heap before the kernel kills
+    private static final long CGROUP_HEADROOM_MB = 64;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Autowired
+    private ExecutionScheduler scheduler;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private CgroupManager cgroupManager;
+
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong overheadNanos = new AtomicLong();
+
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(daemon("node-runner-spawner"));
+
+    private Path bootstrap;
+    private volatile boolean ready;
+    private volatile boolean closed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.getNodePool().isEnabled()) {
+            return;
+        }
+        spawner.execute(() -> {
+            try {
+                bootstrap = Files.createTempFile("codeguard-node-runner", ".js");
+                try (InputStream in = new ClassPathResource("runner/" + BOOTSTRAP).getInputStream()) {
+                    Files.copy(in, bootstrap, StandardCopyOption.REPLACE_EXISTING);
+                }
+                for (int i = 0; i < targetSize(); i++) {
+                    spawnWorker();
+                }
+                ready = true;
+                log.info("Node runner pool ready with {} workers", live.get());
+            } catch (Exception e) {
+                log.warn("Node runner pool disabled: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs the script on a warm worker. {@code file} is where the script lives,
+     * for {@code require} and {@code __filename}; {@code root} is the directory
+     * it runs in, and the only one it may require files from. Returns empty when
+     * the pool is disabled or every worker stayed busy for the whole acquire
+     * timeout.
+     */
+    public Optional<Outcome> run(Path root, Path file, String source, byte[] stdin, long timeoutMs,
+                                 OutputListener listener) {
+        if (!ready || closed) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        long acquireStarted = System.nanoTime();
+        Worker worker;
+        waiting.incrementAndGet();
+        try {
+            worker = idle.poll(properties.getNodePool().getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker = null;
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        if (worker == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+
+        CgroupManager.Usage before = worker.slot.usage();
+        Outcome outcome = null;
+        try {
+            outcome = worker.execute(root, file, source, stdin, timeoutMs, listener)
+                    .limitedBy(worker.slot, before);
+        } finally {
+            // A listener failing or a worker misbehaving must not strand the worker outside the pool
+            release(worker, outcome != null ? outcome : new Outcome(-1, false, true, 0, null));
+        }
+        overheadNanos.addAndGet(Math.max(0, System.nanoTime() - acquireStarted - outcome.runNanos()));
+        return Optional.of(outcome);
+    }
+
+    /**
+     * Parses the script on a warm worker without running it. Returns node's own
+     * rendering of the syntax error, an empty string when the script parses, or
+     * empty when no worker was idle.
+     */
+    public Optional<String> check(Path file, String source) {
+        Worker worker = ready && !closed ? idle.poll() : null;
+        if (worker == null) {
+            return Optional.empty();
+        }
+        String syntaxError = null;
+        try {
+            syntaxError = worker.check(file, source);
+            return Optional.of(syntaxError);
+        } catch (IOException e) {
+            return Optional.empty();
+        } finally {
+            release(worker, new Outcome(0, false, syntaxError == null, 0, null));
+        }
+    }
+
+    public Stats getStats() {
+        int size = live.get();
+        int idleCount = idle.size();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new Stats(
+                size,
+                idleCount,
+                waiting.get(),
+                hitCount,
+                missCount,
+                total == 0 ? 0.0 : (double) hitCount / total,
+                recycled.get(),
+                size == 0 ? 0.0 : (double) Math.max(0, size - idleCount) / size,
+                hitCount == 0 ? 0 : overheadNanos.get() / hitCount / 1000
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        spawner.shutdownNow();
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    private void release(Worker worker, Outcome outcome) {
+        boolean exhausted = worker.runs >= properties.getNodePool().getMaxRunsPerWorker();
+        if (closed || outcome.retire() || exhausted) {
+            retire(worker);
+        } else {
+            idle.offer(worker);
+        }
+    }
+
+    private void retire(Worker worker) {
+        worker.destroy();
+        live.decrementAndGet();
+        recycled.incrementAndGet();
+        if (!closed) {
+            spawner.execute(() -> {
+                try {
+                    spawnWorker();
+                } catch (IOException e) {
+                    log.warn("Failed to replace Node worker: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    private long heapMbWithin(CgroupManager.Slot slot) {
+        long heapMb = properties.getNodePool().getMaxHeapMb();
+        if (!slot.isConfined() || slot.quota().getMemoryBytes() <= 0) {
+            return heapMb;
+        }
+        long groupMb = slot.quota().getMemoryBytes() / (1024 * 1024);
+        return Math.max(16, Math.min(heapMb, groupMb - CGROUP_HEADROOM_MB));
+    }
+
+    private void spawnWorker() throws IOException {
+        if (closed) {
+            return;
+        }
+        String node = properties.getToolchain().getNode();
+        List<String> command = new ArrayList<>(List.of(node));
+        command.addAll(toolchainProfiles.runFlags(CodeSubmission.Language.JAVASCRIPT, node));
+        CgroupManager.Slot slot = cgroupManager.open(CodeSubmission.Language.JAVASCRIPT);
+        command.addAll(List.of("--max-old-space-size=" + heapMbWithin(slot), bootstrap.toString()));
+        Process process;
+        try {
+            process = new ProcessBuilder(slot.wrap(command))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            slot.close();
+            throw e;
+        }
+
+        Worker worker = new Worker(process, slot);
+        live.incrementAndGet();
+
+        // Push one trivial script through so vm, console and the module loader are warm
+        Outcome warmup = worker.execute(bootstrap.getParent(), bootstrap.resolveSibling("warmup.js"), WARMUP_SOURCE,
+                new byte[0], 10_000, OutputListener.NONE);
+        worker.runs = 0;
+        if (warmup.retire() || warmup.exitCode() != 0) {
+            worker.destroy();
+            live.decrementAndGet();
+            throw new IOException("Node worker failed its warm-up run");
+        }
+        idle.offer(worker);
+    }
+
+    private int targetSize() {
+        int size = properties.getNodePool().getSize();
+        return size > 0 ? size : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Result of one pooled run; the output itself went to the run's listener.
+     * {@code retire} is set when the worker cannot be reused: it timed out, died,
+     * or left too much of its heap in use. {@code runNanos} is the time the worker
+     * spent on the program itself; {@code usage} is null if the worker never
+     * reported back. {@code limits} is what the worker's cgroup recorded during
+     * the run, null if it has none.
+     */
+    public record Outcome(int exitCode, boolean timedOut, boolean retire, long runNanos, ResourceUsage usage,
+                          CgroupManager.Usage limits) {
+
+        Outcome(int exitCode, boolean timedOut, boolean retire, long runNanos, ResourceUsage usage) {
+            this(exitCode, timedOut, retire, runNanos, usage, null);
+        }
+
+        // A group that hit a limit keeps its counters, so it cannot vouch for the next run
+        Outcome limitedBy(CgroupManager.Slot slot, CgroupManager.Usage before) {
+            if (!slot.isConfined()) {
+                return this;
+            }
+            CgroupManager.Usage during = slot.usage().since(before);
+            return new Outcome(exitCode, timedOut, retire || during.oomKilled() || during.pidsLimitHit(), runNanos,
+                    usage, during);
+        }
+    }
+
+    /**
+     * {@code utilization} is the share of workers busy right now;
+     * {@code avgOverheadMicros} is what a pooled run costs on top of the program
+     * itself: waiting for a worker, framing, and a fresh vm context.
+     */
+    public record Stats(int size, int idle, int queueDepth, long hits, long misses, double hitRate, long recycled,
+                        double utilization, long avgOverheadMicros) {
+    }
+
+    private final class Worker {
+
+        private final Process process;
+        private final CgroupManager.Slot slot;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private final byte[] chunk = new byte[MAX_RESULT_FRAME_BYTES];
+        private int runs;
+
+        Worker(Process process, CgroupManager.Slot slot) {
+            this.process = process;
+            this.slot = slot;
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        Outcome execute(Path root, Path file, String source, byte[] stdin, long timeoutMs, OutputListener listener) {
+            runs++;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> timer = scheduler.schedule(() -> {
+                timedOut.set(true);
+                destroy();
+            }, timeoutMs + KILL_GRACE_MS);
+            // Blocking reads of the pipe ignore interrupts, so a cancelled caller is polled for instead
+            Thread caller = Thread.currentThread();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            ScheduledFuture<?> watch = scheduler.scheduleAtFixedRate(() -> {
+                if (caller.isInterrupted() && !cancelled.getAndSet(true)) {
+                    destroy();
+                }
+            }, CANCEL_POLL_MS);
+            long shipped = System.nanoTime();
+
+            try {
+                Map<String, Object> request = new LinkedHashMap<>();
+                request.put("root", root.toString());
+                request.put("file", file.toString());
+                request.put("code", source);
+                request.put("stdin", Base64.getEncoder().encodeToString(stdin));
+                request.put("timeoutMs", timeoutMs);
+                send(request);
+                shipped = System.nanoTime();
+
+                JsonNode result = receive(listener);
+                timer.cancel(false);
+                watch.cancel(false);
+
+                ResourceUsage usage = new ResourceUsage(result.path("cpuUserMicros").asLong(),
+                        result.path("cpuSystemMicros").asLong(), result.path("heapUsedBytes").asLong(),
+                        ResourceUsage.Source.NODE);
+                boolean workerTimedOut = result.path("timedOut").asBoolean();
+                return new Outcome(result.path("exitCode").asInt(), workerTimedOut,
+                        workerTimedOut || result.path("contaminated").asBoolean() || cancelled.get(),
+                        result.path("runNanos").asLong(), usage);
+
+            } catch (OutputRejectedException e) {
+                // The rest of the output is unwanted and the worker is mid-program, so it cannot be reused
+                timer.cancel(false);
+                destroy();
+                return new Outcome(-1, false, true, System.nanoTime() - shipped, null);
+            } catch (IOException e) {
+                timer.cancel(false);
+                if (cancelled.get()) {
+                    return new Outcome(-1, false, true, System.nanoTime() - shipped, null);
+                }
+                if (timedOut.get()) {
+                    return new Outcome(-1, true, true, timeoutMs * 1_000_000, null);
+                }
+                // The worker died mid-run (heap limit, crash, or the program reached the real process) or broke
+                // the protocol
+                destroy();
+                return new Outcome(exitCodeOf(process), false, true, System.nanoTime() - shipped, null);
+            } finally {
+                watch.cancel(false);
+            }
+        }
+
+        // Parsing runs none of the script, so a check does not use up the worker
+        String check(Path file, String source) throws IOException {
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("check", true);
+            request.put("file", file.toString());
+            request.put("code", source);
+            send(request);
+            return receive(OutputListener.NONE).path("syntaxError").asText("");
+        }
+
+        private void send(Map<String, Object> request) throws IOException {
+            byte[] frame = JSON.writeValueAsBytes(request);
+            out.writeInt(frame.length);
+            out.write(frame);
+            out.flush();
+        }
+
+        // Hands output frames to the listener until the result frame arrives
+        private JsonNode receive(OutputListener listener) throws IOException {
+            while (true) {
+                int length = in.readInt() - 1;
+                int kind = in.readUnsignedByte();
+                int limit = kind == FRAME_OUTPUT ? MAX_OUTPUT_FRAME_BYTES : MAX_RESULT_FRAME_BYTES;
+                if (length < 0 || length > limit) {
+                    throw new IOException("Malformed frame of " + length + " bytes");
+                }
+                in.readFully(chunk, 0, length);
+                if (kind != FRAME_OUTPUT) {
+                    return JSON.readTree(chunk, 0, length);
+                }
+                listener.onOutput(chunk, 0, length);
+            }
+        }
+
+        // Also reached from the kill timer and the cancel watch; the slot closes only once
+        void destroy() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            slot.close();
+        }
+
+        private int exitCodeOf(Process process) {
+            try {
+                return process.waitFor(1, TimeUnit.SECONDS) ? process.exitValue() : -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Size-bounded capture of a program's output. The first {@code headBytes} are
+ * kept in memory along with the last {@code tailBytes}; everything in between is
+ * either dropped behind a truncation marker or, when spilling is enabled, written
+ * to a gzip file together with the head so the full output can be downloaded.
+ * Works on raw bytes, so a single huge line never has to fit on the heap.
+ */
+public class OutputCapture implements OutputListener {
+
+    private final ExecutionProperties.Output.Limits limits;
+    private final OutputSpillStore spillStore;
+
+    private byte[] head;
+    private int headCount;
+    private byte[] tail;
+    private int tailStart;
+    private int tailCount;
+    private long totalBytes;
+
+    private Path spillFile;
+    private OutputStream spill;
+    private long spilledBytes;
+    private boolean spillTruncated;
+
+    public OutputCapture(ExecutionProperties.Output.Limits limits, OutputSpillStore spillStore) {
+        this.limits = limits;
+        this.spillStore = spillStore;
+        // Both buffers grow on demand so short outputs stay cheap
+        this.head = new byte[Math.min(8192, limits.getHeadBytes())];
+        this.tail = new byte[0];
+    }
+
+    @Override
+    public synchronized void onOutput(byte[] buffer, int offset, int length) {
+        totalBytes += length;
+
+        int toHead = Math.min(length, limits.getHeadBytes() - headCount);
+        if (headCount + toHead > head.length) {
+            head = Arrays.copyOf(head, Math.min(limits.getHeadBytes(), Math.max(head.length * 2, headCount + toHead)));
+        }
+        System.arraycopy(buffer, offset, head, headCount, toHead);
+        headCount += toHead;
+        offset += toHead;
+        length -= toHead;
+        if (length == 0) {
+            return;
+        }
+
+        appendToTail(buffer, offset, length);
+        if (limits.isSpill() && spillStore != null) {
+            appendToSpill(buffer, offset, length);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return totalBytes == 0;
+    }
+
+    public synchronized CapturedOutput result() {
+        closeSpill();
+        long omitted = totalBytes - headCount - tailCount;
+        if (omitted <= 0) {
+            byte[] all = Arrays.copyOf(head, headCount + tailCount);
+            System.arraycopy(orderedTail(), 0, all, headCount, tailCount);
+            return new CapturedOutput(new String(all, StandardCharsets.UTF_8), totalBytes, false, null);
+        }
+
+        String text = new String(head, 0, headCount, StandardCharsets.UTF_8)
+                + "\n... [" + omitted + " bytes truncated] ...\n"
+                + new String(orderedTail(), StandardCharsets.UTF_8);
+        String spillName = spillFile == null ? null : spillFile.getFileName().toString();
+        return new CapturedOutput(text, totalBytes, true, spillName);
+    }
+
+    private void appendToTail(byte[] buffer, int offset, int length) {
+        if (limits.getTailBytes() == 0) {
+            return;
+        }
+        if (tail.length == 0) {
+            tail = new byte[limits.getTailBytes()];
+        }
+        if (length >= tail.length) {
+            System.arraycopy(buffer, offset + length - tail.length, tail, 0, tail.length);
+            tailStart = 0;
+            tailCount = tail.length;
+            return;
+        }
+        int end = (tailStart + tailCount) % tail.length;
+        for (int i = 0; i < length; i++) {
+            tail[end] = buffer[offset + i];
+            end = (end + 1) % tail.length;
+            if (tailCount < tail.length) {
+                tailCount++;
+            } else {
+                tailStart = (tailStart + 1) % tail.length;
+            }
+        }
+    }
+
+    private byte[] orderedTail() {
+        byte[] ordered = new byte[tailCount];
+        for (int i = 0; i < tailCount; i++) {
+            ordered[i] = tail[(tailStart + i) % tail.length];
+        }
+        return ordered;
+    }
+
+    private void appendToSpill(byte[] buffer, int offset, int length) {
+        if (spillTruncated) {
+            return;
+        }
+        try {
+            if (spill == null) {
+                spillFile = spillStore.newSpillFile();
+                spill = spillStore.openForWrite(spillFile);
+                spill.write(head, 0, headCount);
+                spilledBytes = headCount;
+            }
+            int allowed = (int) Math.min(length, limits.getMaxSpillBytes() - spilledBytes);
+            spill.write(buffer, offset, allowed);
+            spilledBytes += allowed;
+            if (allowed < length) {
+                spillTruncated = true;
+                spill.write(("\n... [output truncated after " + spilledBytes + " bytes] ...\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // Keep the in-memory head and tail, give up on the full copy
+            spillTruncated = true;
+            closeSpill();
+        }
+    }
+
+    private void closeSpill() {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                // Ignore cleanup errors
+            }
+            spill = null;
+        }
+    }
+
+    /**
+     * Output as returned to the client. {@code spillFile} names the compressed full
+     * copy when the inline text had to be truncated and spilling was enabled.
+     */
+    public record CapturedOutput(String text, long totalBytes, boolean truncated, String spillFile) {
+
+        public static final CapturedOutput EMPTY = new CapturedOutput("", 0, false, null);
+    }
+}
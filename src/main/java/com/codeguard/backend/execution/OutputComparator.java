@@ -0,0 +1,137 @@
+package com.codeguard.backend.execution;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares a program's output with the expected answer while it is produced.
+ * Lines match when they are equal after trailing spaces, tabs and carriage
+ * returns are stripped, and blank lines at the end are ignored on both sides.
+ * The first byte that cannot be part of a matching output rejects the run, as
+ * does output beyond {@code maxBytes}, so a wrong answer costs neither the rest
+ * of its runtime nor memory: nothing but the current position is kept.
+ */
+public class OutputComparator implements OutputListener {
+
+    private final byte[][] expected;
+    private final long maxBytes;
+
+    private int line;
+    private int pos;
+    private long column;
+    private long totalBytes;
+    private boolean limitExceeded;
+    private Mismatch mismatch;
+
+    public OutputComparator(String expectedOutput, long maxBytes) {
+        this.expected = normalize(expectedOutput);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized void onOutput(byte[] buffer, int offset, int length) {
+        if (mismatch != null || limitExceeded) {
+            throw new OutputRejectedException("Output already rejected");
+        }
+        totalBytes += length;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = buffer[i];
+            if (b == '\n') {
+                endLine();
+            } else if (line < expected.length && pos < expected[line].length) {
+                if (b != expected[line][pos]) {
+                    reject();
+                }
+                pos++;
+                column++;
+            } else if (isTrailingSpace(b)) {
+                column++;
+            } else {
+                // Content past the end of the expected line, or past the expected lines
+                reject();
+            }
+        }
+        if (maxBytes > 0 && totalBytes > maxBytes) {
+            limitExceeded = true;
+            throw new OutputRejectedException("Output limit of " + maxBytes + " bytes exceeded");
+        }
+    }
+
+    /**
+     * Completes the comparison once the program has exited and returns whether
+     * its whole output matched.
+     */
+    public synchronized boolean finish() {
+        if (mismatch != null || limitExceeded) {
+            return false;
+        }
+        try {
+            if (column > 0) {
+                endLine();
+            }
+            if (line < expected.length) {
+                reject();
+            }
+        } catch (OutputRejectedException e) {
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    /**
+     * Where the output first diverged, or null if it has not.
+     */
+    public synchronized Mismatch getMismatch() {
+        return mismatch;
+    }
+
+    private void endLine() {
+        if (line < expected.length && pos < expected[line].length) {
+            reject();
+        }
+        line++;
+        pos = 0;
+        column = 0;
+    }
+
+    private void reject() {
+        String expectedLine = line < expected.length
+                ? new String(expected[line], StandardCharsets.UTF_8)
+                : null;
+        mismatch = new Mismatch(line + 1, column + 1, expectedLine);
+        throw new OutputRejectedException("Output differs at line " + (line + 1) + ", column " + (column + 1));
+    }
+
+    private static byte[][] normalize(String output) {
+        List<byte[]> lines = new ArrayList<>();
+        for (String line : output.split("\n", -1)) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            int end = bytes.length;
+            while (end > 0 && isTrailingSpace(bytes[end - 1])) {
+                end--;
+            }
+            lines.add(Arrays.copyOf(bytes, end));
+        }
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).length == 0) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines.toArray(new byte[0][]);
+    }
+
+    private static boolean isTrailingSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * One-based position of the first differing byte. {@code expectedLine} is
+     * null when the program printed more lines than expected.
+     */
+    public record Mismatch(long line, long column, String expectedLine) {
+    }
+}
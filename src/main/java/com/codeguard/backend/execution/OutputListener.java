@@ -0,0 +1,25 @@
+package com.codeguard.backend.execution;
+
+/**
+ * Receives program output as it is read, before the run has finished.
+ * The buffer is only valid for the duration of the call. Throwing
+ * {@link OutputRejectedException} stops the run.
+ */
+@FunctionalInterface
+public interface OutputListener {
+
+    OutputListener NONE = (buffer, offset, length) -> {
+    };
+
+    void onOutput(byte[] buffer, int offset, int length);
+
+    default OutputListener andThen(OutputListener next) {
+        if (next == NONE) {
+            return this;
+        }
+        return (buffer, offset, length) -> {
+            onOutput(buffer, offset, length);
+            next.onOutput(buffer, offset, length);
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.codeguard.backend.execution;
+
+/**
+ * Thrown by an {@link OutputListener} that has seen enough of a program's
+ * output, e.g. once it diverges from the expected answer. The run is stopped
+ * and the rest of its output is never read.
+ */
+public class OutputRejectedException extends RuntimeException {
+
+    public OutputRejectedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,77 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Directory of gzip files holding the full output of runs whose inline output
+ * was truncated. Files are referenced from {@code CodeSubmission.outputSpillFile}
+ * and removed once they are older than the configured retention.
+ */
+@Component
+public class OutputSpillStore {
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(properties.getOutput().getSpillDirectory());
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create output spill directory", e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public Path newSpillFile() {
+        return root.resolve(UUID.randomUUID() + ".out.gz");
+    }
+
+    public OutputStream openForWrite(Path file) throws IOException {
+        return new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 8192);
+    }
+
+    /**
+     * Resolves a stored spill file by name, or null if it no longer exists.
+     */
+    public Path resolve(String name) {
+        Path file = root.resolve(Paths.get(name).getFileName().toString());
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    @Scheduled(fixedDelayString = "${codeguard.execution.output.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(properties.getOutput().getSpillRetentionMs()));
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : files.toList()) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // Retry on the next run
+        }
+    }
+}
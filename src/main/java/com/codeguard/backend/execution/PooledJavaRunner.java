@@ -0,0 +1,77 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.ExecutionTimeoutException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Java compiled like {@link InProcessJavaRunner} and run on a warm JVM from the
+ * {@link JavaRunnerPool}. Runs the pool cannot take in time start a fresh JVM
+ * instead.
+ */
+@Component
+public class PooledJavaRunner implements LanguageRunner {
+
+    private static final Capabilities CAPABILITIES = new Capabilities(true, true, true);
+
+    @Autowired
+    private InProcessJavaRunner inProcessRunner;
+
+    @Autowired
+    private JavaRunnerPool javaRunnerPool;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Override
+    public CodeSubmission.Language language() {
+        return CodeSubmission.Language.JAVA;
+    }
+
+    @Override
+    public String strategy() {
+        return "pooled";
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception {
+        return inProcessRunner.compile(fileName, code, workspace, run);
+    }
+
+    @Override
+    public int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+                   OutputCapture capture, OutputListener listener) throws Exception {
+        if (program.classes() != null) {
+            long poolStarted = System.nanoTime();
+            Optional<JavaRunnerPool.Outcome> pooled = javaRunnerPool.run(program.className(), program.classes(),
+                    stdin, timeoutMs, capture.andThen(listener));
+            if (pooled.isPresent()) {
+                JavaRunnerPool.Outcome outcome = pooled.get();
+                // Waiting for a runner and shipping the classes is this path's equivalent of spawning
+                run.ran(System.nanoTime() - poolStarted - outcome.runNanos(), outcome.runNanos(), outcome.usage());
+                if (outcome.limits() != null) {
+                    run.ranInGroup(outcome.limits());
+                    if (outcome.limits().oomKilled()) {
+                        throw ProgramLauncher.memoryLimitExceeded(properties.getCgroups().quotaFor(language()));
+                    }
+                }
+                if (outcome.timedOut()) {
+                    throw new ExecutionTimeoutException(timeoutMs);
+                }
+                return outcome.exitCode();
+            }
+        }
+        return inProcessRunner.run(program, stdin, timeoutMs, workingDir, run, capture, listener);
+    }
+}
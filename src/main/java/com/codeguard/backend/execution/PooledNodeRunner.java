@@ -0,0 +1,77 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.ExecutionTimeoutException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * JavaScript run on a warm worker from the {@link NodeRunnerPool}, in a fresh
+ * vm context. Runs the pool cannot take in time start a fresh {@code node}
+ * process instead.
+ */
+@Component
+public class PooledNodeRunner implements LanguageRunner {
+
+    private static final Capabilities CAPABILITIES = new Capabilities(false, true, true);
+
+    @Autowired
+    private NodeRunner nodeRunner;
+
+    @Autowired
+    private NodeRunnerPool nodeRunnerPool;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Override
+    public CodeSubmission.Language language() {
+        return CodeSubmission.Language.JAVASCRIPT;
+    }
+
+    @Override
+    public String strategy() {
+        return "pooled";
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public CompiledProgram compile(String fileName, String code, WorkspaceManager.Workspace workspace, RunContext run)
+            throws Exception {
+        return nodeRunner.compile(fileName, code, workspace, run);
+    }
+
+    @Override
+    public int run(CompiledProgram program, byte[] stdin, long timeoutMs, Path workingDir, RunContext run,
+                   OutputCapture capture, OutputListener listener) throws Exception {
+        if (program.source() != null) {
+            long poolStarted = System.nanoTime();
+            Optional<NodeRunnerPool.Outcome> pooled = nodeRunnerPool.run(program.dir(), program.sourceFile(), program.source(),
+                    stdin, timeoutMs, capture.andThen(listener));
+            if (pooled.isPresent()) {
+                NodeRunnerPool.Outcome outcome = pooled.get();
+                // Waiting for a worker, framing and the fresh context are this path's equivalent of spawning
+                run.ran(System.nanoTime() - poolStarted - outcome.runNanos(), outcome.runNanos(), outcome.usage());
+                if (outcome.limits() != null) {
+                    run.ranInGroup(outcome.limits());
+                    if (outcome.limits().oomKilled()) {
+                        throw ProgramLauncher.memoryLimitExceeded(properties.getCgroups().quotaFor(language()));
+                    }
+                }
+                if (outcome.timedOut()) {
+                    throw new ExecutionTimeoutException(timeoutMs);
+                }
+                return outcome.exitCode();
+            }
+        }
+        return nodeRunner.run(program, stdin, timeoutMs, workingDir, run, capture, listener);
+    }
+}
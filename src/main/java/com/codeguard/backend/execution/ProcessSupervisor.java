@@ -0,0 +1,355 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.ResourceUsage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Launches toolchains and user programs directly, without a shell wrapper, and
+ * owns everything they spawn. On timeout the whole descendant tree is killed
+ * together with any process still running inside the run's workspace, so forked
+ * or backgrounded children cannot outlive the run. A periodic sweep kills
+ * processes left in this server's workspace namespace that no active run owns,
+ * and processes left in the namespaces of servers that are gone.
+ */
+@Slf4j
+@Component
+public class ProcessSupervisor {
+
+    private static final Path PROC = Paths.get("/proc");
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Autowired
+    private ExecutionScheduler scheduler;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    private final Set<Long> supervised = ConcurrentHashMap.newKeySet();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong reaped = new AtomicLong();
+    private ScheduledFuture<?> reaper;
+
+    @PostConstruct
+    public void init() {
+        long interval = properties.getSupervisor().getReapIntervalMs();
+        if (interval > 0 && Files.isDirectory(PROC)) {
+            reaper = scheduler.scheduleAtFixedRate(this::reap, interval);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reaper != null) {
+            reaper.cancel(false);
+        }
+    }
+
+    public Result run(List<String> command, Path workingDir, long timeoutMs, OutputListener sink)
+            throws IOException, InterruptedException {
+        return run(command, workingDir, timeoutMs, sink, CgroupManager.Slot.NONE, null);
+    }
+
+    /**
+     * Runs {@code command} in {@code workingDir} inside {@code slot}, feeding it
+     * {@code stdin} (then end of file) and merged stdout and stderr to {@code sink},
+     * and returns once the program and everything it left behind in the workspace
+     * are gone. A sink throwing {@link OutputRejectedException} ends the run early.
+     */
+    public Result run(List<String> command, Path workingDir, long timeoutMs, OutputListener sink,
+                      CgroupManager.Slot slot, byte[] stdin) throws IOException, InterruptedException {
+        long spawnStarted = System.nanoTime();
+        Process process = new ProcessBuilder(slot.wrap(command))
+                .directory(workingDir.toFile())
+                .redirectErrorStream(true)
+                .start();
+        long runStarted = System.nanoTime();
+        supervised.add(process.pid());
+        started.incrementAndGet();
+
+        // The kernel's exact totals are gone once the JVM reaps the child, so sample while it lives
+        TreeSampler sampler = new TreeSampler(process.toHandle());
+        long sampleInterval = properties.getSupervisor().getSampleIntervalMs();
+        ScheduledFuture<?> sampling = !slot.isConfined() && sampleInterval > 0 && Files.isDirectory(PROC)
+                ? scheduler.scheduleAtFixedRate(sampler, sampleInterval)
+                : null;
+
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            expired.set(true);
+            timedOut.incrementAndGet();
+            killTree(process.toHandle(), workingDir, slot);
+        }, timeoutMs);
+
+        feedStdin(process, stdin);
+
+        // Pump on a virtual thread so the exit is noticed even while a leftover child holds the pipe open
+        Future<?> pump = scheduler.virtualThreads().submit(() -> {
+            try (InputStream in = process.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    sink.onOutput(buffer, 0, read);
+                }
+            } catch (OutputRejectedException e) {
+                killTree(process.toHandle(), workingDir, slot);
+            }
+            return null;
+        });
+
+        try {
+            int exitCode = process.waitFor();
+            long runNanos = System.nanoTime() - runStarted;
+            // Whatever the program left running in its workspace does not outlive the run
+            killTree(process.toHandle(), workingDir, slot);
+            pump.get();
+            return new Result(exitCode, expired.get(), runStarted - spawnStarted, runNanos, sampler.usage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to read process output", e.getCause());
+        } catch (InterruptedException e) {
+            killTree(process.toHandle(), workingDir, slot);
+            pump.cancel(true);
+            throw e;
+        } finally {
+            timer.cancel(false);
+            if (sampling != null) {
+                sampling.cancel(false);
+            }
+            supervised.remove(process.pid());
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(supervised.size(), started.get(), timedOut.get(), reaped.get());
+    }
+
+    /**
+     * Takes a long-lived process started elsewhere, such as a pooled runner,
+     * under supervision, so neither it nor anything it spawns is reaped as a stray.
+     */
+    public void adopt(Process process) {
+        supervised.add(process.pid());
+    }
+
+    /**
+     * Kills an adopted process together with its descendants and anything still
+     * running in {@code workingDir}, and stops supervising it.
+     */
+    public void release(Process process, Path workingDir) {
+        killTree(process.toHandle(), workingDir, CgroupManager.Slot.NONE);
+        supervised.remove(process.pid());
+    }
+
+    // Without input the pipe is closed at once, so a program reading stdin sees end of file instead of hanging
+    private void feedStdin(Process process, byte[] stdin) {
+        if (stdin == null || stdin.length == 0) {
+            try {
+                process.getOutputStream().close();
+            } catch (IOException e) {
+                // Already exited
+            }
+            return;
+        }
+        scheduler.virtualThreads().execute(() -> {
+            try (OutputStream out = process.getOutputStream()) {
+                out.write(stdin);
+            } catch (IOException e) {
+                // The program exited or closed stdin without reading everything
+            }
+        });
+    }
+
+    private void killTree(ProcessHandle root, Path workingDir, CgroupManager.Slot slot) {
+        // A cgroup kill reaches every member atomically, even ones that left the tree and the workspace
+        slot.kill();
+        // Snapshot before killing: once a parent dies its children are re-parented out of reach
+        for (int pass = 0; pass < 3; pass++) {
+            List<ProcessHandle> descendants = root.descendants().toList();
+            if (descendants.isEmpty()) {
+                break;
+            }
+            descendants.forEach(ProcessHandle::destroyForcibly);
+        }
+        root.destroyForcibly();
+        processesUnder(workingDir).forEach(ProcessHandle::destroyForcibly);
+    }
+
+    void reap() {
+        try {
+            Set<Long> owned = new HashSet<>();
+            for (Long pid : supervised) {
+                owned.add(pid);
+                ProcessHandle.of(pid).ifPresent(handle -> handle.descendants().forEach(d -> owned.add(d.pid())));
+            }
+
+            Instant cutoff = Instant.now().minus(Duration.ofMillis(properties.getSupervisor().getReapGraceMs()));
+            Path root = realPath(workspaceManager.getRoot());
+            try (Stream<ProcessHandle> strays = processesUnder(workspaceManager.getBase())) {
+                // Other servers sharing the base own their namespaces for as long as they run
+                strays.filter(process -> workingDirectory(process.pid())
+                                .map(cwd -> cwd.startsWith(root) || workspaceManager.isStale(cwd))
+                                .orElse(false))
+                        .filter(process -> !owned.contains(process.pid()))
+                        .filter(process -> process.info().startInstant().map(cutoff::isAfter).orElse(true))
+                        .forEach(process -> {
+                            log.warn("Killing stray process {} ({}) left in a workspace",
+                                    process.pid(), process.info().command().orElse("?"));
+                            process.destroyForcibly();
+                            reaped.incrementAndGet();
+                        });
+            }
+            // What still runs in them was killed above, or is once past the grace period
+            workspaceManager.removeStaleNamespaces();
+        } catch (IOException e) {
+            log.warn("Failed to remove stale workspace namespaces: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Stray process sweep failed: {}", e.getMessage());
+        }
+    }
+
+    // Processes whose working directory is inside dir, found through /proc/<pid>/cwd
+    private Stream<ProcessHandle> processesUnder(Path dir) {
+        if (!Files.isDirectory(PROC)) {
+            return Stream.empty();
+        }
+        Path root = realPath(dir);
+        long self = ProcessHandle.current().pid();
+        return ProcessHandle.allProcesses()
+                .filter(process -> process.pid() != self)
+                .filter(process -> workingDirectory(process.pid()).map(cwd -> cwd.startsWith(root)).orElse(false));
+    }
+
+    private static Path realPath(Path dir) {
+        try {
+            return dir.toRealPath();
+        } catch (IOException e) {
+            return dir.toAbsolutePath();
+        }
+    }
+
+    private static Optional<Path> workingDirectory(long pid) {
+        try {
+            return Optional.of(Files.readSymbolicLink(PROC.resolve(Long.toString(pid)).resolve("cwd")));
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Exit status of a supervised run. {@code timedOut} means the tree was killed
+     * by the timer and {@code exitCode} is whatever the kill produced.
+     * {@code usage} is null when no /proc sample was taken, e.g. for confined runs
+     * or programs that exited before the first sample.
+     */
+    public record Result(int exitCode, boolean timedOut, long spawnNanos, long runNanos, ResourceUsage usage) {
+    }
+
+    public record Stats(int active, long started, long timedOut, long reaped) {
+    }
+
+    /**
+     * Polls {@code /proc/<pid>/stat} and {@code /proc/<pid>/status} for a process
+     * tree, keeping the last CPU times seen per process and the largest combined
+     * resident set. CPU is in USER_HZ ticks, which Linux fixes at 100 per second.
+     */
+    private static final class TreeSampler implements Runnable {
+
+        private static final long MICROS_PER_TICK = 10_000;
+
+        private final ProcessHandle root;
+        private final Map<Long, long[]> cpuTicks = new ConcurrentHashMap<>();
+        private volatile long peakRssBytes;
+        private volatile boolean sampled;
+
+        TreeSampler(ProcessHandle root) {
+            this.root = root;
+        }
+
+        @Override
+        public void run() {
+            List<ProcessHandle> tree = new ArrayList<>();
+            tree.add(root);
+            root.descendants().forEach(tree::add);
+
+            long rss = 0;
+            for (ProcessHandle process : tree) {
+                Path dir = PROC.resolve(Long.toString(process.pid()));
+                long[] ticks = readCpuTicks(dir.resolve("stat"));
+                if (ticks != null) {
+                    cpuTicks.put(process.pid(), ticks);
+                    rss += readStatusKb(dir.resolve("status"), "VmHWM:") * 1024;
+                    sampled = true;
+                }
+            }
+            peakRssBytes = Math.max(peakRssBytes, rss);
+        }
+
+        ResourceUsage usage() {
+            if (!sampled) {
+                return null;
+            }
+            long user = 0;
+            long system = 0;
+            for (long[] ticks : cpuTicks.values()) {
+                user += ticks[0];
+                system += ticks[1];
+            }
+            return new ResourceUsage(user * MICROS_PER_TICK, system * MICROS_PER_TICK, peakRssBytes,
+                    ResourceUsage.Source.PROC);
+        }
+
+        // utime + cutime and stime + cstime; fields 14-17 of stat, counted after the parenthesised name
+        private static long[] readCpuTicks(Path stat) {
+            try {
+                String line = Files.readString(stat);
+                String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+                return new long[]{
+                        Long.parseLong(fields[11]) + Long.parseLong(fields[13]),
+                        Long.parseLong(fields[12]) + Long.parseLong(fields[14])
+                };
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private static long readStatusKb(Path status, String key) {
+            try {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith(key)) {
+                        return Long.parseLong(line.substring(key.length()).replace("kB", "").trim());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Process exited between reads
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.ExecutionTimeoutException;
+import com.codeguard.backend.exception.ResourceLimitException;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts compilers and programs for the {@link LanguageRunner}s: builds their
+ * command lines from the launch profiles and turns what
+ * {@link ProcessSupervisor} reports into timings and exceptions.
+ */
+@Component
+public class ProgramLauncher {
+
+    private static final long COMPILE_TIMEOUT_MS = 10000;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    /**
+     * The runtime, then the launch profile's flags, then what to run.
+     */
+    public List<String> command(CodeSubmission.Language language, String executable, String... arguments) {
+        List<String> command = new ArrayList<>(List.of(executable));
+        command.addAll(toolchainProfiles.runFlags(language, executable));
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    /**
+     * The compiler, then the launch profile's compile flags, then its arguments.
+     */
+    public List<String> compileCommand(CodeSubmission.Language language, String compiler, String... arguments) {
+        List<String> command = new ArrayList<>(List.of(compiler));
+        command.addAll(toolchainProfiles.compileFlags(language));
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    /**
+     * Runs a compiler and returns what it printed. Compiler invocations are
+     * neither confined nor counted as the program's run.
+     */
+    public String compile(List<String> command, Path workingDir) throws Exception {
+        OutputCapture capture = new OutputCapture(properties.getOutput().getDefaults(), null);
+        int exitCode = execute(command, workingDir, null, capture, OutputListener.NONE, null, COMPILE_TIMEOUT_MS);
+        String output = capture.result().text();
+        if (exitCode != 0 && output.trim().isEmpty()) {
+            throw new RuntimeException("Process exited with code: " + exitCode);
+        }
+        return output;
+    }
+
+    /**
+     * Runs {@code command} in the cgroup slot of {@code run} and returns its exit
+     * code. {@code run} is null for compiler invocations.
+     */
+    public int execute(List<String> command, Path workingDir, RunContext run, OutputCapture capture,
+                       OutputListener listener, byte[] stdin, long timeoutMs) throws Exception {
+        CgroupManager.Slot slot = run != null ? run.slot() : CgroupManager.Slot.NONE;
+        try {
+            // Arguments go straight to the program, no shell in between to outlive a timeout
+            ProcessSupervisor.Result result =
+                    processSupervisor.run(command, workingDir, timeoutMs, capture.andThen(listener), slot, stdin);
+            if (run != null) {
+                run.ran(result.spawnNanos(), result.runNanos(), result.usage());
+            }
+            if (slot.usage().oomKilled()) {
+                throw memoryLimitExceeded(slot.quota());
+            }
+            if (result.timedOut()) {
+                throw new ExecutionTimeoutException(timeoutMs);
+            }
+            return result.exitCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Execution interrupted");
+        }
+    }
+
+    static ResourceLimitException memoryLimitExceeded(ExecutionProperties.Cgroups.Quota quota) {
+        return new ResourceLimitException("Memory limit exceeded - process was killed after reaching " +
+                quota.getMemoryBytes() / (1024 * 1024) + "MB");
+    }
+
+    // Keep only the last path segment so a submitted file name cannot escape its workspace
+    public static String sourceFileName(String fileName, CodeSubmission.Language language) {
+        String name = Paths.get(fileName).getFileName().toString();
+        return name.endsWith(language.getExtension()) ? name : name + language.getExtension();
+    }
+}
@@ -0,0 +1,229 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.InvalidProjectException;
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Builds multi-file project submissions. Java and C++ projects keep their
+ * compiled state between runs, per user and project, so a run only recompiles
+ * what its changes affect; see {@link JavaProjectBuilder} and
+ * {@link CppProjectBuilder}. JavaScript needs no build: the files are written
+ * out and the entry script is run.
+ */
+@Component
+public class ProjectCompiler {
+
+    // Relative paths of plain names only: no "..", no absolute paths, nothing the shell or a URI would mangle
+    private static final Pattern PATH = Pattern.compile("[A-Za-z0-9_\\-]+(\\.[A-Za-z0-9_\\-]+)*"
+            + "(/[A-Za-z0-9_\\-]+(\\.[A-Za-z0-9_\\-]+)*)*");
+    private static final List<String> DEFAULT_SCRIPTS = List.of("index.js", "main.js");
+
+    @Autowired
+    private JavaProjectBuilder javaBuilder;
+
+    @Autowired
+    private CppProjectBuilder cppBuilder;
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final LinkedHashMap<String, ProjectState> projects = new LinkedHashMap<>(64, 0.75f, true);
+    // Directories are never reused, so deleting an evicted project cannot race a new project under its key
+    private final AtomicLong directories = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong compiledFiles = new AtomicLong();
+    private final AtomicLong reusedFiles = new AtomicLong();
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(properties.getProjects().getDirectory());
+        // State left by an earlier process is not tracked by this one
+        FileSystemUtils.deleteRecursively(root);
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Rejects a project before it is queued: paths must be relative and made of
+     * plain names, and the number and total size of the files are bounded.
+     */
+    public void validate(Map<String, String> files) {
+        ExecutionProperties.Projects limits = properties.getProjects();
+        if (files.size() > limits.getMaxFiles()) {
+            throw new InvalidProjectException("A project may have at most " + limits.getMaxFiles() + " files");
+        }
+        long totalBytes = 0;
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            if (file.getKey() == null || !PATH.matcher(file.getKey()).matches()) {
+                throw new InvalidProjectException("Invalid file path: " + file.getKey());
+            }
+            if (file.getValue() == null) {
+                throw new InvalidProjectException("No content for " + file.getKey());
+            }
+            totalBytes += file.getValue().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (totalBytes > limits.getMaxTotalBytes()) {
+            throw new InvalidProjectException("A project may have at most " + limits.getMaxTotalBytes() + " bytes");
+        }
+    }
+
+    /**
+     * {@code path} resolved against {@code base}, refused unless it lands below
+     * it. Project files are only ever written or deleted through here.
+     */
+    static Path resolveInside(Path base, String path) {
+        Path dir = base.normalize();
+        Path resolved = dir.resolve(path).normalize();
+        if (!resolved.startsWith(dir) || resolved.equals(dir)) {
+            throw new InvalidProjectException("Invalid file path: " + path);
+        }
+        return resolved;
+    }
+
+    /**
+     * The file a project is recorded under: the entry point when it names a
+     * file, otherwise the script that would run, otherwise its first file.
+     */
+    public static String entryFile(Map<String, String> files, String entryPoint) {
+        if (entryPoint != null && files.containsKey(entryPoint)) {
+            return entryPoint;
+        }
+        String script = defaultScript(files);
+        return script != null ? script : new TreeMap<>(files).firstKey();
+    }
+
+    public CompiledProgram compile(CodeSubmission.Language language, String userId, String projectId,
+                                   Map<String, String> files, String entryPoint, WorkspaceManager.Workspace workspace,
+                                   RunContext run) throws Exception {
+        validate(files);
+        long compileStarted = System.nanoTime();
+        try {
+            if (language == CodeSubmission.Language.JAVASCRIPT) {
+                return script(files, entryPoint, workspace);
+            }
+            String key = projectKey(language, userId, projectId, files);
+            while (true) {
+                ProjectState state = state(key);
+                synchronized (state) {
+                    if (state.discarded) {
+                        continue;
+                    }
+                    Build build = language == CodeSubmission.Language.JAVA
+                            ? javaBuilder.build(state, files, entryPoint, workspace)
+                            : cppBuilder.build(state, files, workspace);
+                    builds.incrementAndGet();
+                    compiledFiles.addAndGet(build.compiledFiles());
+                    reusedFiles.addAndGet(build.reusedFiles());
+                    return build.program();
+                }
+            }
+        } finally {
+            run.compiled(compileStarted);
+        }
+    }
+
+    public Stats getStats() {
+        int count;
+        synchronized (projects) {
+            count = projects.size();
+        }
+        long compiled = compiledFiles.get();
+        long reused = reusedFiles.get();
+        return new Stats(count, builds.get(), compiled, reused,
+                compiled + reused == 0 ? 0.0 : (double) reused / (compiled + reused));
+    }
+
+    private CompiledProgram script(Map<String, String> files, String entryPoint, WorkspaceManager.Workspace workspace)
+            throws IOException {
+        String entry = entryPoint != null ? entryPoint : defaultScript(files);
+        if (entry == null) {
+            throw new InvalidProjectException("No index.js or main.js in the project; set entryPoint");
+        }
+        if (!files.containsKey(entry) || !entry.endsWith(".js")) {
+            throw new InvalidProjectException("Entry point " + entry + " is not a script of the project");
+        }
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path target = resolveInside(workspace.dir(), file.getKey());
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, file.getValue());
+        }
+        Path entryFile = resolveInside(workspace.dir(), entry);
+        return CompiledProgram.script(CodeSubmission.Language.JAVASCRIPT, workspace.dir(), launcher.command(
+                CodeSubmission.Language.JAVASCRIPT, properties.getToolchain().getNode(), entryFile.toString()),
+                entryFile, files.get(entry));
+    }
+
+    // index.js or main.js, else the only script of the project
+    private static String defaultScript(Map<String, String> files) {
+        for (String script : DEFAULT_SCRIPTS) {
+            if (files.containsKey(script)) {
+                return script;
+            }
+        }
+        List<String> scripts = files.keySet().stream().filter(path -> path.endsWith(".js")).toList();
+        return scripts.size() == 1 ? scripts.get(0) : null;
+    }
+
+    private ProjectState state(String key) throws IOException {
+        List<ProjectState> evicted = new ArrayList<>();
+        ProjectState state;
+        synchronized (projects) {
+            state = projects.get(key);
+            if (state == null) {
+                state = new ProjectState(root.resolve(Long.toString(directories.incrementAndGet())));
+                projects.put(key, state);
+            }
+            Iterator<ProjectState> eldest = projects.values().iterator();
+            while (projects.size() > properties.getProjects().getMaxProjects()) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        for (ProjectState project : evicted) {
+            // Waits for a build of the evicted project still in progress
+            synchronized (project) {
+                project.discarded = true;
+                FileSystemUtils.deleteRecursively(project.dir);
+            }
+        }
+        return state;
+    }
+
+    // Without a project id, the set of paths stands in for one
+    private static String projectKey(CodeSubmission.Language language, String userId, String projectId,
+                                     Map<String, String> files) {
+        String owner = userId == null || userId.isEmpty() ? "anonymous" : userId;
+        String project = projectId != null && !projectId.isEmpty()
+                ? "id:" + projectId
+                : "files:" + String.join("\0", new TreeSet<>(files.keySet()));
+        return language + "\0" + owner + "\0" + project;
+    }
+
+    record Build(CompiledProgram program, int compiledFiles, int reusedFiles) {
+    }
+
+    /**
+     * {@code compiledFiles} and {@code reusedFiles} count source files across
+     * builds: recompiled, or served from the state of an earlier run.
+     */
+    public record Stats(int projects, long builds, long compiledFiles, long reusedFiles, double reuseRate) {
+    }
+}
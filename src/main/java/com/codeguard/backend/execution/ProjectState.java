@@ -0,0 +1,66 @@
+package com.codeguard.backend.execution;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one project was last built from and into, kept between runs so the
+ * next build only redoes what changed. Builds of a project hold its monitor,
+ * so they run one at a time.
+ */
+public final class ProjectState {
+
+    final Path dir;
+
+    // Java: per source file, what it was compiled from and the classes it produced
+    final Map<String, JavaSource> javaSources = new HashMap<>();
+
+    // C++: files as written under dir/src, per translation unit what its object was built from, and what was linked
+    final Map<String, String> written = new HashMap<>();
+    final Map<String, TranslationUnit> translationUnits = new HashMap<>();
+    List<String> linked = List.of();
+
+    // Set once the project is evicted and its directory deleted; a build that finds it set starts over
+    boolean discarded;
+
+    ProjectState(Path dir) {
+        this.dir = dir;
+    }
+
+    static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record JavaSource(String hash, JavaSources.Unit unit, Map<String, byte[]> classes) {
+    }
+
+    /**
+     * A translation unit's object is current while its source and every project
+     * header it included still have the hashes they were compiled with.
+     */
+    record TranslationUnit(String hash, Map<String, String> headers) {
+
+        boolean isCurrent(String path, Map<String, String> hashes) {
+            if (!hash.equals(hashes.get(path))) {
+                return false;
+            }
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (!header.getValue().equals(hashes.get(header.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.dto.CodeExecutionResponse;
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recorded results of deterministic programs, keyed by language, toolchain,
+ * limits, file name, source and stdin, so re-running unchanged code returns the
+ * earlier response without compiling or executing anything. Each entry is
+ * charged an estimate of the memory it holds; the total is bounded and least
+ * recently used entries go first. Entries also expire after a TTL so a
+ * toolchain or environment change the key cannot see is picked up eventually.
+ */
+@Component
+public class ResultCache {
+
+    // Object headers, the key and the response fields besides output and error
+    private static final long ENTRY_OVERHEAD_BYTES = 512;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong savedMs = new AtomicLong();
+    private long totalBytes;
+
+    public boolean isEnabled() {
+        return properties.getResultCache().isEnabled();
+    }
+
+    /**
+     * Whether the result of this program may be served from the cache. An explicit
+     * {@code deterministic} flag from the user wins; without one the source is
+     * checked with {@link DeterminismHeuristic}.
+     */
+    public boolean isCacheable(CodeSubmission.Language language, String code, Boolean deterministic) {
+        if (!isEnabled()) {
+            return false;
+        }
+        return deterministic != null ? deterministic : DeterminismHeuristic.isLikelyDeterministic(language, code);
+    }
+
+    public String key(CodeSubmission.Language language, String toolchain, String limits, String fileName,
+                      String code, String stdin) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{language.name(), toolchain, limits, fileName, code,
+                    stdin == null ? "" : stdin}) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A copy of the recorded response, or null on a miss.
+     */
+    public CodeExecutionResponse lookup(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                totalBytes -= entry.bytes();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        savedMs.addAndGet(entry.computeMs());
+        return copy(entry.response());
+    }
+
+    /**
+     * Records {@code response}, which took {@code computeMs} to produce. Responses
+     * larger than the per-entry limit are not kept.
+     */
+    public void store(String key, CodeExecutionResponse response, long computeMs) {
+        ExecutionProperties.ResultCache settings = properties.getResultCache();
+        long bytes = costOf(response);
+        if (bytes > settings.getMaxEntryBytes()) {
+            return;
+        }
+        Entry entry = new Entry(copy(response), bytes, computeMs, System.currentTimeMillis() + settings.getTtlMs());
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            totalBytes += bytes - (previous == null ? 0 : previous.bytes());
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > settings.getMaxSizeBytes() && eldest.hasNext()) {
+                totalBytes -= eldest.next().bytes();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), totalBytes, hits.get(), misses.get(), evictions.get(), savedMs.get());
+    }
+
+    // Strings are counted at two bytes per char, as a worst case for the JVM's compact strings
+    private static long costOf(CodeExecutionResponse response) {
+        long bytes = ENTRY_OVERHEAD_BYTES + charBytes(response.getOutput()) + charBytes(response.getError());
+        List<CompilationDiagnostic> diagnostics = response.getDiagnostics();
+        if (diagnostics != null) {
+            for (CompilationDiagnostic diagnostic : diagnostics) {
+                bytes += 64 + charBytes(diagnostic.getMessage());
+            }
+        }
+        return bytes;
+    }
+
+    private static long charBytes(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+
+    private static CodeExecutionResponse copy(CodeExecutionResponse source) {
+        CodeExecutionResponse copy = new CodeExecutionResponse();
+        copy.setSubmissionId(source.getSubmissionId());
+        copy.setOutput(source.getOutput());
+        copy.setOutputBytes(source.getOutputBytes());
+        copy.setOutputTruncated(source.isOutputTruncated());
+        copy.setError(source.getError());
+        copy.setStatus(source.getStatus());
+        copy.setExecutionTime(source.getExecutionTime());
+        copy.setOomKilled(source.isOomKilled());
+        copy.setCpuThrottledMs(source.getCpuThrottledMs());
+        copy.setPhases(source.getPhases());
+        copy.setResourceUsage(source.getResourceUsage());
+        copy.setDiagnostics(source.getDiagnostics());
+        copy.setCached(source.isCached());
+        return copy;
+    }
+
+    /**
+     * {@code savedMs} adds up the original execution time of every hit, i.e. the
+     * work the cache avoided.
+     */
+    public record Stats(int entries, long bytes, long hits, long misses, long evictions, long savedMs) {
+    }
+
+    private record Entry(CodeExecutionResponse response, long bytes, long computeMs, long expiresAt) {
+    }
+}
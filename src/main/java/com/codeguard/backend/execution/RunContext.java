@@ -0,0 +1,104 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.model.ExecutionPhases;
+import com.codeguard.backend.model.ResourceUsage;
+
+import java.util.function.Supplier;
+
+/**
+ * State of one execution carried from compilation through the program run: its
+ * cgroup slot, the phase timings and the resource usage measured on the way.
+ */
+public class RunContext implements AutoCloseable {
+
+    private final Supplier<CgroupManager.Slot> slots;
+    private final ExecutionPhases phases = new ExecutionPhases();
+    private CgroupManager.Slot slot;
+    private CgroupManager.Usage groupUsage;
+    private ResourceUsage usage;
+
+    public RunContext(CgroupManager.Slot slot) {
+        this(() -> slot);
+    }
+
+    /**
+     * Opens the slot from {@code slots} on first use only: a run served by a
+     * pooled process runs in that process's group and never needs one of its own.
+     */
+    public RunContext(Supplier<CgroupManager.Slot> slots) {
+        this.slots = slots;
+    }
+
+    public synchronized CgroupManager.Slot slot() {
+        if (slot == null) {
+            slot = slots.get();
+        }
+        return slot;
+    }
+
+    public ExecutionPhases phases() {
+        return phases;
+    }
+
+    public void queued(long startedNanos) {
+        phases.setQueueWaitNanos(phases.getQueueWaitNanos() + System.nanoTime() - startedNanos);
+    }
+
+    public void compiled(long startedNanos) {
+        phases.setCompileNanos(phases.getCompileNanos() + System.nanoTime() - startedNanos);
+    }
+
+    public void ran(long spawnNanos, long runNanos, ResourceUsage usage) {
+        phases.setSpawnNanos(phases.getSpawnNanos() + spawnNanos);
+        phases.setRunNanos(phases.getRunNanos() + runNanos);
+        if (usage != null) {
+            this.usage = usage;
+        }
+    }
+
+    /**
+     * Records what the group of the pooled process that served the run saw
+     * during it, in place of the totals of a slot of the run's own.
+     */
+    public void ranInGroup(CgroupManager.Usage groupUsage) {
+        this.groupUsage = groupUsage;
+    }
+
+    public void persisted(long startedNanos) {
+        phases.setPersistNanos(phases.getPersistNanos() + System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Usage of the program run: what the run reported itself (a pooled JVM or
+     * /proc sampling), otherwise the totals of its cgroup.
+     */
+    public ResourceUsage usage() {
+        if (usage == null && opened().isConfined()) {
+            CgroupManager.Usage totals = opened().usage();
+            return new ResourceUsage(totals.cpuUserMicros(), totals.cpuSystemMicros(), totals.memoryPeakBytes(),
+                    ResourceUsage.Source.CGROUP);
+        }
+        return usage;
+    }
+
+    /**
+     * Limits hit and throttling of the program run, read from whichever group
+     * it ran in.
+     */
+    public CgroupManager.Usage limits() {
+        return groupUsage != null ? groupUsage : opened().usage();
+    }
+
+    public boolean isConfined() {
+        return groupUsage != null || opened().isConfined();
+    }
+
+    @Override
+    public void close() {
+        opened().close();
+    }
+
+    private synchronized CgroupManager.Slot opened() {
+        return slot != null ? slot : CgroupManager.Slot.NONE;
+    }
+}
@@ -0,0 +1,173 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.dto.CodeExecutionResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes program output to one SSE connection while the program runs.
+ * Chunks are buffered up to a fixed number of bytes per connection; when a
+ * client falls behind, output is either dropped (and the gap reported with a
+ * {@code dropped} event) or the producer is blocked, which in turn stalls the
+ * program on its pipe. The run's final {@link CodeExecutionResponse} is sent as a
+ * {@code result} event before the stream completes.
+ */
+public class SseOutputSink implements OutputListener {
+
+    private static final byte[] END = new byte[0];
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final ExecutionProperties.Stream.Overflow overflow;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+    private int pendingBytes;
+    private long droppedBytes;
+    private boolean closed;
+    private CodeExecutionResponse result;
+
+    public SseOutputSink(SseEmitter emitter, ExecutionProperties.Stream settings, Executor sender) {
+        this.emitter = emitter;
+        this.capacity = settings.getBufferBytes();
+        this.overflow = settings.getOverflow();
+
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(error -> close());
+        sender.execute(this::drain);
+    }
+
+    @Override
+    public void onOutput(byte[] buffer, int offset, int length) {
+        lock.lock();
+        try {
+            if (overflow == ExecutionProperties.Stream.Overflow.BLOCK) {
+                while (!closed && pendingBytes > 0 && pendingBytes + length > capacity) {
+                    notFull.await();
+                }
+            } else if (pendingBytes + length > capacity) {
+                droppedBytes += length;
+                return;
+            }
+            if (closed) {
+                return;
+            }
+            pending.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            pendingBytes += length;
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            // The run was cancelled while waiting for the client
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void complete(CodeExecutionResponse response) {
+        lock.lock();
+        try {
+            result = response;
+            pending.add(END);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pending.clear();
+            pendingBytes = 0;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        byte[] carry = new byte[0];
+        try {
+            while (true) {
+                byte[] chunk;
+                long dropped;
+                lock.lock();
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        notEmpty.await();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    chunk = pending.poll();
+                    pendingBytes -= chunk.length;
+                    dropped = droppedBytes;
+                    droppedBytes = 0;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                if (dropped > 0) {
+                    carry = new byte[0];
+                    emitter.send(SseEmitter.event().name("dropped").data(dropped));
+                }
+                if (chunk == END) {
+                    emitter.send(SseEmitter.event().name("result").data(result, MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                    return;
+                }
+
+                // Hold back a trailing partial UTF-8 sequence until the next chunk arrives
+                byte[] bytes = concat(carry, chunk);
+                int complete = completeUtf8Length(bytes);
+                carry = Arrays.copyOfRange(bytes, complete, bytes.length);
+                if (complete > 0) {
+                    emitter.send(SseEmitter.event().name("output")
+                            .data(new String(bytes, 0, complete, StandardCharsets.UTF_8)));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+        }
+    }
+
+    private static byte[] concat(byte[] head, byte[] tail) {
+        if (head.length == 0) {
+            return tail;
+        }
+        byte[] bytes = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, bytes, head.length, tail.length);
+        return bytes;
+    }
+
+    static int completeUtf8Length(byte[] bytes) {
+        int length = bytes.length;
+        for (int back = 1; back <= Math.min(3, length); back++) {
+            int b = bytes[length - back] & 0xFF;
+            if ((b & 0xC0) == 0x80) {
+                continue; // continuation byte, keep looking for the lead byte
+            }
+            int needed = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+            return needed > back ? length - back : length;
+        }
+        return length;
+    }
+}
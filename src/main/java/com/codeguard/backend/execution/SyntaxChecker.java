@@ -0,0 +1,184 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import com.codeguard.backend.model.CodeSubmission;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiler diagnostics without building or running anything: Java is parsed and
+ * attributed in memory, C++ goes through {@code g++ -fsyntax-only} with the
+ * launch profile's flags and precompiled headers, and JavaScript is parsed on an
+ * idle Node worker, or by {@code node --check} when none is free. Interrupting
+ * the calling thread cancels the check.
+ */
+@Component
+public class SyntaxChecker {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern JAVAC_LINE = Pattern.compile("^.*\\.java:(\\d+): (error|warning|note): (.*)$");
+    private static final Pattern NODE_LOCATION = Pattern.compile("^.*:(\\d+)$");
+    private static final Pattern NODE_ERROR = Pattern.compile("^\\w*Error: .*$");
+
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+
+    @Autowired
+    private NodeRunnerPool nodeRunnerPool;
+
+    @Autowired
+    private ProgramLauncher launcher;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    public List<CompilationDiagnostic> check(CodeSubmission.Language language, String fileName, String code)
+            throws Exception {
+        return switch (language) {
+            case JAVA -> checkJava(fileName, code);
+            case CPP -> checkCpp(fileName, code);
+            case JAVASCRIPT -> checkJavaScript(fileName, code);
+        };
+    }
+
+    /**
+     * What besides the source decides the diagnostics of a language, for cache keys.
+     */
+    public String toolchain(CodeSubmission.Language language) {
+        ExecutionProperties.Toolchain toolchain = properties.getToolchain();
+        return switch (language) {
+            case JAVA -> javaCompiler.isAvailable() ? "javac " + Runtime.version() : toolchain.getJavac();
+            case CPP -> toolchain.getCxx() + " " + toolchain.profileFor(language).getCompileFlags();
+            case JAVASCRIPT -> toolchain.getNode();
+        };
+    }
+
+    private List<CompilationDiagnostic> checkJava(String fileName, String code) throws Exception {
+        String className = JavacRunner.mainClassName(fileName, code);
+        if (javaCompiler.isAvailable()) {
+            return javaCompiler.analyze(className, code);
+        }
+        try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+            Path filePath = workspace.resolve(className + ".java");
+            Files.write(filePath, code.getBytes());
+            String output = launcher.compile(launcher.compileCommand(CodeSubmission.Language.JAVA,
+                    properties.getToolchain().getJavac(), "-d", workspace.resolve("classes").toString(),
+                    filePath.toString()), workspace.dir());
+            return parseJavac(output);
+        }
+    }
+
+    private List<CompilationDiagnostic> checkCpp(String fileName, String code) throws Exception {
+        try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+            Path filePath = workspace.resolve(ProgramLauncher.sourceFileName(fileName, CodeSubmission.Language.CPP));
+            Files.write(filePath, code.getBytes());
+            String output = launcher.compile(launcher.compileCommand(CodeSubmission.Language.CPP,
+                    properties.getToolchain().getCxx(), "-fsyntax-only", "-fdiagnostics-format=json",
+                    filePath.toString()), workspace.dir());
+            return parseGccJson(output);
+        }
+    }
+
+    private List<CompilationDiagnostic> checkJavaScript(String fileName, String code) throws Exception {
+        try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+            Path filePath = workspace.resolve(
+                    ProgramLauncher.sourceFileName(fileName, CodeSubmission.Language.JAVASCRIPT));
+            Optional<String> pooled = nodeRunnerPool.check(filePath, code);
+            if (pooled.isPresent()) {
+                return parseNode(pooled.get());
+            }
+            Files.write(filePath, code.getBytes());
+            return parseNode(launcher.compile(launcher.command(CodeSubmission.Language.JAVASCRIPT,
+                    properties.getToolchain().getNode(), "--check", filePath.toString()), workspace.dir()));
+        }
+    }
+
+    // javac prints "File.java:3: error: message", then the source line and a caret under the column
+    static List<CompilationDiagnostic> parseJavac(String output) {
+        List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+        String[] lines = output.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            Matcher matcher = JAVAC_LINE.matcher(lines[i]);
+            if (!matcher.matches()) {
+                continue;
+            }
+            long column = i + 2 < lines.length && lines[i + 2].trim().equals("^") ? lines[i + 2].indexOf('^') + 1 : 0;
+            diagnostics.add(new CompilationDiagnostic(severity(matcher.group(2)),
+                    Long.parseLong(matcher.group(1)), column, matcher.group(3)));
+        }
+        return diagnostics.isEmpty() && !output.isBlank() ? unparsed(output) : diagnostics;
+    }
+
+    // -fdiagnostics-format=json: an array of diagnostics, each with caret locations and child notes
+    static List<CompilationDiagnostic> parseGccJson(String output) {
+        if (output.isBlank()) {
+            return List.of();
+        }
+        JsonNode root;
+        try {
+            root = JSON.readTree(output);
+        } catch (IOException e) {
+            return unparsed(output);
+        }
+        List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+        for (JsonNode diagnostic : root) {
+            addGccDiagnostic(diagnostic, diagnostics);
+            for (JsonNode child : diagnostic.path("children")) {
+                addGccDiagnostic(child, diagnostics);
+            }
+        }
+        return diagnostics;
+    }
+
+    private static void addGccDiagnostic(JsonNode diagnostic, List<CompilationDiagnostic> diagnostics) {
+        JsonNode caret = diagnostic.path("locations").path(0).path("caret");
+        diagnostics.add(new CompilationDiagnostic(severity(diagnostic.path("kind").asText()),
+                caret.path("line").asLong(), caret.path("column").asLong(), diagnostic.path("message").asText()));
+    }
+
+    // node prints "file:LINE", the source line, a caret line, a blank line, then "SyntaxError: message"
+    static List<CompilationDiagnostic> parseNode(String output) {
+        if (output.isBlank()) {
+            return List.of();
+        }
+        String[] lines = output.split("\n");
+        Matcher location = NODE_LOCATION.matcher(lines[0]);
+        long line = location.matches() ? Long.parseLong(location.group(1)) : 0;
+        long column = lines.length > 2 && lines[2].contains("^") ? lines[2].indexOf('^') + 1 : 0;
+        for (String candidate : lines) {
+            if (NODE_ERROR.matcher(candidate).matches()) {
+                return List.of(new CompilationDiagnostic(CompilationDiagnostic.Severity.ERROR, line, column,
+                        candidate));
+            }
+        }
+        return unparsed(output);
+    }
+
+    private static CompilationDiagnostic.Severity severity(String kind) {
+        return switch (kind) {
+            case "warning" -> CompilationDiagnostic.Severity.WARNING;
+            case "note" -> CompilationDiagnostic.Severity.NOTE;
+            default -> CompilationDiagnostic.Severity.ERROR;
+        };
+    }
+
+    // Output in a shape the parsers do not know is passed through whole rather than dropped
+    private static List<CompilationDiagnostic> unparsed(String output) {
+        return List.of(new CompilationDiagnostic(CompilationDiagnostic.Severity.ERROR, 0, 0, output.trim()));
+    }
+}
@@ -0,0 +1,464 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launch profiles of the toolchains: the compiler and runtime flags configured
+ * per language, plus the artifacts that make starts cheaper. On startup a
+ * background thread precompiles the configured C++ headers with exactly the
+ * profile's compile flags and dumps a CDS archive of the JDK classes a typical
+ * program loads, reusing both from earlier boots when their toolchain and flags
+ * are unchanged. An artifact is only handed out once the toolchain has been
+ * seen to accept it; until then, or when it fails, launches go without it.
+ * Finally the cold start of each toolchain is measured with and without its
+ * profile and logged.
+ */
+@Slf4j
+@Component
+public class ToolchainProfiles {
+
+    private static final String WARMUP_CLASS = "CodeguardWarmup";
+    private static final String WARMUP_SOURCE = """
+            import java.io.*;
+            import java.util.*;
+            import java.util.stream.*;
+
+            public class CodeguardWarmup {
+                public static void main(String[] args) throws IOException {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+                    List<Integer> values = new ArrayList<>(List.of(3, 1, 2));
+                    Map<String, Integer> counts = new HashMap<>();
+                    for (String line = in.readLine(); line != null; line = in.readLine()) {
+                        counts.merge(line, 1, Integer::sum);
+                    }
+                    Collections.sort(values);
+                    StringBuilder out = new StringBuilder();
+                    out.append(values.stream().map(String::valueOf).collect(Collectors.joining(" ")));
+                    out.append(String.format(" %d %.2f%n", counts.size(), Math.sqrt(2)));
+                    new Scanner("1 2").nextInt();
+                    System.out.print(out);
+                }
+            }
+            """;
+    private static final String CPP_PROBE = "int main() { return 0; }\n";
+    private static final String JS_PROBE = "console.log('ok');\n";
+    private static final long STEP_TIMEOUT_MS = 120_000;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private CompilationCache compilationCache;
+
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+
+    private final CountDownLatch javaPrepared = new CountDownLatch(1);
+    private final Map<String, Path> classDataArchives = new ConcurrentHashMap<>();
+    private final List<String> problems = Collections.synchronizedList(new ArrayList<>());
+    private volatile Path precompiledHeaders;
+    private volatile Thread worker;
+    private volatile Report report = Report.PENDING;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.getToolchain().isPrepare()) {
+            return;
+        }
+        worker = Thread.ofVirtual().name("toolchain-profiles").start(this::prepare);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Flags for compiling {@code language}: the profile's compile flags, plus the
+     * precompiled headers once they are known to be picked up.
+     */
+    public List<String> compileFlags(CodeSubmission.Language language) {
+        List<String> flags = new ArrayList<>(profile(language).getCompileFlags());
+        Path pch = precompiledHeaders;
+        if (language == CodeSubmission.Language.CPP && pch != null) {
+            flags.add("-I");
+            flags.add(pch.toString());
+        }
+        return flags;
+    }
+
+    /**
+     * Flags for starting a program with {@code executable}: the profile's run
+     * flags, plus the CDS archive when that executable accepted it.
+     */
+    public List<String> runFlags(CodeSubmission.Language language, String executable) {
+        List<String> flags = new ArrayList<>(profile(language).getRunFlags());
+        Path archive = classDataArchives.get(executable);
+        if (archive != null) {
+            // auto rather than on, so a JVM that cannot map the archive still starts
+            flags.add("-XX:SharedArchiveFile=" + archive);
+            flags.add("-Xshare:auto");
+        }
+        return flags;
+    }
+
+    /**
+     * The configured flags of a profile, which can change what a program does;
+     * artifacts only change how fast it starts and are left out.
+     */
+    public String describe(CodeSubmission.Language language) {
+        ExecutionProperties.Toolchain.Profile profile = profile(language);
+        return String.join(" ", profile.getCompileFlags()) + " | " + String.join(" ", profile.getRunFlags());
+    }
+
+    /**
+     * Waits until the Java artifacts are settled, so JVMs started right after
+     * boot get the archive too. Returns early after {@code timeoutMs}.
+     */
+    public void awaitJava(long timeoutMs) throws InterruptedException {
+        // Listeners of the ready event run in no particular order, so this may come before start()
+        if (properties.getToolchain().isPrepare()) {
+            javaPrepared.await(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    private ExecutionProperties.Toolchain.Profile profile(CodeSubmission.Language language) {
+        return properties.getToolchain().profileFor(language);
+    }
+
+    private void prepare() {
+        ExecutionProperties.Toolchain toolchain = properties.getToolchain();
+        try {
+            Path root = Paths.get(toolchain.getArtifactsDirectory());
+            Files.createDirectories(root);
+            Path probes = Files.createTempDirectory(root, "probe");
+            try {
+                Path warmup = writeWarmup(probes);
+                try {
+                    if (profile(CodeSubmission.Language.JAVA).isClassDataSharing() && warmup != null) {
+                        Set<String> executables = new LinkedHashSet<>(List.of(toolchain.getJava(),
+                                Paths.get(System.getProperty("java.home"), "bin", "java").toString()));
+                        for (String executable : executables) {
+                            prepareClassDataArchive(root, executable, warmup);
+                        }
+                    }
+                } finally {
+                    javaPrepared.countDown();
+                }
+                if (!profile(CodeSubmission.Language.CPP).getPrecompiledHeaders().isEmpty()) {
+                    preparePrecompiledHeaders(root, probes);
+                }
+                Map<CodeSubmission.Language, ColdStart> coldStarts = measureColdStarts(probes, warmup);
+                Map<String, String> archives = new TreeMap<>();
+                classDataArchives.forEach((executable, archive) -> archives.put(executable, archive.toString()));
+                report = new Report(true, pathOrNull(precompiledHeaders), archives, coldStarts, List.copyOf(problems));
+                log(report);
+            } finally {
+                deleteRecursively(probes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Toolchain profiles not prepared: {}", e.getMessage());
+            report = new Report(false, pathOrNull(precompiledHeaders), Map.of(), Map.of(), List.of(e.getMessage()));
+        } finally {
+            javaPrepared.countDown();
+        }
+    }
+
+    // Compiled classes of the warm-up program, or null when this runtime has no compiler
+    private Path writeWarmup(Path probes) throws IOException {
+        if (!javaCompiler.isAvailable()) {
+            return null;
+        }
+        InMemoryJavaCompiler.Result result = javaCompiler.compile(WARMUP_CLASS, WARMUP_SOURCE);
+        if (!result.success()) {
+            throw new IllegalStateException("Warm-up program does not compile: " + result.errors());
+        }
+        Path dir = Files.createDirectories(probes.resolve("java"));
+        for (Map.Entry<String, byte[]> entry : result.classes().entrySet()) {
+            Files.write(dir.resolve(entry.getKey() + ".class"), entry.getValue());
+        }
+        return dir;
+    }
+
+    /**
+     * Dumps a static archive of the JDK classes the warm-up program loads. It
+     * holds no application classes, so it is valid for any class path and is
+     * shared by every run; one archive exists per JDK version and flag set.
+     */
+    private void prepareClassDataArchive(Path root, String executable, Path warmup)
+            throws IOException, InterruptedException {
+        List<String> runFlags = profile(CodeSubmission.Language.JAVA).getRunFlags();
+        String key = compilationCache.key(CodeSubmission.Language.JAVA, compilationCache.toolchainVersion(executable),
+                runFlags, WARMUP_SOURCE).substring(0, 16);
+        Path dir = Files.createDirectories(root.resolve("cds"));
+        Path archive = dir.resolve(key + ".jsa");
+
+        if (!Files.exists(archive) || !acceptsArchive(executable, runFlags, archive, dir)) {
+            Path loaded = dir.resolve(key + ".loaded.lst");
+            Path classList = dir.resolve(key + ".lst");
+            Step listing = run(withFlags(executable, List.of("-Xshare:off", "-XX:DumpLoadedClassList=" + loaded),
+                    List.of("-cp", warmup.toString(), WARMUP_CLASS)), dir);
+            if (listing.exitCode() != 0 || !Files.exists(loaded)) {
+                problems.add("CDS class list for " + executable + " failed: " + listing.output().strip());
+                return;
+            }
+            // Only JDK classes, so the archive does not depend on where programs live
+            List<String> jdkClasses;
+            try (var lines = Files.lines(loaded)) {
+                jdkClasses = lines.filter(line -> !line.contains(WARMUP_CLASS)).toList();
+            }
+            Files.write(classList, jdkClasses);
+            Files.deleteIfExists(loaded);
+
+            Step dump = run(List.of(executable, "-Xshare:dump", "-XX:SharedClassListFile=" + classList,
+                    "-XX:SharedArchiveFile=" + archive), dir);
+            if (dump.exitCode() != 0 || !acceptsArchive(executable, runFlags, archive, dir)) {
+                Files.deleteIfExists(archive);
+                problems.add("CDS archive for " + executable + " rejected: " + dump.output().strip()
+                        .lines().reduce((first, second) -> second).orElse(""));
+                return;
+            }
+        }
+        classDataArchives.put(executable, archive);
+    }
+
+    // -Xshare:on fails the launch instead of silently running without the archive
+    private boolean acceptsArchive(String executable, List<String> runFlags, Path archive, Path dir)
+            throws IOException, InterruptedException {
+        return run(withFlags(executable, runFlags, List.of("-Xshare:on", "-XX:SharedArchiveFile=" + archive,
+                "-version")), dir).exitCode() == 0;
+    }
+
+    /**
+     * Precompiles the configured headers into a directory that goes on the
+     * include path ahead of the system headers. g++ only uses a header compiled
+     * with the same flags, so the directory is keyed by compiler version and
+     * flags and checked with {@code -H}, which marks a used header with "!".
+     */
+    private void preparePrecompiledHeaders(Path root, Path probes) throws IOException, InterruptedException {
+        ExecutionProperties.Toolchain.Profile profile = profile(CodeSubmission.Language.CPP);
+        String cxx = properties.getToolchain().getCxx();
+        List<String> headers = profile.getPrecompiledHeaders();
+        String key = compilationCache.key(CodeSubmission.Language.CPP, compilationCache.toolchainVersion(cxx),
+                profile.getCompileFlags(), String.join("\n", headers)).substring(0, 16);
+        Path dir = root.resolve("pch").resolve(key);
+
+        Path probe = probes.resolve("headers.cpp");
+        StringBuilder includes = new StringBuilder();
+        for (String header : headers) {
+            includes.append("#include <").append(header).append(">\n");
+        }
+        Files.writeString(probe, includes + CPP_PROBE);
+
+        if (usesPrecompiledHeaders(cxx, profile, dir, probe, headers)) {
+            precompiledHeaders = dir;
+            return;
+        }
+        for (String header : headers) {
+            Path source = locateHeader(cxx, profile, probes, header);
+            if (source == null) {
+                problems.add("Header " + header + " not found by " + cxx);
+                return;
+            }
+            Path output = dir.resolve(header + ".gch");
+            Files.createDirectories(output.getParent());
+            List<String> command = new ArrayList<>(List.of(cxx));
+            command.addAll(profile.getCompileFlags());
+            command.addAll(List.of("-x", "c++-header", source.toString(), "-o", output.toString()));
+            Step build = run(command, probes);
+            if (build.exitCode() != 0) {
+                problems.add("Precompiling " + header + " failed: " + build.output().strip());
+                return;
+            }
+        }
+        if (usesPrecompiledHeaders(cxx, profile, dir, probe, headers)) {
+            precompiledHeaders = dir;
+        } else {
+            problems.add("Precompiled headers in " + dir + " are not picked up by " + cxx);
+        }
+    }
+
+    private boolean usesPrecompiledHeaders(String cxx, ExecutionProperties.Toolchain.Profile profile, Path dir,
+                                           Path probe, List<String> headers) throws IOException, InterruptedException {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        List<String> command = new ArrayList<>(List.of(cxx));
+        command.addAll(profile.getCompileFlags());
+        command.addAll(List.of("-I", dir.toString(), "-H", "-fsyntax-only", probe.toString()));
+        Step check = run(command, probe.getParent());
+        if (check.exitCode() != 0) {
+            return false;
+        }
+        // Only the first include can come from a precompiled header; the rest must at least exist
+        String marker = "! " + dir.resolve(headers.get(0) + ".gch");
+        return check.output().lines().anyMatch(line -> line.equals(marker))
+                && headers.stream().allMatch(header -> Files.exists(dir.resolve(header + ".gch")));
+    }
+
+    // The first line of -H output is the header itself, e.g. ". /usr/include/.../bits/stdc++.h"
+    private Path locateHeader(String cxx, ExecutionProperties.Toolchain.Profile profile, Path probes, String header)
+            throws IOException, InterruptedException {
+        Path probe = probes.resolve("locate.cpp");
+        Files.writeString(probe, "#include <" + header + ">\n");
+        List<String> command = new ArrayList<>(List.of(cxx));
+        command.addAll(profile.getCompileFlags());
+        command.addAll(List.of("-x", "c++", "-E", "-H", "-o", "/dev/null", probe.toString()));
+        Step step = run(command, probes);
+        if (step.exitCode() != 0) {
+            return null;
+        }
+        return step.output().lines()
+                .filter(line -> line.startsWith(". "))
+                .findFirst()
+                .map(line -> Paths.get(line.substring(2).strip()))
+                .orElse(null);
+    }
+
+    /**
+     * Median wall time of starting each toolchain on a trivial program, bare and
+     * with its profile. For C++ that is the compile of a program including the
+     * precompiled headers, for Java and JavaScript the run of one.
+     */
+    private Map<CodeSubmission.Language, ColdStart> measureColdStarts(Path probes, Path warmup)
+            throws IOException, InterruptedException {
+        ExecutionProperties.Toolchain toolchain = properties.getToolchain();
+        Map<CodeSubmission.Language, ColdStart> coldStarts = new EnumMap<>(CodeSubmission.Language.class);
+
+        StringBuilder cppSource = new StringBuilder();
+        for (String header : profile(CodeSubmission.Language.CPP).getPrecompiledHeaders()) {
+            cppSource.append("#include <").append(header).append(">\n");
+        }
+        Path cpp = probes.resolve("cold.cpp");
+        Files.writeString(cpp, cppSource + CPP_PROBE);
+        String exe = probes.resolve("cold").toString();
+        coldStarts.put(CodeSubmission.Language.CPP, new ColdStart(
+                median(List.of(toolchain.getCxx(), "-o", exe, cpp.toString()), probes),
+                median(withFlags(toolchain.getCxx(), compileFlags(CodeSubmission.Language.CPP),
+                        List.of("-o", exe, cpp.toString())), probes)));
+
+        if (warmup != null) {
+            List<String> program = List.of("-cp", warmup.toString(), WARMUP_CLASS);
+            coldStarts.put(CodeSubmission.Language.JAVA, new ColdStart(
+                    median(withFlags(toolchain.getJava(), List.of(), program), probes),
+                    median(withFlags(toolchain.getJava(),
+                            runFlags(CodeSubmission.Language.JAVA, toolchain.getJava()), program), probes)));
+        }
+
+        Path js = probes.resolve("cold.js");
+        Files.writeString(js, JS_PROBE);
+        coldStarts.put(CodeSubmission.Language.JAVASCRIPT, new ColdStart(
+                median(List.of(toolchain.getNode(), js.toString()), probes),
+                median(withFlags(toolchain.getNode(), runFlags(CodeSubmission.Language.JAVASCRIPT, toolchain.getNode()),
+                        List.of(js.toString())), probes)));
+        return coldStarts;
+    }
+
+    // -1 when the command does not succeed
+    private long median(List<String> command, Path dir) throws IOException, InterruptedException {
+        int samples = Math.max(1, properties.getToolchain().getColdStartSamples());
+        long[] millis = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long started = System.nanoTime();
+            Step step = run(command, dir);
+            if (step.exitCode() != 0) {
+                return -1;
+            }
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+        Arrays.sort(millis);
+        return millis[samples / 2];
+    }
+
+    private Step run(List<String> command, Path dir) throws IOException, InterruptedException {
+        OutputCapture capture = new OutputCapture(properties.getOutput().getDefaults(), null);
+        try {
+            ProcessSupervisor.Result result = processSupervisor.run(command, dir, STEP_TIMEOUT_MS, capture);
+            return new Step(result.timedOut() ? -1 : result.exitCode(), capture.result().text());
+        } catch (IOException e) {
+            // Toolchain not installed
+            return new Step(-1, e.getMessage());
+        }
+    }
+
+    private static List<String> withFlags(String executable, List<String> flags, List<String> arguments) {
+        List<String> command = new ArrayList<>(List.of(executable));
+        command.addAll(flags);
+        command.addAll(arguments);
+        return command;
+    }
+
+    private void log(Report report) {
+        report.coldStartMs().forEach((language, coldStart) ->
+                log.info("Cold start of {}: {}ms bare, {}ms with profile", language, coldStart.bareMs(),
+                        coldStart.profileMs()));
+        log.info("Toolchain artifacts: precompiled headers {}, CDS archives {}",
+                report.precompiledHeaders() == null ? "none" : report.precompiledHeaders(),
+                report.classDataArchives().isEmpty() ? "none" : report.classDataArchives().values());
+        if (!report.problems().isEmpty()) {
+            log.warn("Toolchain artifacts not in use: {}", report.problems());
+        }
+    }
+
+    private static String pathOrNull(Path path) {
+        return path == null ? null : path.toString();
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Could not remove {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private record Step(int exitCode, String output) {
+        Step {
+            output = output == null ? "" : output;
+        }
+    }
+
+    /**
+     * Median milliseconds to start a toolchain without flags and with its
+     * profile; -1 when that launch failed.
+     */
+    public record ColdStart(long bareMs, long profileMs) {
+    }
+
+    /**
+     * Outcome of the startup preparation. {@code prepared} is false until it has
+     * finished, or when it could not run at all.
+     */
+    public record Report(boolean prepared, String precompiledHeaders, Map<String, String> classDataArchives,
+                         Map<CodeSubmission.Language, ColdStart> coldStartMs, List<String> problems) {
+        static final Report PENDING = new Report(false, null, Map.of(), Map.of(), List.of());
+    }
+}
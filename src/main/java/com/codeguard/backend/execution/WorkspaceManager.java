@@ -0,0 +1,204 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Hands out a private working directory per execution so concurrent runs never
+ * share source, class or binary paths. Released directories are emptied and kept
+ * for reuse instead of being deleted and recreated on every request. Prefers
+ * {@code /dev/shm} so compiler and program I/O stays in memory.
+ * <p>
+ * Several servers may share the configured base directory, so each one keeps its
+ * workspaces in a namespace named after its pid and start time, and only
+ * namespaces whose server is gone count as leftovers.
+ */
+@Slf4j
+@Component
+public class WorkspaceManager {
+
+    private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+    private static final Pattern NAMESPACE = Pattern.compile("(\\d+)-(\\d+)");
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final ConcurrentLinkedDeque<Path> free = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private Path base;
+    private Path root;
+
+    @PostConstruct
+    public void init() {
+        ProcessHandle self = ProcessHandle.current();
+        try {
+            // Real path, as the working directories of processes read back from /proc are
+            base = Files.createDirectories(resolveRoot()).toRealPath();
+            root = base.resolve(self.pid() + "-" + self.info().startInstant().map(Instant::toEpochMilli).orElse(0L));
+            removeStaleNamespaces();
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create workspace root under " + resolveRoot(), e);
+        }
+        log.info("Execution workspaces under {}", root);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        CompilationCache.deleteRecursively(root);
+    }
+
+    /**
+     * Deletes the namespaces left behind by servers that are no longer running;
+     * those of live servers stay untouched.
+     */
+    public void removeStaleNamespaces() throws IOException {
+        try (Stream<Path> namespaces = Files.list(base)) {
+            namespaces.filter(this::isStale).forEach(CompilationCache::deleteRecursively);
+        }
+    }
+
+    public Workspace acquire() throws IOException {
+        Path dir = free.pollFirst();
+        if (dir != null) {
+            idleCount.decrementAndGet();
+            reused.incrementAndGet();
+        } else {
+            dir = Files.createTempDirectory(root, "ws-");
+            created.incrementAndGet();
+        }
+        active.incrementAndGet();
+        return new Workspace(dir);
+    }
+
+    /**
+     * This server's namespace, holding all of its workspaces.
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Directory shared by every server's namespace.
+     */
+    public Path getBase() {
+        return base;
+    }
+
+    /**
+     * Whether {@code path} lies in the namespace of a server that is no longer
+     * running. Paths outside {@code base} or in directories that are not
+     * namespaces never are.
+     */
+    public boolean isStale(Path path) {
+        if (!path.startsWith(base) || path.equals(base)) {
+            return false;
+        }
+        // A deleted working directory reads back with " (deleted)" appended to its last element
+        Matcher name = NAMESPACE.matcher(base.relativize(path).getName(0).toString());
+        if (!name.lookingAt()) {
+            return false;
+        }
+        Optional<ProcessHandle> owner = ProcessHandle.of(Long.parseLong(name.group(1)));
+        if (owner.isEmpty()) {
+            return true;
+        }
+        // The pid alone could have been reused by an unrelated process since
+        long startMillis = Long.parseLong(name.group(2));
+        return owner.get().info().startInstant()
+                .map(started -> started.toEpochMilli() != startMillis)
+                .orElse(false);
+    }
+
+    public Stats getStats() {
+        return new Stats(active.get(), idleCount.get(), created.get(), reused.get());
+    }
+
+    private void release(Path dir) {
+        active.decrementAndGet();
+        boolean emptied = clear(dir);
+        if (emptied && idleCount.get() < properties.getWorkspace().getMaxIdle()) {
+            idleCount.incrementAndGet();
+            free.offerFirst(dir);
+        } else {
+            CompilationCache.deleteRecursively(dir);
+        }
+    }
+
+    private boolean clear(Path dir) {
+        try (Stream<Path> children = Files.walk(dir)) {
+            for (Path path : children.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(dir)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path resolveRoot() {
+        String configured = properties.getWorkspace().getRoot();
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        if (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)) {
+            return SHARED_MEMORY.resolve("codeguard-workspaces");
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "codeguard-workspaces");
+    }
+
+    public record Stats(int active, int idle, long created, long reused) {
+    }
+
+    /**
+     * A directory owned by one execution until closed.
+     */
+    public final class Workspace implements AutoCloseable {
+
+        private final Path dir;
+        private boolean closed;
+
+        private Workspace(Path dir) {
+            this.dir = dir;
+        }
+
+        public Path dir() {
+            return dir;
+        }
+
+        public Path resolve(String name) {
+            return dir.resolve(name);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(dir);
+            }
+        }
+    }
+}
@@ -8,11 +8,17 @@ import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "code_submissions")
+// _id completes the key of the history pagination, so its sort is served by the index too
+@CompoundIndex(name = "userId_createdAt_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "language_createdAt", def = "{'language': 1, 'createdAt': -1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,15 +38,42 @@ public class CodeSubmission {
 
     private String userId;
 
+    // Project submissions only; fileName and code are the entry file
+    private List<SourceFile> files;
+
     private String output;
 
+    private Long outputBytes;
+
+    private boolean outputTruncated;
+
+    private String outputSpillFile; // gzip with the full output when truncated
+
     private ExecutionStatus status = ExecutionStatus.PENDING;
 
     private String errorMessage;
 
     private Long executionTime; // in milliseconds
 
+    private boolean oomKilled;
+
+    private Long cpuThrottledMs;
+
+    private ExecutionPhases phases;
+
+    private ResourceUsage resourceUsage;
+
+    private boolean cached; // result copied from an earlier identical run
+
+    // Judge submissions only
+    private JudgeVerdict verdict;
+
+    private Integer testsPassed;
+
+    private Integer testsTotal;
+
     @CreatedDate
+    @Indexed(name = "createdAt")
     private LocalDateTime createdAt;
 
     @LastModifiedDate
@@ -56,20 +89,17 @@ public class CodeSubmission {
 
     @Getter
     public enum Language {
-        JAVA("java", ".java", "javac", "java"),
-        CPP("cpp", ".cpp", "g++", "./a.out"),
-        JAVASCRIPT("javascript", ".js", "node", "node");
+        // How a language is compiled and run is up to its LanguageRunner
+        JAVA("java", ".java"),
+        CPP("cpp", ".cpp"),
+        JAVASCRIPT("javascript", ".js");
 
         private final String name;
         private final String extension;
-        private final String compiler;
-        private final String executor;
 
-        Language(String name, String extension, String compiler, String executor) {
+        Language(String name, String extension) {
             this.name = name;
             this.extension = extension;
-            this.compiler = compiler;
-            this.executor = executor;
         }
 
         @JsonCreator
@@ -88,6 +118,15 @@ public class CodeSubmission {
         }
     }
 
+    // A list rather than a map: paths contain dots, which field names cannot
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SourceFile {
+        private String path;
+        private String content;
+    }
+
     public enum ExecutionStatus {
         PENDING, RUNNING, SUCCESS, ERROR, TIMEOUT
     }
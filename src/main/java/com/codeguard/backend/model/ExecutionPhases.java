@@ -0,0 +1,16 @@
+package com.codeguard.backend.model;
+
+import lombok.Data;
+
+/**
+ * Wall-clock breakdown of one execution, in nanoseconds.
+ */
+@Data
+public class ExecutionPhases {
+
+    private long queueWaitNanos; // from submission until a worker and an execution slot were free
+    private long compileNanos; // including compile cache lookups
+    private long spawnNanos; // process start, or acquiring a warm runner and shipping the classes
+    private long runNanos; // program start to exit
+    private long persistNanos; // submission state writes on the execution path
+}
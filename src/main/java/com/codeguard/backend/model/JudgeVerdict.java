@@ -0,0 +1,13 @@
+package com.codeguard.backend.model;
+
+public enum JudgeVerdict {
+    ACCEPTED,
+    WRONG_ANSWER,
+    TIME_LIMIT_EXCEEDED,
+    MEMORY_LIMIT_EXCEEDED,
+    OUTPUT_LIMIT_EXCEEDED,
+    RUNTIME_ERROR,
+    COMPILE_ERROR,
+    // Not run because an earlier case failed in fail-fast mode
+    SKIPPED
+}
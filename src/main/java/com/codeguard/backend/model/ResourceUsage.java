@@ -0,0 +1,30 @@
+package com.codeguard.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CPU and memory consumed by the program itself, excluding compilation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResourceUsage {
+
+    public enum Source {
+        // Exact totals from the run's cgroup
+        CGROUP,
+        // Sampled from /proc while the process tree was alive
+        PROC,
+        // Reported by a pooled runner JVM; memory is peak heap rather than resident set
+        JVM,
+        // Reported by a pooled Node worker; memory is the heap in use when the program ended
+        NODE
+    }
+
+    private long cpuUserMicros;
+    private long cpuSystemMicros;
+    private long peakRssBytes;
+    private Source source;
+}
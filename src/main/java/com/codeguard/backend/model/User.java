@@ -2,6 +2,7 @@ package com.codeguard.backend.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "users")
@@ -13,6 +14,7 @@ public class User {
     @Id
     private String id;
     private String username;
+    @Indexed(name = "email_unique", unique = true)
     private String email;
     private String password;
     private String role; // ROLE_USER, ROLE_ADMIN
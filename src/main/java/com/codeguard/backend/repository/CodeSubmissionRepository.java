@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface CodeSubmissionRepository extends MongoRepository<CodeSubmission, String> {
+public interface CodeSubmissionRepository extends MongoRepository<CodeSubmission, String>, CodeSubmissionRepositoryCustom {
     
     List<CodeSubmission> findByUserIdOrderByCreatedAtDesc(String userId);
     
@@ -19,6 +19,4 @@ public interface CodeSubmissionRepository extends MongoRepository<CodeSubmission
     List<CodeSubmission> findRecentSubmissions(LocalDateTime since);
     
     long countByUserId(String userId);
-    
-    List<CodeSubmission> findTop10ByUserIdOrderByCreatedAtDesc(String userId);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.codeguard.backend.repository;
+
+import com.codeguard.backend.dto.SubmissionPage;
+import com.codeguard.backend.dto.SubmissionSummary;
+
+import java.util.List;
+
+public interface CodeSubmissionRepositoryCustom {
+
+    /**
+     * Up to {@code limit} summaries of the user's submissions, newest first,
+     * starting after {@code cursor} (null for the first page).
+     */
+    List<SubmissionSummary> findSummariesByUserId(String userId, SubmissionPage.Cursor cursor, int limit);
+}
@@ -0,0 +1,41 @@
+package com.codeguard.backend.repository;
+
+import com.codeguard.backend.dto.SubmissionPage;
+import com.codeguard.backend.dto.SubmissionSummary;
+import com.codeguard.backend.model.CodeSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+/**
+ * Keyset pagination over {@code (createdAt, _id)} descending. Only the summary
+ * fields are read from the server, so a page never carries code or output.
+ */
+public class CodeSubmissionRepositoryImpl implements CodeSubmissionRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<SubmissionSummary> findSummariesByUserId(String userId, SubmissionPage.Cursor cursor, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (cursor != null) {
+            // Strictly after the cursor: older, or equally old with a smaller id
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(cursor.createdAt()),
+                    Criteria.where("createdAt").is(cursor.createdAt()).and("id").lt(cursor.id()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(limit);
+        // A DTO projection limits the returned fields to the properties of SubmissionSummary
+        return mongoTemplate.query(CodeSubmission.class)
+                .as(SubmissionSummary.class)
+                .matching(query)
+                .all();
+    }
+}
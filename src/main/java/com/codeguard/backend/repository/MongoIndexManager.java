@@ -0,0 +1,207 @@
+package com.codeguard.backend.repository;
+
+import com.codeguard.backend.config.PersistenceProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared with {@code @Indexed} and {@code @CompoundIndex}
+ * on every {@code @Document} class, then checks what the server actually has:
+ * declared indexes that are still missing (for example a unique index blocked
+ * by duplicates), indexes nobody declared, and indexes with no recorded use.
+ * Runs on a background thread after startup and retries until MongoDB is
+ * reachable, so an unavailable database never delays or fails the boot.
+ */
+@Slf4j
+@Component
+public class MongoIndexManager {
+
+    // A fresh index or a restarted server has no history worth judging
+    private static final Duration UNUSED_AFTER = Duration.ofDays(1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Autowired
+    private PersistenceProperties properties;
+
+    private volatile Thread worker;
+    private volatile Report report = Report.PENDING;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isCreateIndexes()) {
+            worker = Thread.ofVirtual().name("mongo-indexes").start(this::ensureUntilDone);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    private void ensureUntilDone() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                report = ensureAndVerify();
+                log(report);
+                return;
+            } catch (RuntimeException e) {
+                report = new Report(false, List.of(), List.of(), List.of(), e.getMessage());
+                log.warn("Cannot check MongoDB indexes, retrying in {}ms: {}",
+                        properties.getIndexRetryIntervalMs(), e.getMessage());
+            }
+            try {
+                Thread.sleep(properties.getIndexRetryIntervalMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private Report ensureAndVerify() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        List<String> missing = new ArrayList<>();
+        List<String> undeclared = new ArrayList<>();
+        List<String> unused = new ArrayList<>();
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            String collection = entity.getCollection();
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+
+            Map<String, IndexDefinition> declared = new LinkedHashMap<>();
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity.getType())) {
+                declared.put(keysOf(definition), definition);
+                try {
+                    indexOps.createIndex(definition);
+                } catch (RuntimeException e) {
+                    if (isUnreachable(e)) {
+                        throw e;
+                    }
+                    // Conflicting options or, for unique indexes, duplicate values already stored
+                    log.error("Cannot create index {} on {}: {}", definition.getIndexKeys(), collection, e.getMessage());
+                }
+            }
+
+            Map<String, IndexInfo> existing = indexOps.getIndexInfo().stream()
+                    .collect(Collectors.toMap(MongoIndexManager::keysOf, info -> info, (a, b) -> a, LinkedHashMap::new));
+            declared.keySet().stream()
+                    .filter(keys -> !existing.containsKey(keys))
+                    .forEach(keys -> missing.add(collection + " " + keys));
+            existing.forEach((keys, info) -> {
+                if (!"_id_".equals(info.getName()) && !declared.containsKey(keys)) {
+                    undeclared.add(collection + "." + info.getName() + " " + keys);
+                }
+            });
+            unusedIndexes(collection).forEach(name -> unused.add(collection + "." + name));
+        }
+        return new Report(true, missing, undeclared, unused, null);
+    }
+
+    // Indexes with no operations for at least UNUSED_AFTER; $indexStats counts from server start or index creation
+    private List<String> unusedIndexes(String collection) {
+        List<String> unused = new ArrayList<>();
+        Date cutoff = Date.from(Instant.now().minus(UNUSED_AFTER));
+        try {
+            for (Document stats : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document accesses = stats.get("accesses", Document.class);
+                if (accesses == null || "_id_".equals(stats.getString("name"))) {
+                    continue;
+                }
+                Number ops = accesses.get("ops", Number.class);
+                Date since = accesses.getDate("since");
+                if (ops != null && ops.longValue() == 0 && since != null && since.before(cutoff)) {
+                    unused.add(stats.getString("name") + " (no use since " + since.toInstant() + ")");
+                }
+            }
+        } catch (RuntimeException e) {
+            if (isUnreachable(e)) {
+                throw e;
+            }
+            log.debug("$indexStats not available for {}: {}", collection, e.getMessage());
+        }
+        return unused;
+    }
+
+    private void log(Report report) {
+        if (report.missing().isEmpty()) {
+            log.info("MongoDB indexes in place");
+        } else {
+            log.warn("Declared MongoDB indexes missing: {}", report.missing());
+        }
+        if (!report.undeclared().isEmpty()) {
+            log.info("MongoDB indexes not declared by any @Document class: {}", report.undeclared());
+        }
+        if (!report.unused().isEmpty()) {
+            log.info("MongoDB indexes without recorded use: {}", report.unused());
+        }
+    }
+
+    private static boolean isUnreachable(RuntimeException e) {
+        return e instanceof DataAccessResourceFailureException;
+    }
+
+    // Key pattern such as {userId: 1, createdAt: -1}, which identifies an index regardless of its name
+    private static String keysOf(IndexDefinition definition) {
+        return definition.getIndexKeys().entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue())
+                .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    private static String keysOf(IndexInfo info) {
+        return info.getIndexFields().stream()
+                .map(MongoIndexManager::keyOf)
+                .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    private static String keyOf(IndexField field) {
+        if (field.getDirection() != null) {
+            return field.getKey() + ": " + (field.getDirection() == Sort.Direction.ASC ? 1 : -1);
+        }
+        return field.getKey() + ": " + (field.isText() ? "text" : field.isGeo() ? "2d" : field.isHashed() ? "hashed" : "?");
+    }
+
+    /**
+     * Outcome of the last check. {@code checked} is false until MongoDB could be
+     * reached, with the last connection error in {@code error}.
+     */
+    public record Report(boolean checked, List<String> missing, List<String> undeclared, List<String> unused,
+                         String error) {
+
+        static final Report PENDING = new Report(false, List.of(), List.of(), List.of(), null);
+    }
+}
@@ -0,0 +1,293 @@
+package com.codeguard.backend.repository;
+
+import com.codeguard.backend.config.PersistenceProperties;
+import com.codeguard.backend.model.CodeSubmission;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind stage for {@link CodeSubmission} state transitions. Each change
+ * only records the fields it touched; pending changes for the same submission
+ * are merged and flushed to {@code code_submissions} in unordered bulk upserts
+ * with {@code $set}, so the source code is written once instead of on every
+ * status change. The final state can be made durable before the caller returns.
+ * A submission stays pending, and readable from memory, until its write is
+ * acknowledged; only one write per submission is in flight at a time, so an
+ * older write never lands after a newer one.
+ */
+@Slf4j
+@Component
+public class SubmissionWriteBehind {
+
+    private static final String COLLECTION = "code_submissions";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PersistenceProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer flushTimer;
+
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong documentsWritten = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong flushNanosTotal = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void init() {
+        flushTimer = Timer.builder("codeguard.persistence.flush")
+                .description("Bulk writes of pending submission changes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("codeguard.persistence.pending", pending, Map::size)
+                .description("Submissions with changes not yet written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Assigns an id and creation time and queues the initial insert.
+     */
+    public CodeSubmission create(CodeSubmission submission) {
+        LocalDateTime now = LocalDateTime.now();
+        submission.setId(new ObjectId().toHexString());
+        submission.setCreatedAt(now);
+        submission.setUpdatedAt(now);
+
+        Document document = toDocument(submission);
+        document.remove("_id");
+        pending.put(submission.getId(), new PendingWrite(submission, document, true));
+        return submission;
+    }
+
+    /**
+     * Queues the given fields of {@code submission} for the next flush.
+     */
+    public void update(CodeSubmission submission, String... fields) {
+        submission.setUpdatedAt(LocalDateTime.now());
+        Document document = toDocument(submission);
+        pending.compute(submission.getId(), (id, write) -> {
+            PendingWrite target = write != null ? write : new PendingWrite(submission, new Document(), false);
+            target.set(document, fields);
+            return target;
+        });
+    }
+
+    /**
+     * Queues the final state. In {@code SYNC} durability mode everything pending
+     * for this submission is written before returning; it waits only for a
+     * flush that is writing this same submission.
+     */
+    public void complete(CodeSubmission submission, String... fields) {
+        update(submission, fields);
+        if (properties.getFinalState() == PersistenceProperties.Durability.SYNC) {
+            PendingWrite write = pending.get(submission.getId());
+            if (write != null) {
+                write.writing.lock();
+                try {
+                    write(List.of(write));
+                } finally {
+                    write.writing.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops a submission that was never started, whether or not it was flushed.
+     */
+    public void discard(CodeSubmission submission) {
+        PendingWrite write = pending.remove(submission.getId());
+        if (write != null) {
+            // Let a write already in flight land first, so the removal below is not undone by it
+            write.writing.lock();
+            write.writing.unlock();
+        }
+        if (write == null || write.mayHaveReachedMongo()) {
+            mongoTemplate.remove(idQuery(submission.getId()), COLLECTION);
+        }
+    }
+
+    /**
+     * Latest in-memory state of a submission that has not been fully flushed yet.
+     */
+    public Optional<CodeSubmission> findPending(String id) {
+        PendingWrite write = pending.get(id);
+        return write == null ? Optional.empty() : Optional.of(write.submission);
+    }
+
+    @Scheduled(fixedDelayString = "${codeguard.persistence.flush-interval-ms:200}")
+    public void flush() {
+        while (true) {
+            List<PendingWrite> batch = new ArrayList<>();
+            for (PendingWrite write : pending.values()) {
+                // A submission another thread is writing is left for the next batch
+                if (write.writing.tryLock()) {
+                    batch.add(write);
+                    if (batch.size() >= properties.getMaxBatchSize()) {
+                        break;
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                if (!write(batch)) {
+                    return;
+                }
+            } finally {
+                batch.forEach(write -> write.writing.unlock());
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long flushCount = flushes.get();
+        return new Stats(
+                pending.size(),
+                flushCount,
+                documentsWritten.get(),
+                failures.get(),
+                lastBatchSize,
+                flushCount == 0 ? 0 : (double) documentsWritten.get() / flushCount,
+                lastFlushMillis,
+                flushCount == 0 ? 0 : flushNanosTotal.get() / 1_000_000.0 / flushCount
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Callers hold the writing lock of every entry in the batch
+    private boolean write(List<PendingWrite> batch) {
+        Map<PendingWrite, Long> versions = new LinkedHashMap<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (PendingWrite write : batch) {
+            // Already written and dropped by an earlier write, or discarded
+            if (pending.get(write.id()) != write) {
+                continue;
+            }
+            Update update = new Update();
+            versions.put(write, write.snapshot(update));
+            bulk.upsert(idQuery(write.id()), update);
+        }
+        if (versions.isEmpty()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try {
+            bulk.execute();
+            // Only entries nothing changed since the snapshot are done; the rest go out again
+            versions.forEach((written, version) -> pending.computeIfPresent(written.id(),
+                    (id, write) -> write == written && write.written(version) ? null : write));
+
+            long elapsed = System.nanoTime() - start;
+            flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            flushes.incrementAndGet();
+            documentsWritten.addAndGet(versions.size());
+            flushNanosTotal.addAndGet(elapsed);
+            lastBatchSize = versions.size();
+            lastFlushMillis = elapsed / 1_000_000;
+            return true;
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.warn("Failed to flush {} submission updates, will retry: {}", versions.size(), e.getMessage());
+            // The entries never left `pending`, so the next flush retries them with anything recorded since
+            return false;
+        }
+    }
+
+    private Document toDocument(CodeSubmission submission) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(submission, document);
+        document.remove("_class");
+        return document;
+    }
+
+    private static Query idQuery(String id) {
+        return Query.query(Criteria.where("_id").is(new ObjectId(id)));
+    }
+
+    public record Stats(int pending, long flushes, long documentsWritten, long failures,
+                        int lastBatchSize, double averageBatchSize,
+                        long lastFlushMillis, double averageFlushMillis) {
+    }
+
+    private static final class PendingWrite {
+
+        final CodeSubmission submission;
+        // Held while this submission's changes are on their way to Mongo
+        final ReentrantLock writing = new ReentrantLock();
+        private final Document fields;
+        private final boolean insert;
+        private boolean sent;
+        private long version;
+
+        PendingWrite(CodeSubmission submission, Document fields, boolean insert) {
+            this.submission = submission;
+            this.fields = fields;
+            this.insert = insert;
+        }
+
+        String id() {
+            return submission.getId();
+        }
+
+        synchronized void set(Document document, String... changed) {
+            for (String field : changed) {
+                fields.put(field, document.get(field));
+            }
+            fields.put("updatedAt", document.get("updatedAt"));
+            version++;
+        }
+
+        // Every field is sent again each time; $set makes repeating an acknowledged field harmless
+        synchronized long snapshot(Update update) {
+            fields.forEach(update::set);
+            sent = true;
+            return version;
+        }
+
+        // Whether nothing changed since the snapshot taken at writtenVersion
+        synchronized boolean written(long writtenVersion) {
+            return version == writtenVersion;
+        }
+
+        // Only a queued insert that was never sent is sure not to exist in the collection
+        synchronized boolean mayHaveReachedMongo() {
+            return !insert || sent;
+        }
+    }
+}
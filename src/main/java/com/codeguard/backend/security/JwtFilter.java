@@ -2,6 +2,9 @@ package com.codeguard.backend.security;
 
 import com.codeguard.backend.model.User;
 import com.codeguard.backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +24,8 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -36,20 +41,33 @@ public class JwtFilter extends OncePerRequestFilter {
          if(authHeader != null && authHeader.startsWith("Bearer"))
          {
              String jwt=authHeader.substring(7);
-             if (jwtUtil.isTokenValid(jwt)) {
-                 String email = jwtUtil.extractEmail(jwt);
-                 User user = userRepository.findByEmail(email).orElse(null);
-
-                 if (user != null) {
-                     UsernamePasswordAuthenticationToken authToken =
-                             new UsernamePasswordAuthenticationToken(user, null, null);
-
-                     authToken.setDetails(
-                             new WebAuthenticationDetailsSource().buildDetails(request)
-                     );
-                     SecurityContextHolder.getContext().setAuthentication(authToken);
+             Timer.Sample validation = Timer.start(meterRegistry);
+             // A token seen before skips the signature check and the user lookup
+             User user = principalCache.get(jwt);
+             boolean cached = user != null;
+             boolean valid = cached;
+             if (!cached) {
+                 Claims claims = jwtUtil.parseClaims(jwt);
+                 valid = claims != null;
+                 if (valid) {
+                     user = userRepository.findByEmail(claims.getSubject()).orElse(null);
+                     if (user != null) {
+                         principalCache.put(jwt, user, claims.getExpiration());
+                     }
                  }
              }
+             validation.stop(meterRegistry.timer("codeguard.jwt.validation",
+                     "valid", Boolean.toString(valid), "cached", Boolean.toString(cached)));
+
+             if (user != null) {
+                 UsernamePasswordAuthenticationToken authToken =
+                         new UsernamePasswordAuthenticationToken(user, null, null);
+
+                 authToken.setDetails(
+                         new WebAuthenticationDetailsSource().buildDetails(request)
+                 );
+                 SecurityContextHolder.getContext().setAuthentication(authToken);
+             }
          }
 
         filterChain.doFilter(request, response);
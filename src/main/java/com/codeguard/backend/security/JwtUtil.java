@@ -1,12 +1,16 @@
 package com.codeguard.backend.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 
@@ -19,10 +23,16 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    private Key getKey() {
-        return Keys.secretKeyFor(SignatureAlgorithm.HS256); // Generates a safe key
-    }
+    // Derived once from jwt.secret, so tokens stay valid across requests and restarts
+    private Key key;
+    private JwtParser parser;
 
+    @PostConstruct
+    public void init() {
+        // Rejects secrets shorter than 256 bits at startup
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
 
     public String generateToken(String email)
     {
@@ -30,26 +40,30 @@ public class JwtUtil {
                 .setSubject(email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis()+jwtExpiration))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
+
+    /**
+     * Verifies the signature and expiry of a signed token and returns its claims,
+     * or null if the token is malformed, tampered with or expired.
+     */
+    public Claims parseClaims(String token)
+    {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     public String extractEmail(String token)
     {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build()
-                .parseClaimsJwt(token)
-                .getBody()
-                .getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
+
     public boolean isTokenValid(String token)
     {
-        try {
-            Jwts.parserBuilder().setSigningKey(getKey()).build().parseClaimsJwt(token);
-               return true;
-        }catch (JwtException e)
-        {
-            return false;
-        }
+        return parseClaims(token) != null;
     }
 }
@@ -0,0 +1,89 @@
+package com.codeguard.backend.security;
+
+import com.codeguard.backend.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bearer tokens that already passed signature verification, mapped to the user
+ * they resolved to, so repeated requests with the same token skip both the
+ * HMAC check and the user lookup. Entries expire with the token or after
+ * {@code jwt.principal-cache.ttl-ms}, whichever comes first; the TTL bounds how
+ * long a change made outside this instance can go unnoticed. Least recently
+ * used entries are dropped beyond {@code jwt.principal-cache.max-entries}.
+ */
+@Component
+public class PrincipalCache {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Map<String, Entry> entries;
+
+    public PrincipalCache(@Value("${jwt.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${jwt.principal-cache.ttl-ms:300000}") long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrincipalCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The user a verified token resolved to, or null if the token is not cached
+     * or its entry has expired.
+     */
+    public User get(String token) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(token);
+            if (entry != null && entry.expiresAt() <= now) {
+                entries.remove(token);
+                entry = null;
+            }
+        }
+        return entry == null ? null : entry.user();
+    }
+
+    public void put(String token, User user, Date tokenExpiration) {
+        if (maxEntries <= 0 || ttlMs <= 0) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        synchronized (entries) {
+            entries.put(token, new Entry(user, expiresAt));
+        }
+    }
+
+    public void evictUser(String id, String email) {
+        evictIf(user -> (id != null && id.equals(user.getId()))
+                || (email != null && email.equalsIgnoreCase(user.getEmail())));
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // User changes are rare next to lookups, so a scan beats keeping a second index
+    private void evictIf(Predicate<User> matches) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> matches.test(entry.user()));
+        }
+    }
+
+    private record Entry(User user, long expiresAt) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.codeguard.backend.security;
+
+import com.codeguard.backend.model.User;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached principals whenever a user is saved or deleted through a
+ * repository or {@code MongoTemplate}, so a changed role or a removed account
+ * takes effect on the next request. Bulk updates bypass mapping events and are
+ * only picked up when the cache entry expires.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener extends AbstractMongoEventListener<User> {
+
+    private final PrincipalCache principalCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        User user = event.getSource();
+        principalCache.evictUser(user.getId(), user.getEmail());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Document query = event.getSource();
+        Object id = query.get("_id");
+        Object email = query.get("email");
+        if (id instanceof Document || email instanceof Document || (id == null && email == null)) {
+            // $in or a broader filter: cannot tell which users went away
+            principalCache.clear();
+        } else {
+            principalCache.evictUser(id == null ? null : id.toString(), email == null ? null : email.toString());
+        }
+    }
+}
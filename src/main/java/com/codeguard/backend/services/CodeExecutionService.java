@@ -2,17 +2,57 @@ package com.codeguard.backend.services;
 
 import com.codeguard.backend.dto.CodeExecutionRequest;
 import com.codeguard.backend.dto.CodeExecutionResponse;
+import com.codeguard.backend.dto.JudgeRequest;
+import com.codeguard.backend.dto.JudgeResponse;
+import com.codeguard.backend.dto.ProjectExecutionRequest;
+import com.codeguard.backend.dto.SubmissionPage;
+import com.codeguard.backend.dto.SubmissionSummary;
+import com.codeguard.backend.dto.TestCaseResult;
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.exception.ExecutionQueueFullException;
+import com.codeguard.backend.exception.ExecutionTimeoutException;
+import com.codeguard.backend.exception.ResourceLimitException;
+import com.codeguard.backend.execution.CgroupManager;
+import com.codeguard.backend.execution.CompilationCache;
+import com.codeguard.backend.execution.CompiledProgram;
+import com.codeguard.backend.execution.ExecutionBudget;
+import com.codeguard.backend.execution.ExecutionDispatcher;
+import com.codeguard.backend.execution.ExecutionMetrics;
+import com.codeguard.backend.execution.ExecutionScheduler;
+import com.codeguard.backend.execution.JavaRunnerPool;
+import com.codeguard.backend.execution.NodeRunnerPool;
+import com.codeguard.backend.execution.LanguageRunner;
+import com.codeguard.backend.execution.LanguageRunners;
+import com.codeguard.backend.execution.OutputCapture;
+import com.codeguard.backend.execution.OutputComparator;
+import com.codeguard.backend.execution.OutputListener;
+import com.codeguard.backend.execution.OutputSpillStore;
+import com.codeguard.backend.execution.ProcessSupervisor;
+import com.codeguard.backend.execution.ProjectCompiler;
+import com.codeguard.backend.execution.ResultCache;
+import com.codeguard.backend.execution.RunContext;
+import com.codeguard.backend.execution.SseOutputSink;
+import com.codeguard.backend.execution.ToolchainProfiles;
+import com.codeguard.backend.execution.WorkspaceManager;
 import com.codeguard.backend.model.CodeSubmission;
+import com.codeguard.backend.model.JudgeVerdict;
 import com.codeguard.backend.repository.CodeSubmissionRepository;
+import com.codeguard.backend.repository.MongoIndexManager;
+import com.codeguard.backend.repository.SubmissionWriteBehind;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class CodeExecutionService {
@@ -20,307 +60,814 @@ public class CodeExecutionService {
     @Autowired
     private CodeSubmissionRepository repository;
 
-    private final String TEMP_DIR = System.getProperty("java.io.tmpdir") + "/code-editor/";
-    private final long EXECUTION_TIMEOUT = 10000; // 10 seconds
+    @Autowired
+    private SubmissionWriteBehind writeBehind;
 
-    public CodeExecutionService() {
-        // Create temp directory if it doesn't exist
-        try {
-            Files.createDirectories(Paths.get(TEMP_DIR));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to create temp directory", e);
-        }
-    }
+    @Autowired
+    private MongoIndexManager indexManager;
 
-    public CodeExecutionResponse executeCode(CodeExecutionRequest request) {
-        // Save submission to database
-        CodeSubmission submission = new CodeSubmission(
-                request.getFileName(),
-                request.getCode(),
-                request.getLanguage()
-        );
-        submission.setUserId(request.getUserId());
-        submission = repository.save(submission);
+    @Autowired
+    private JavaRunnerPool javaRunnerPool;
 
-        long startTime = System.currentTimeMillis();
+    @Autowired
+    private NodeRunnerPool nodeRunnerPool;
 
-        try {
-            submission.setStatus(CodeSubmission.ExecutionStatus.RUNNING);
-            repository.save(submission);
+    @Autowired
+    private DiagnosticsService diagnosticsService;
 
-            String output = executeCodeByLanguage(request);
-            long executionTime = System.currentTimeMillis() - startTime;
+    @Autowired
+    private CompilationCache compilationCache;
 
-            submission.setOutput(output);
-            submission.setStatus(CodeSubmission.ExecutionStatus.SUCCESS);
-            submission.setExecutionTime(executionTime);
-            repository.save(submission);
+    @Autowired
+    private ResultCache resultCache;
 
-            return new CodeExecutionResponse(
-                    submission.getId(),
-                    output,
-                    CodeSubmission.ExecutionStatus.SUCCESS,
-                    executionTime
-            );
+    @Autowired
+    private WorkspaceManager workspaceManager;
 
-        } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - startTime;
+    @Autowired
+    private ExecutionDispatcher dispatcher;
 
-            submission.setErrorMessage(e.getMessage());
-            submission.setStatus(CodeSubmission.ExecutionStatus.ERROR);
-            submission.setExecutionTime(executionTime);
-            repository.save(submission);
+    @Autowired
+    private ExecutionProperties properties;
 
-            CodeExecutionResponse response = new CodeExecutionResponse();
-            response.setSubmissionId(submission.getId());
-            response.setError(e.getMessage());
-            response.setStatus(CodeSubmission.ExecutionStatus.ERROR);
-            response.setExecutionTime(executionTime);
+    @Autowired
+    private OutputSpillStore outputSpillStore;
 
-            return response;
+    @Autowired
+    private ExecutionScheduler scheduler;
+
+    @Autowired
+    private ExecutionBudget budget;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private CgroupManager cgroupManager;
+
+    @Autowired
+    private ExecutionMetrics metrics;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private LanguageRunners runners;
+
+    @Autowired
+    private ProjectCompiler projectCompiler;
+
+    private final Map<String, CompletableFuture<CodeExecutionResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final long EXECUTION_TIMEOUT = 10000; // 10 seconds
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Queues the request like {@link #submitCode} and waits for its result, so
+     * synchronous callers get the same per-user fair order. Throws
+     * {@link ExecutionQueueFullException} when the language's queue is full.
+     */
+    public CodeExecutionResponse executeCode(CodeExecutionRequest request) {
+        String resultKey = resultKey(request);
+        CodeExecutionResponse cached = serveCached(request, resultKey);
+        if (cached != null) {
+            return cached;
         }
-    }
+        CodeSubmission submission = createSubmission(request);
 
-    private String executeCodeByLanguage(CodeExecutionRequest request) throws Exception {
-        switch (request.getLanguage()) {
-            case JAVA:
-                return executeJavaCode(request);
-            case CPP:
-                return executeCppCode(request);
-            case JAVASCRIPT:
-                return executeJavaScriptCode(request);
-            default:
-                throw new UnsupportedOperationException("Language not supported: " + request.getLanguage());
+        long queuedAt = System.nanoTime();
+        CompletableFuture<CodeExecutionResponse> future;
+        try {
+            future = dispatcher.submit(request.getLanguage(), request.getUserId(),
+                    compiled -> runSubmission(submission, request, resultKey, OutputListener.NONE, queuedAt, compiled));
+        } catch (ExecutionQueueFullException e) {
+            metrics.recordRejection(request.getLanguage());
+            writeBehind.discard(submission);
+            throw e;
         }
+        inFlight.put(submission.getId(), future);
+        future.whenComplete((response, error) -> inFlight.remove(submission.getId()));
+        return await(future);
     }
 
-    private String executeJavaCode(CodeExecutionRequest request) throws Exception {
-        String fileName = request.getFileName();
-        if (!fileName.endsWith(".java")) {
-            fileName += ".java";
+    /**
+     * Queues the request and returns immediately with the PENDING submission id.
+     * Throws {@link ExecutionQueueFullException} when the language's queue is full.
+     */
+    public CodeExecutionResponse submitCode(CodeExecutionRequest request) {
+        String resultKey = resultKey(request);
+        CodeExecutionResponse cached = serveCached(request, resultKey);
+        if (cached != null) {
+            return cached;
         }
+        CodeSubmission submission = createSubmission(request);
 
-        // Extract class name from the code itself, not just filename
-        String className = extractJavaClassName(request.getCode());
-        if (className == null) {
-            className = fileName.replace(".java", "");
+        long queuedAt = System.nanoTime();
+        CompletableFuture<CodeExecutionResponse> future;
+        try {
+            future = dispatcher.submit(request.getLanguage(), request.getUserId(),
+                    compiled -> runSubmission(submission, request, resultKey, OutputListener.NONE, queuedAt, compiled));
+        } catch (ExecutionQueueFullException e) {
+            metrics.recordRejection(request.getLanguage());
+            writeBehind.discard(submission);
+            throw e;
         }
+        inFlight.put(submission.getId(), future);
+        future.whenComplete((response, error) -> inFlight.remove(submission.getId()));
 
-        // Use the extracted class name for the file
-        String actualFileName = className + ".java";
-        Path filePath = Paths.get(TEMP_DIR, actualFileName);
+        CodeExecutionResponse response = new CodeExecutionResponse();
+        response.setSubmissionId(submission.getId());
+        response.setStatus(CodeSubmission.ExecutionStatus.PENDING);
+        return response;
+    }
 
-        // Write code to file
-        Files.write(filePath, request.getCode().getBytes());
+    /**
+     * Turns a multi-file project into an execution request, recorded under its
+     * entry file, for {@link #executeCode}, {@link #submitCode} or
+     * {@link #streamCode}. Throws
+     * {@link com.codeguard.backend.exception.InvalidProjectException} for paths
+     * or sizes the server does not take.
+     */
+    public CodeExecutionRequest toExecutionRequest(ProjectExecutionRequest project) {
+        projectCompiler.validate(project.getFiles());
+        String entryFile = ProjectCompiler.entryFile(project.getFiles(), project.getEntryPoint());
+        CodeExecutionRequest request = new CodeExecutionRequest();
+        request.setFileName(entryFile);
+        request.setCode(project.getFiles().get(entryFile));
+        request.setLanguage(project.getLanguage());
+        request.setUserId(project.getUserId());
+        request.setStdin(project.getStdin());
+        request.setDeterministic(project.getDeterministic());
+        request.setFiles(new TreeMap<>(project.getFiles()));
+        request.setProjectId(project.getProjectId());
+        request.setEntryPoint(project.getEntryPoint());
+        return request;
+    }
 
-        try {
-            // Compile with better error handling
-            String compileCommand = "javac \"" + filePath.toString() + "\"";
-            String compileOutput = executeCommand(compileCommand, TEMP_DIR);
+    /**
+     * Completes with the result once the submission finishes, or with its current
+     * state after {@code timeoutMs}. Completes with null for unknown ids.
+     */
+    public CompletableFuture<CodeExecutionResponse> awaitResult(String id, long timeoutMs) {
+        CompletableFuture<CodeExecutionResponse> future = inFlight.get(id);
+        if (future == null) {
+            return CompletableFuture.completedFuture(toResponse(getSubmissionById(id)));
+        }
+        long timeout = Math.min(timeoutMs, properties.getQueue().getLongPollMaxMs());
+        return future.copy()
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .handle((response, error) -> response != null ? response : toResponse(getSubmissionById(id)));
+    }
 
-            if (!compileOutput.trim().isEmpty()) {
-                throw new RuntimeException("Compilation Error: " + compileOutput);
+    /**
+     * Runs the request on the execution queue and streams its output to the
+     * returned emitter, finishing with a {@code result} event.
+     */
+    public SseEmitter streamCode(CodeExecutionRequest request) {
+        SseEmitter emitter = new SseEmitter(EXECUTION_TIMEOUT + properties.getStream().getEmitterTimeoutMs());
+        SseOutputSink sink = new SseOutputSink(emitter, properties.getStream(), scheduler.virtualThreads());
+        String resultKey = resultKey(request);
+        CodeExecutionResponse cached = serveCached(request, resultKey);
+        if (cached != null) {
+            if (cached.getOutput() != null) {
+                byte[] output = cached.getOutput().getBytes(StandardCharsets.UTF_8);
+                sink.onOutput(output, 0, output.length);
             }
+            sink.complete(cached);
+            return emitter;
+        }
+        CodeSubmission submission = createSubmission(request);
 
-            // Check if class file was created
-            Path classFilePath = Paths.get(TEMP_DIR, className + ".class");
-            if (!Files.exists(classFilePath)) {
-                throw new RuntimeException("Compilation failed: .class file not generated");
-            }
+        long queuedAt = System.nanoTime();
+        try {
+            dispatcher.submit(request.getLanguage(), request.getUserId(), compiled -> {
+                CodeExecutionResponse response = runSubmission(submission, request, resultKey, sink, queuedAt, compiled);
+                sink.complete(response);
+                return response;
+            });
+        } catch (ExecutionQueueFullException e) {
+            metrics.recordRejection(request.getLanguage());
+            writeBehind.discard(submission);
+            emitter.complete();
+            throw e;
+        }
+        return emitter;
+    }
 
-            // Execute with better classpath handling
-            String executeCommand = "java -cp \"" + TEMP_DIR + "\" " + className;
-            return executeCommand(executeCommand, TEMP_DIR);
+    /**
+     * Compiles the source once and runs it against every test case, in parallel
+     * up to {@code codeguard.execution.judge.parallelism}. Each case runs in its
+     * own workspace and cgroup, and its output is compared with the expected
+     * answer as it is produced. With {@code failFast} the first failing case
+     * cancels the ones still running or waiting. The judge is stored as a single
+     * submission written once in its final state. It is queued on the execution
+     * dispatcher like any other submission of its user; throws
+     * {@link ExecutionQueueFullException} when the language's queue is full.
+     */
+    public JudgeResponse judge(JudgeRequest request) {
+        long queuedAt = System.nanoTime();
+        try {
+            return await(dispatcher.submit(request.getLanguage(), request.getUserId(),
+                    compiled -> runJudge(request, queuedAt, compiled)));
+        } catch (ExecutionQueueFullException e) {
+            metrics.recordRejection(request.getLanguage());
+            throw e;
+        }
+    }
 
-        } finally {
-            // Cleanup both original filename and actual filename
-            cleanupFiles(TEMP_DIR, className);
-            if (!className.equals(fileName.replace(".java", ""))) {
-                cleanupFiles(TEMP_DIR, fileName.replace(".java", ""));
+    private JudgeResponse runJudge(JudgeRequest request, long queuedAt, Runnable compiled) {
+        long startTime = System.currentTimeMillis();
+        CodeSubmission.Language language = request.getLanguage();
+        RunContext compileRun = new RunContext(CgroupManager.Slot.NONE);
+        compileRun.queued(queuedAt);
+        LanguageRunner runner = runners.forLanguage(language);
+
+        JudgeResponse response = new JudgeResponse();
+        response.setTotal(request.getTestCases().size());
+        try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+            CompiledProgram program;
+            budget.acquireCompile();
+            try {
+                program = runner.compile(request.getFileName(), request.getCode(), workspace, compileRun);
+            } finally {
+                budget.releaseCompile();
+                compiled.run();
             }
+            response.setCompileTime(TimeUnit.NANOSECONDS.toMillis(compileRun.phases().getCompileNanos()));
+
+            List<TestCaseResult> results = runTestCases(runner, program, request);
+            response.setResults(results);
+            response.setPassed((int) results.stream().filter(r -> r.getVerdict() == JudgeVerdict.ACCEPTED).count());
+            response.setVerdict(results.stream()
+                    .map(TestCaseResult::getVerdict)
+                    .filter(verdict -> verdict != JudgeVerdict.ACCEPTED && verdict != JudgeVerdict.SKIPPED)
+                    .findFirst()
+                    .orElse(JudgeVerdict.ACCEPTED));
+        } catch (CompilationException e) {
+            response.setCompileTime(TimeUnit.NANOSECONDS.toMillis(compileRun.phases().getCompileNanos()));
+            response.setVerdict(JudgeVerdict.COMPILE_ERROR);
+            response.setError(e.getMessage());
+            if (!e.getDiagnostics().isEmpty()) {
+                response.setDiagnostics(e.getDiagnostics());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Judging interrupted");
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Judging failed: " + e.getMessage(), e);
         }
+        response.setExecutionTime(System.currentTimeMillis() - startTime);
+
+        CodeSubmission submission = new CodeSubmission(request.getFileName(), request.getCode(), language);
+        submission.setUserId(request.getUserId());
+        submission.setVerdict(response.getVerdict());
+        submission.setTestsPassed(response.getPassed());
+        submission.setTestsTotal(response.getTotal());
+        submission.setOutput(judgeSummary(response));
+        submission.setErrorMessage(response.getError());
+        submission.setStatus(response.getVerdict() == JudgeVerdict.COMPILE_ERROR
+                ? CodeSubmission.ExecutionStatus.ERROR
+                : CodeSubmission.ExecutionStatus.SUCCESS);
+        submission.setExecutionTime(response.getExecutionTime());
+        submission.setPhases(compileRun.phases());
+        writeBehind.create(submission);
+        writeBehind.complete(submission);
+        response.setSubmissionId(submission.getId());
+
+        metrics.recordExecution(language, response.getVerdict() == JudgeVerdict.COMPILE_ERROR
+                        ? ExecutionMetrics.Outcome.COMPILE_ERROR
+                        : ExecutionMetrics.Outcome.SUCCESS,
+                System.nanoTime() - queuedAt, compileRun.phases());
+        return response;
     }
 
-    private String extractJavaClassName(String code) {
-        // Extract class name from public class declaration
-        String[] lines = code.split("\n");
-        for (String line : lines) {
-            line = line.trim();
-            if (line.startsWith("public class ")) {
-                // Extract class name
-                String[] parts = line.split("\\s+");
-                for (int i = 0; i < parts.length - 1; i++) {
-                    if ("class".equals(parts[i])) {
-                        String className = parts[i + 1];
-                        // Remove any opening brace
-                        if (className.contains("{")) {
-                            className = className.substring(0, className.indexOf("{"));
-                        }
-                        return className.trim();
-                    }
+    private List<TestCaseResult> runTestCases(LanguageRunner runner, CompiledProgram program, JudgeRequest request)
+            throws InterruptedException {
+        List<JudgeRequest.TestCase> testCases = request.getTestCases();
+        int parallelism = properties.getJudge().getParallelism() > 0
+                ? properties.getJudge().getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        // The execution budget still caps runs across all requests; this only bounds one judge's share
+        Semaphore lanes = new Semaphore(parallelism);
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        CompletionService<TestCaseResult> completions = new ExecutorCompletionService<>(scheduler.virtualThreads());
+        List<Future<TestCaseResult>> futures = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            int index = i;
+            futures.add(completions.submit(() -> {
+                lanes.acquire();
+                try {
+                    return stopped.get()
+                            ? new TestCaseResult(index, JudgeVerdict.SKIPPED)
+                            : runTestCase(runner, program, testCases.get(index), index);
+                } finally {
+                    lanes.release();
                 }
-            }
+            }));
         }
 
-        // Fallback: look for any class declaration
-        for (String line : lines) {
-            line = line.trim();
-            if (line.contains("class ") && !line.startsWith("//") && !line.startsWith("*")) {
-                String[] parts = line.split("\\s+");
-                for (int i = 0; i < parts.length - 1; i++) {
-                    if ("class".equals(parts[i])) {
-                        String className = parts[i + 1];
-                        if (className.contains("{")) {
-                            className = className.substring(0, className.indexOf("{"));
-                        }
-                        return className.trim();
-                    }
+        TestCaseResult[] results = new TestCaseResult[testCases.size()];
+        try {
+            for (int i = 0; i < testCases.size(); i++) {
+                Future<TestCaseResult> future = completions.take();
+                if (future.isCancelled()) {
+                    continue;
+                }
+                TestCaseResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    continue;
+                }
+                results[result.getIndex()] = result;
+                JudgeVerdict verdict = result.getVerdict();
+                if (request.isFailFast() && verdict != JudgeVerdict.ACCEPTED && verdict != JudgeVerdict.SKIPPED
+                        && !stopped.getAndSet(true)) {
+                    // Interrupting a running case kills its process, cold or pooled; pooled runners poll for it
+                    futures.forEach(other -> other.cancel(true));
                 }
             }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
         }
 
-        return null;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new TestCaseResult(i, JudgeVerdict.SKIPPED);
+            }
+        }
+        return List.of(results);
     }
 
-    private String executeCppCode(CodeExecutionRequest request) throws Exception {
-        String fileName = request.getFileName();
-        if (!fileName.endsWith(".cpp")) {
-            fileName += ".cpp";
+    private TestCaseResult runTestCase(LanguageRunner runner, CompiledProgram program, JudgeRequest.TestCase testCase,
+                                       int index) {
+        ExecutionProperties.Judge settings = properties.getJudge();
+        long timeoutMs = testCase.getTimeoutMs() != null
+                ? Math.min(testCase.getTimeoutMs(), EXECUTION_TIMEOUT)
+                : EXECUTION_TIMEOUT;
+        long maxOutputBytes = testCase.getMaxOutputBytes() != null
+                ? Math.min(testCase.getMaxOutputBytes(), settings.getMaxOutputBytes())
+                : settings.getMaxOutputBytes();
+
+        TestCaseResult result = new TestCaseResult(index, JudgeVerdict.SKIPPED);
+        // The cgroup slot is opened inside the run, so nothing between taking the permit and the try can throw
+        RunContext run = new RunContext(() -> cgroupManager.open(program.language()));
+        OutputComparator comparator = new OutputComparator(testCase.getExpectedOutput(), maxOutputBytes);
+        ExecutionProperties.Output.Limits previewLimits = new ExecutionProperties.Output.Limits();
+        previewLimits.setHeadBytes(settings.getOutputPreviewBytes());
+        previewLimits.setTailBytes(0);
+        OutputCapture preview = new OutputCapture(previewLimits, null);
+        try {
+            budget.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return result;
+        }
+
+        long started = System.nanoTime();
+        try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+            int exitCode = runner.run(program, stdinOf(testCase.getStdin()), timeoutMs, workspace.dir(), run,
+                    preview, comparator);
+            // A run stopped by the comparator was killed, so its exit code says nothing about the program
+            boolean rejected = comparator.getMismatch() != null || comparator.isLimitExceeded();
+            result.setExitCode(rejected ? null : exitCode);
+            if (comparator.isLimitExceeded()) {
+                result.setVerdict(JudgeVerdict.OUTPUT_LIMIT_EXCEEDED);
+            } else if (rejected) {
+                result.setVerdict(JudgeVerdict.WRONG_ANSWER);
+            } else if (exitCode != 0) {
+                result.setVerdict(JudgeVerdict.RUNTIME_ERROR);
+                result.setError(run.limits().pidsLimitHit()
+                        ? "Process limit exceeded - could not create more than "
+                        + properties.getCgroups().quotaFor(program.language()).getPids()
+                        + " processes or threads"
+                        : "Process exited with code: " + exitCode);
+            } else {
+                result.setVerdict(comparator.finish() ? JudgeVerdict.ACCEPTED : JudgeVerdict.WRONG_ANSWER);
+            }
+        } catch (ExecutionTimeoutException e) {
+            result.setVerdict(comparator.getMismatch() != null
+                    ? JudgeVerdict.WRONG_ANSWER
+                    : JudgeVerdict.TIME_LIMIT_EXCEEDED);
+            result.setError(e.getMessage());
+        } catch (ResourceLimitException e) {
+            result.setVerdict(run.limits().oomKilled()
+                    ? JudgeVerdict.MEMORY_LIMIT_EXCEEDED
+                    : JudgeVerdict.RUNTIME_ERROR);
+            result.setError(e.getMessage());
+        } catch (Exception e) {
+            // An interrupt means a failing case cancelled this one in fail-fast mode
+            result.setVerdict(Thread.currentThread().isInterrupted()
+                    ? JudgeVerdict.SKIPPED
+                    : JudgeVerdict.RUNTIME_ERROR);
+            result.setError(e.getMessage());
+        } finally {
+            run.close();
+            budget.release();
+        }
+        if (result.getVerdict() == JudgeVerdict.SKIPPED) {
+            return new TestCaseResult(index, JudgeVerdict.SKIPPED);
         }
 
-        Path filePath = Paths.get(TEMP_DIR, fileName);
-        Path executablePath = Paths.get(TEMP_DIR, "output");
+        result.setExecutionTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        OutputCapture.CapturedOutput output = preview.result();
+        result.setOutput(output.text());
+        result.setOutputBytes(output.totalBytes());
+        OutputComparator.Mismatch mismatch = comparator.getMismatch();
+        if (mismatch != null && result.getVerdict() == JudgeVerdict.WRONG_ANSWER) {
+            result.setMismatchLine(mismatch.line());
+            result.setMismatchColumn(mismatch.column());
+            result.setExpectedLine(mismatch.expectedLine());
+        }
+        result.setResourceUsage(run.usage());
+        metrics.recordJudgeCase(program.language(), result.getVerdict());
+        return result;
+    }
 
-        // Write code to file
-        Files.write(filePath, request.getCode().getBytes());
+    // Stored as the judge submission's output so the history shows the outcome of every case
+    private static String judgeSummary(JudgeResponse response) {
+        StringBuilder summary = new StringBuilder()
+                .append(response.getVerdict()).append(": ")
+                .append(response.getPassed()).append('/').append(response.getTotal()).append(" test cases passed\n");
+        if (response.getResults() != null) {
+            for (TestCaseResult result : response.getResults()) {
+                summary.append('#').append(result.getIndex() + 1).append(' ').append(result.getVerdict());
+                if (result.getExecutionTime() != null) {
+                    summary.append(' ').append(result.getExecutionTime()).append("ms");
+                }
+                summary.append('\n');
+            }
+        }
+        return summary.toString();
+    }
 
-        try {
-            // Compile
-            String compileCommand = "g++ -o " + executablePath.toString() + " " + filePath.toString();
-            String compileOutput = executeCommand(compileCommand, TEMP_DIR);
+    private CodeSubmission createSubmission(CodeExecutionRequest request) {
+        // Save submission to database
+        CodeSubmission submission = new CodeSubmission(
+                request.getFileName(),
+                request.getCode(),
+                request.getLanguage()
+        );
+        submission.setUserId(request.getUserId());
+        submission.setFiles(projectFiles(request));
+        return writeBehind.create(submission);
+    }
 
-            if (!compileOutput.isEmpty()) {
-                throw new RuntimeException("Compilation Error: " + compileOutput);
-            }
+    private static List<CodeSubmission.SourceFile> projectFiles(CodeExecutionRequest request) {
+        if (request.getFiles() == null) {
+            return null;
+        }
+        List<CodeSubmission.SourceFile> files = new ArrayList<>();
+        new TreeMap<>(request.getFiles()).forEach((path, content) ->
+                files.add(new CodeSubmission.SourceFile(path, content)));
+        return files;
+    }
 
-            // Execute
-            String executeCommand = executablePath.toString();
-            return executeCommand(executeCommand, TEMP_DIR);
+    // A project's result depends on every file and on the entry point, not only on the entry file
+    private static String sourceOf(CodeExecutionRequest request) {
+        if (request.getFiles() == null) {
+            return request.getCode();
+        }
+        StringBuilder source = new StringBuilder(String.valueOf(request.getEntryPoint()));
+        new TreeMap<>(request.getFiles()).forEach((path, content) ->
+                source.append('\0').append(path).append('\0').append(content));
+        return source.toString();
+    }
 
-        } finally {
-            // Cleanup
-            try {
-                Files.deleteIfExists(filePath);
-                Files.deleteIfExists(executablePath);
-            } catch (IOException e) {
-                // Ignore cleanup errors
-            }
+    /**
+     * Key of the request in the result cache, or null when its result must not be
+     * reused. Everything besides the source that can change what the program
+     * prints is part of the key.
+     */
+    private String resultKey(CodeExecutionRequest request) {
+        CodeSubmission.Language language = request.getLanguage();
+        String source = sourceOf(request);
+        if (!resultCache.isCacheable(language, source, request.getDeterministic())) {
+            return null;
         }
+        ExecutionProperties.Toolchain toolchain = properties.getToolchain();
+        String toolchainVersion = switch (language) {
+            case JAVA -> "java " + Runtime.version() + " " + toolchain.getJava();
+            case CPP -> compilationCache.toolchainVersion(toolchain.getCxx());
+            case JAVASCRIPT -> compilationCache.toolchainVersion(toolchain.getNode());
+        };
+        toolchainVersion += " " + toolchainProfiles.describe(language);
+        String limits = EXECUTION_TIMEOUT + " " + properties.getOutput().limitsFor(language)
+                + " " + properties.getCgroups().quotaFor(language);
+        return resultCache.key(language, toolchainVersion, limits, request.getFileName(), source, request.getStdin());
     }
 
-    private String executeJavaScriptCode(CodeExecutionRequest request) throws Exception {
-        String fileName = request.getFileName();
-        if (!fileName.endsWith(".js")) {
-            fileName += ".js";
+    /**
+     * Replays a recorded result for the request, or returns null. A hit is still
+     * recorded as a submission of its own, written once in its final state.
+     */
+    private CodeExecutionResponse serveCached(CodeExecutionRequest request, String resultKey) {
+        if (resultKey == null) {
+            return null;
+        }
+        CodeExecutionResponse response = resultCache.lookup(resultKey);
+        metrics.recordResultCache(request.getLanguage(), response != null);
+        if (response == null) {
+            return null;
         }
 
-        Path filePath = Paths.get(TEMP_DIR, fileName);
+        CodeSubmission submission = new CodeSubmission(request.getFileName(), request.getCode(), request.getLanguage());
+        submission.setUserId(request.getUserId());
+        submission.setFiles(projectFiles(request));
+        submission.setOutput(response.getOutput());
+        submission.setOutputBytes(response.getOutputBytes());
+        submission.setOutputTruncated(response.isOutputTruncated());
+        submission.setErrorMessage(response.getError());
+        submission.setStatus(response.getStatus());
+        submission.setExecutionTime(response.getExecutionTime());
+        submission.setCpuThrottledMs(response.getCpuThrottledMs());
+        submission.setPhases(response.getPhases());
+        submission.setResourceUsage(response.getResourceUsage());
+        submission.setCached(true);
+        writeBehind.create(submission);
+        writeBehind.complete(submission);
+
+        response.setSubmissionId(submission.getId());
+        response.setCached(true);
+        return response;
+    }
 
-        // Write code to file
-        Files.write(filePath, request.getCode().getBytes());
+    /**
+     * Compiles and runs the request, then records the outcome. {@code compiled}
+     * is called once compilation is over, successful or not.
+     */
+    private CodeExecutionResponse runSubmission(CodeSubmission submission, CodeExecutionRequest request,
+                                                String resultKey, OutputListener listener, long queuedAt,
+                                                Runnable compiled) {
+        long startTime = System.currentTimeMillis();
 
+        // Opened only if the program runs in a process of its own rather than a pooled one
+        RunContext run = new RunContext(() -> cgroupManager.open(request.getLanguage()));
         try {
-            // Execute
-            String executeCommand = "node " + filePath.toString();
-            return executeCommand(executeCommand, TEMP_DIR);
+            run.queued(queuedAt);
 
-        } finally {
-            // Cleanup
-            try {
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                // Ignore cleanup errors
+            long persistStarted = System.nanoTime();
+            submission.setStatus(CodeSubmission.ExecutionStatus.RUNNING);
+            writeBehind.update(submission, "status");
+            run.persisted(persistStarted);
+
+            OutputCapture capture = new OutputCapture(
+                    properties.getOutput().limitsFor(request.getLanguage()), outputSpillStore);
+            OutputCapture.CapturedOutput output = compileAndRun(request, run, capture, listener, compiled);
+            long executionTime = System.currentTimeMillis() - startTime;
+            Long throttledMs = throttledMs(run);
+
+            submission.setOutput(output.text());
+            submission.setOutputBytes(output.totalBytes());
+            submission.setOutputTruncated(output.truncated());
+            submission.setOutputSpillFile(output.spillFile());
+            submission.setStatus(CodeSubmission.ExecutionStatus.SUCCESS);
+            submission.setExecutionTime(executionTime);
+            submission.setCpuThrottledMs(throttledMs);
+            submission.setResourceUsage(run.usage());
+            persistFinalState(submission, run, "output", "outputBytes", "outputTruncated", "outputSpillFile",
+                    "status", "executionTime", "cpuThrottledMs", "resourceUsage");
+
+            CodeExecutionResponse response = new CodeExecutionResponse(
+                    submission.getId(),
+                    output.text(),
+                    CodeSubmission.ExecutionStatus.SUCCESS,
+                    executionTime
+            );
+            response.setOutputBytes(output.totalBytes());
+            response.setOutputTruncated(output.truncated());
+            response.setCpuThrottledMs(throttledMs);
+            response.setPhases(run.phases());
+            response.setResourceUsage(run.usage());
+            // A spilled output lives in a file with its own retention, so only complete in-memory results are kept
+            if (resultKey != null && output.spillFile() == null) {
+                resultCache.store(resultKey, response, executionTime);
             }
-        }
-    }
+            metrics.recordExecution(request.getLanguage(), ExecutionMetrics.Outcome.SUCCESS,
+                    System.nanoTime() - queuedAt, run.phases());
+            return response;
+
+        } catch (Exception e) {
+            long executionTime = System.currentTimeMillis() - startTime;
+            CodeSubmission.ExecutionStatus status = e instanceof ExecutionTimeoutException
+                    ? CodeSubmission.ExecutionStatus.TIMEOUT
+                    : CodeSubmission.ExecutionStatus.ERROR;
+            boolean oomKilled = run.limits().oomKilled();
+            Long throttledMs = throttledMs(run);
 
-    private String executeCommand(String command, String workingDir) throws Exception {
-        ProcessBuilder processBuilder = new ProcessBuilder();
+            submission.setErrorMessage(e.getMessage());
+            submission.setStatus(status);
+            submission.setExecutionTime(executionTime);
+            submission.setOomKilled(oomKilled);
+            submission.setCpuThrottledMs(throttledMs);
+            submission.setResourceUsage(run.usage());
+            persistFinalState(submission, run, "errorMessage", "status", "executionTime", "oomKilled",
+                    "cpuThrottledMs", "resourceUsage");
 
-        // Handle different operating systems
-        String os = System.getProperty("os.name").toLowerCase();
-        if (os.contains("win")) {
-            processBuilder.command("cmd", "/c", command);
-        } else {
-            processBuilder.command("bash", "-c", command);
+            CodeExecutionResponse response = new CodeExecutionResponse();
+            response.setSubmissionId(submission.getId());
+            response.setError(e.getMessage());
+            response.setStatus(status);
+            response.setExecutionTime(executionTime);
+            response.setOomKilled(oomKilled);
+            response.setCpuThrottledMs(throttledMs);
+            response.setPhases(run.phases());
+            response.setResourceUsage(run.usage());
+            if (e instanceof CompilationException compilationException
+                    && !compilationException.getDiagnostics().isEmpty()) {
+                response.setDiagnostics(compilationException.getDiagnostics());
+            }
+            // Compile errors are as reproducible as output; timeouts and limit kills depend on the host's load
+            if (resultKey != null && e instanceof CompilationException) {
+                resultCache.store(resultKey, response, executionTime);
+            }
+
+            metrics.recordExecution(request.getLanguage(), outcomeOf(e, oomKilled),
+                    System.nanoTime() - queuedAt, run.phases());
+            return response;
+        } finally {
+            compiled.run();
+            run.close();
         }
+    }
 
-        processBuilder.directory(new File(workingDir));
-        processBuilder.redirectErrorStream(true);
+    private ExecutionMetrics.Outcome outcomeOf(Exception e, boolean oomKilled) {
+        if (oomKilled) {
+            return ExecutionMetrics.Outcome.OOM_KILLED;
+        }
+        if (e instanceof ExecutionTimeoutException) {
+            return ExecutionMetrics.Outcome.TIMEOUT;
+        }
+        return e instanceof CompilationException
+                ? ExecutionMetrics.Outcome.COMPILE_ERROR
+                : ExecutionMetrics.Outcome.ERROR;
+    }
 
-        Process process = processBuilder.start();
+    private void persistFinalState(CodeSubmission submission, RunContext run, String... fields) {
+        long persistStarted = System.nanoTime();
+        writeBehind.complete(submission, fields);
+        run.persisted(persistStarted);
+        // The timings can only be complete after the final write, so they follow it on the next flush
+        submission.setPhases(run.phases());
+        writeBehind.update(submission, "phases");
+    }
 
-        // Use ExecutorService for timeout handling
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<String> future = executor.submit(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                StringBuilder output = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-                return output.toString();
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Execution interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-        });
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
 
-        try {
-            // Use future.get() with timeout instead of process.waitFor()
-            String result = future.get(EXECUTION_TIMEOUT, TimeUnit.MILLISECONDS);
+    private Long throttledMs(RunContext run) {
+        return run.isConfined() ? run.limits().throttledMicros() / 1000 : null;
+    }
 
-            // Wait for process to complete
-            int exitCode = process.waitFor();
+    // Compiles and runs hold separate budget permits; waiting for either counts as queueing
+    private OutputCapture.CapturedOutput compileAndRun(CodeExecutionRequest request, RunContext run,
+                                                       OutputCapture capture, OutputListener listener,
+                                                       Runnable compiled) throws Exception {
+        LanguageRunner runner = runners.forLanguage(request.getLanguage(), listener != OutputListener.NONE);
+        try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+            CompiledProgram program;
+            long waitStarted = System.nanoTime();
+            budget.acquireCompile();
+            run.queued(waitStarted);
+            try {
+                program = request.getFiles() != null
+                        ? projectCompiler.compile(request.getLanguage(), request.getUserId(), request.getProjectId(),
+                        request.getFiles(), request.getEntryPoint(), workspace, run)
+                        : runner.compile(request.getFileName(), request.getCode(), workspace, run);
+            } finally {
+                budget.releaseCompile();
+                compiled.run();
+            }
+
+            int exitCode;
+            waitStarted = System.nanoTime();
+            budget.acquire();
+            run.queued(waitStarted);
+            try {
+                exitCode = runner.run(program, stdinOf(request.getStdin()), EXECUTION_TIMEOUT, workspace.dir(), run,
+                        capture, listener);
+            } finally {
+                budget.release();
+            }
 
             // Check exit code for compilation/execution errors
-            if (exitCode != 0 && result.trim().isEmpty()) {
+            OutputCapture.CapturedOutput output = capture.result();
+            if (exitCode != 0 && output.text().trim().isEmpty()) {
+                if (run.limits().pidsLimitHit()) {
+                    throw new ResourceLimitException("Process limit exceeded - could not create more than " +
+                            properties.getCgroups().quotaFor(request.getLanguage()).getPids() +
+                            " processes or threads");
+                }
                 throw new RuntimeException("Process exited with code: " + exitCode);
             }
-
-            return result;
-        } catch (TimeoutException e) {
-            process.destroyForcibly();
-            future.cancel(true);
-            throw new RuntimeException("Execution timeout - process took longer than " +
-                    EXECUTION_TIMEOUT + "ms to complete");
-        } catch (InterruptedException e) {
-            process.destroyForcibly();
-            future.cancel(true);
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Execution interrupted");
-        } finally {
-            executor.shutdown();
+            return output;
         }
     }
 
-    private void cleanupFiles(String directory, String className) {
-        try {
-            // Delete .java and .class files
-            Files.deleteIfExists(Paths.get(directory, className + ".java"));
-            Files.deleteIfExists(Paths.get(directory, className + ".class"));
-        } catch (IOException e) {
-            // Ignore cleanup errors
+    private static byte[] stdinOf(String stdin) {
+        return stdin == null ? new byte[0] : stdin.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A page of the user's submission history, newest first. {@code cursor} is
+     * the {@code nextCursor} of the previous page, or null for the first one.
+     */
+    public SubmissionPage getUserSubmissions(String userId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        SubmissionPage.Cursor after = cursor == null || cursor.isBlank() ? null : SubmissionPage.Cursor.decode(cursor);
+
+        // One extra row tells whether another page follows
+        List<SubmissionSummary> items = repository.findSummariesByUserId(userId, after, size + 1);
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = SubmissionPage.Cursor.after(items.get(size - 1)).encode();
         }
+
+        // Same as single reads: unflushed state wins over what is in the database
+        items = items.stream()
+                .map(item -> writeBehind.findPending(item.getId()).map(SubmissionSummary::of).orElse(item))
+                .toList();
+        return new SubmissionPage(items, nextCursor);
+    }
+
+    public List<SubmissionSummary> getRecentSubmissions(String userId, int limit) {
+        return getUserSubmissions(userId, null, limit).getItems();
     }
 
-    public List<CodeSubmission> getUserSubmissions(String userId) {
-        return repository.findByUserIdOrderByCreatedAtDesc(userId);
+    private CodeExecutionResponse toResponse(CodeSubmission submission) {
+        if (submission == null) {
+            return null;
+        }
+        CodeExecutionResponse response = new CodeExecutionResponse();
+        response.setSubmissionId(submission.getId());
+        response.setOutput(submission.getOutput());
+        response.setOutputBytes(submission.getOutputBytes());
+        response.setOutputTruncated(submission.isOutputTruncated());
+        response.setError(submission.getErrorMessage());
+        response.setStatus(submission.getStatus());
+        response.setExecutionTime(submission.getExecutionTime());
+        response.setOomKilled(submission.isOomKilled());
+        response.setCpuThrottledMs(submission.getCpuThrottledMs());
+        response.setPhases(submission.getPhases());
+        response.setResourceUsage(submission.getResourceUsage());
+        response.setCached(submission.isCached());
+        return response;
     }
 
-    public List<CodeSubmission> getRecentSubmissions(String userId, int limit) {
-        return repository.findTop10ByUserIdOrderByCreatedAtDesc(userId);
+    /**
+     * Location of the full compressed output of a truncated run, or null when the
+     * submission has none.
+     */
+    public Path getSpilledOutput(CodeSubmission submission) {
+        if (submission.getOutputSpillFile() == null) {
+            return null;
+        }
+        return outputSpillStore.resolve(submission.getOutputSpillFile());
     }
 
     public CodeSubmission getSubmissionById(String id) {
-        return repository.findById(id).orElse(null);
+        // Submissions with unflushed changes are served from memory so readers never see a stale state
+        return writeBehind.findPending(id).or(() -> repository.findById(id)).orElse(null);
+    }
+
+    public Map<String, Object> getExecutionStats() {
+        return Map.ofEntries(
+                Map.entry("javaRunnerPool", javaRunnerPool.getStats()),
+                Map.entry("nodeRunnerPool", nodeRunnerPool.getStats()),
+                Map.entry("projects", projectCompiler.getStats()),
+                Map.entry("compileCache", compilationCache.getStats()),
+                Map.entry("resultCache", resultCache.getStats()),
+                Map.entry("workspaces", workspaceManager.getStats()),
+                Map.entry("queues", dispatcher.getStats()),
+                Map.entry("processes", processSupervisor.getStats()),
+                Map.entry("cgroups", cgroupManager.getStats()),
+                Map.entry("persistence", writeBehind.getStats()),
+                Map.entry("indexes", indexManager.getReport()),
+                Map.entry("toolchains", toolchainProfiles.getReport()),
+                Map.entry("budget", Map.of(
+                        "limit", budget.getLimit(),
+                        "inFlight", budget.getInFlight(),
+                        "waiting", budget.getWaiting(),
+                        "compileLimit", budget.getCompileLimit(),
+                        "compiling", budget.getCompiling())),
+                Map.entry("runners", runners.getSelections()),
+                Map.entry("diagnostics", diagnosticsService.getStats())
+        );
     }
 }
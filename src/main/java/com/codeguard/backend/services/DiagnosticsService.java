@@ -0,0 +1,201 @@
+package com.codeguard.backend.services;
+
+import com.codeguard.backend.config.ExecutionProperties;
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import com.codeguard.backend.dto.DiagnosticsRequest;
+import com.codeguard.backend.dto.DiagnosticsResponse;
+import com.codeguard.backend.execution.ExecutionScheduler;
+import com.codeguard.backend.execution.SyntaxChecker;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compile-only diagnostics for editors checking as the user types. Nothing is
+ * run or persisted. Requests for the same user and file coalesce: each waits a
+ * short debounce window, and a newer version arriving in that window or during
+ * the compile supersedes it, cancelling its check. Results are cached by source,
+ * so unchanged code is answered without compiling, and checks have their own
+ * concurrency limit so typing never takes every core from executions.
+ */
+@Service
+public class DiagnosticsService {
+
+    @Autowired
+    private SyntaxChecker syntaxChecker;
+
+    @Autowired
+    private ExecutionScheduler scheduler;
+
+    @Autowired
+    private ExecutionProperties properties;
+
+    private final Map<String, Pending> latest = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, List<CompilationDiagnostic>> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private Semaphore permits;
+    private int limit;
+
+    @PostConstruct
+    public void init() {
+        int configured = properties.getDiagnostics().getMaxConcurrent();
+        limit = configured > 0 ? configured : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        permits = new Semaphore(limit);
+    }
+
+    public DiagnosticsResponse diagnose(DiagnosticsRequest request) {
+        requests.incrementAndGet();
+        ExecutionProperties.Diagnostics config = properties.getDiagnostics();
+        String cacheKey = cacheKey(request);
+        List<CompilationDiagnostic> cached = lookup(cacheKey);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return new DiagnosticsResponse(cached, false, true, null, null);
+        }
+
+        String userId = request.getUserId() == null || request.getUserId().isEmpty()
+                ? "anonymous" : request.getUserId();
+        String buffer = userId + "\0" + request.getLanguage() + "\0" + request.getFileName();
+        Pending pending = new Pending();
+        Pending previous = latest.put(buffer, pending);
+        if (previous != null) {
+            previous.supersede();
+        }
+
+        try {
+            // A newer keystroke within the window replaces this version before it costs a compile
+            if (pending.superseded.await(config.getDebounceMs(), TimeUnit.MILLISECONDS)) {
+                return superseded();
+            }
+            long started = System.nanoTime();
+            Future<List<CompilationDiagnostic>> check = scheduler.virtualThreads().submit(() -> check(request, cacheKey));
+            if (!pending.start(check)) {
+                return superseded();
+            }
+            try {
+                List<CompilationDiagnostic> diagnostics = check.get(config.getTimeoutMs(), TimeUnit.MILLISECONDS);
+                return new DiagnosticsResponse(diagnostics, false, false,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), null);
+            } catch (CancellationException e) {
+                return superseded();
+            } catch (TimeoutException e) {
+                check.cancel(true);
+                timedOut.incrementAndGet();
+                return new DiagnosticsResponse(List.of(), false, false, null,
+                        "Diagnostics took longer than " + config.getTimeoutMs() + "ms");
+            } catch (ExecutionException e) {
+                if (pending.superseded.getCount() == 0) {
+                    return superseded();
+                }
+                return new DiagnosticsResponse(List.of(), false, false, null, e.getCause().getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.supersede();
+            return superseded();
+        } finally {
+            latest.remove(buffer, pending);
+        }
+    }
+
+    public Stats getStats() {
+        int cacheEntries;
+        synchronized (cache) {
+            cacheEntries = cache.size();
+        }
+        return new Stats(requests.get(), superseded.get(), cacheHits.get(), checked.get(), timedOut.get(),
+                limit - permits.availablePermits(), limit, cacheEntries);
+    }
+
+    private List<CompilationDiagnostic> check(DiagnosticsRequest request, String cacheKey) throws Exception {
+        permits.acquire();
+        try {
+            List<CompilationDiagnostic> diagnostics =
+                    syntaxChecker.check(request.getLanguage(), request.getFileName(), request.getCode());
+            checked.incrementAndGet();
+            store(cacheKey, diagnostics);
+            return diagnostics;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private DiagnosticsResponse superseded() {
+        superseded.incrementAndGet();
+        return new DiagnosticsResponse(List.of(), true, false, null, null);
+    }
+
+    private List<CompilationDiagnostic> lookup(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void store(String key, List<CompilationDiagnostic> diagnostics) {
+        synchronized (cache) {
+            cache.put(key, List.copyOf(diagnostics));
+            while (cache.size() > properties.getDiagnostics().getCacheEntries()) {
+                cache.remove(cache.keySet().iterator().next());
+            }
+        }
+    }
+
+    private String cacheKey(DiagnosticsRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{request.getLanguage().name(),
+                    syntaxChecker.toolchain(request.getLanguage()), request.getFileName(), request.getCode()}) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * {@code checking} counts checks holding a permit, up to {@code limit}.
+     */
+    public record Stats(long requests, long superseded, long cacheHits, long checked, long timedOut, int checking,
+                        int limit, int cacheEntries) {
+    }
+
+    // One version of a buffer: waiting out the debounce, then compiling until done or superseded
+    private static final class Pending {
+
+        final CountDownLatch superseded = new CountDownLatch(1);
+        private Future<?> check;
+
+        synchronized boolean start(Future<?> check) {
+            if (superseded.getCount() == 0) {
+                check.cancel(true);
+                return false;
+            }
+            this.check = check;
+            return true;
+        }
+
+        synchronized void supersede() {
+            superseded.countDown();
+            if (check != null) {
+                check.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.ResponseCache;
+import java.security.Provider;
+import java.security.Security;
+import java.util.*;
+
+/**
+ * Bootstrap for a long-lived runner JVM. Compiled and launched by JavaRunnerPool.
+ *
+ * Request:  UTF className, int classCount, (UTF name, int length, bytes)*, int stdinLength, bytes
+ * Response: any number of output frames (int FRAME_OUTPUT, int length of at most 8192, bytes) while the program
+ *           runs, then one result frame (int FRAME_RESULT, int status, int exitCode, boolean contaminated,
+ *           long cpuUserNanos, long cpuSystemNanos, long peakHeapBytes)
+ *
+ * Everything the protocol needs lives in a Protocol instance held by main's frame, never in a static
+ * field, and programs load in a loader whose parent is the platform loader, so they cannot link
+ * against this class. A program can still open fd 0 and 1 itself, which is why the pool by default
+ * retires a runner after a single program.
+ */
+public class JavaRunner {
+
+    static final int FRAME_OUTPUT = 0;
+    static final int FRAME_RESULT = 1;
+
+    static final int STATUS_COMPLETED = 0;
+    static final int STATUS_EXITED = 1;
+
+    static final PrintStream ORIGINAL_ERR = System.err;
+    static final InputStream ORIGINAL_IN = System.in;
+
+    static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+    public static void main(String[] args) throws Exception {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        Protocol protocol = new Protocol(
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out))));
+
+        // If user code calls System.exit, still hand back whatever it printed
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> protocol.respond(STATUS_EXITED, -1, true)));
+        // Reading some defaults settles others, e.g. the first time zone lookup sets user.timezone
+        JvmDefaults.capture();
+
+        while (true) {
+            String className;
+            try {
+                className = in.readUTF();
+            } catch (EOFException e) {
+                return;
+            }
+            Map<String, byte[]> classes = new HashMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            byte[] stdin = new byte[in.readInt()];
+            in.readFully(stdin);
+
+            run(protocol, className, classes, stdin);
+        }
+    }
+
+    static void run(Protocol protocol, String className, Map<String, byte[]> classes, byte[] stdin) {
+        Set<Thread> threadsBefore = Thread.getAllStackTraces().keySet();
+        JvmDefaults defaultsBefore = JvmDefaults.capture();
+
+        FrameOutputStream output = new FrameOutputStream(protocol);
+        PrintStream capture = new PrintStream(output, true);
+        InputStream input = new ByteArrayInputStream(stdin);
+        System.setOut(capture);
+        System.setErr(capture);
+        System.setIn(input);
+
+        HEAP_POOLS.forEach(MemoryPoolMXBean::resetPeakUsage);
+        protocol.started(Thread.currentThread().threadId());
+
+        int exitCode = 0;
+        ClassLoader loader = new BytesClassLoader(classes);
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            Method main = loader.loadClass(className).getMethod("main", String[].class);
+            main.setAccessible(true);
+            main.invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            cause.setStackTrace(userFrames(cause.getStackTrace()));
+            capture.print("Exception in thread \"main\" ");
+            cause.printStackTrace(capture);
+            exitCode = 1;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            capture.println("Error: Main method not found in class " + className);
+            exitCode = 1;
+        } catch (Throwable t) {
+            t.printStackTrace(capture);
+            exitCode = 1;
+        }
+
+        // A plain JVM would wait for non-daemon threads before exiting; do the same
+        List<Thread> leftover = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (!threadsBefore.contains(thread) && thread.isAlive()) {
+                leftover.add(thread);
+            }
+        }
+        for (Thread thread : leftover) {
+            if (!thread.isDaemon()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        boolean contaminated = leftover.stream().anyMatch(Thread::isAlive)
+                || System.out != capture || System.err != capture || System.in != input
+                || !defaultsBefore.equals(JvmDefaults.capture());
+
+        capture.flush();
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.err), true));
+        System.setErr(ORIGINAL_ERR);
+        System.setIn(ORIGINAL_IN);
+        Thread.currentThread().setContextClassLoader(JavaRunner.class.getClassLoader());
+
+        protocol.respond(STATUS_COMPLETED, exitCode, contaminated);
+    }
+
+    // Drop the reflective frames of this runner so traces look like a plain `java Main` run
+    static StackTraceElement[] userFrames(StackTraceElement[] frames) {
+        int end = frames.length;
+        for (int i = 0; i < frames.length; i++) {
+            String owner = frames[i].getClassName();
+            if (owner.startsWith("jdk.internal.reflect.") || owner.equals("java.lang.reflect.Method")
+                    || owner.equals(JavaRunner.class.getName())) {
+                end = i;
+                break;
+            }
+        }
+        return Arrays.copyOf(frames, end);
+    }
+
+    /**
+     * The runner's side of the pipe, and what the result frame reports about the current run. Output
+     * and result frames are written under a private lock, which a program cannot take to stall them.
+     */
+    static final class Protocol {
+
+        private final DataOutputStream out;
+        private final Object lock = new Object();
+        private boolean responded = true;
+
+        // CPU of the thread running main, measured from the start of the current run
+        private long runThreadId;
+        private long cpuAtStart;
+        private long userAtStart;
+
+        Protocol(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void started(long threadId) {
+            synchronized (lock) {
+                responded = false;
+                runThreadId = threadId;
+                cpuAtStart = THREADS.getThreadCpuTime(threadId);
+                userAtStart = THREADS.getThreadUserTime(threadId);
+            }
+        }
+
+        void output(byte[] bytes, int length) {
+            synchronized (lock) {
+                try {
+                    out.writeInt(FRAME_OUTPUT);
+                    out.writeInt(length);
+                    out.write(bytes, 0, length);
+                    out.flush();
+                } catch (IOException e) {
+                    ORIGINAL_ERR.println("runner: failed to forward output: " + e);
+                }
+            }
+        }
+
+        void respond(int status, int exitCode, boolean contaminated) {
+            // Flush pending output outside the protocol lock; the stream takes that lock itself
+            System.out.flush();
+            synchronized (lock) {
+                if (responded) {
+                    return;
+                }
+                responded = true;
+                try {
+                    out.writeInt(FRAME_RESULT);
+                    out.writeInt(status);
+                    out.writeInt(exitCode);
+                    out.writeBoolean(contaminated);
+                    long user = Math.max(0, THREADS.getThreadUserTime(runThreadId) - userAtStart);
+                    long cpu = Math.max(0, THREADS.getThreadCpuTime(runThreadId) - cpuAtStart);
+                    out.writeLong(user);
+                    out.writeLong(Math.max(0, cpu - user));
+                    out.writeLong(HEAP_POOLS.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum());
+                    out.flush();
+                } catch (IOException e) {
+                    ORIGINAL_ERR.println("runner: failed to write response: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * JVM-wide state a program can change through public API. The classes it loaded, and their
+     * static fields, go away with its class loader; the JDK's own fields are closed to reflection.
+     */
+    record JvmDefaults(Properties properties, List<Provider> providers, Locale locale, Locale displayLocale,
+                       Locale formatLocale, TimeZone timeZone, Thread.UncaughtExceptionHandler uncaughtHandler,
+                       ProxySelector proxySelector, CookieHandler cookieHandler, ResponseCache responseCache,
+                       Authenticator authenticator) {
+
+        static JvmDefaults capture() {
+            return new JvmDefaults((Properties) System.getProperties().clone(), List.of(Security.getProviders()),
+                    Locale.getDefault(), Locale.getDefault(Locale.Category.DISPLAY),
+                    Locale.getDefault(Locale.Category.FORMAT), TimeZone.getDefault(),
+                    Thread.getDefaultUncaughtExceptionHandler(), ProxySelector.getDefault(),
+                    CookieHandler.getDefault(), ResponseCache.getDefault(), Authenticator.getDefault());
+        }
+    }
+
+    /**
+     * Loads one program's classes. Delegates to the platform loader only, never the application
+     * loader, so names of this runner's classes do not resolve from program code.
+     */
+    static final class BytesClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        BytesClassLoader(Map<String, byte[]> classes) {
+            super(ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Forwards program output to the pool as it is produced; the pool bounds what it keeps.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final Protocol protocol;
+        private final byte[] buffer = new byte[8192];
+        private int count;
+
+        FrameOutputStream(Protocol protocol) {
+            this.protocol = protocol;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+                if (count == buffer.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (count == 0) {
+                return;
+            }
+            protocol.output(buffer, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+'use strict';
+/*
+ * Bootstrap for a long-lived Node worker. Started and driven by NodeRunnerPool.
+ *
+ * Every frame, in either direction, is a 4-byte big-endian length followed by that many bytes.
+ * Request:  UTF-8 JSON {root, file, code, stdin (base64), timeoutMs}; root is the directory the program
+ *           runs in, and the only one it may require files from
+ * Response: any number of output frames (byte FRAME_OUTPUT, at most 8192 bytes) while the program runs, then one
+ *           result frame (byte FRAME_RESULT, UTF-8 JSON {exitCode, timedOut, contaminated, runNanos,
+ *           cpuUserMicros, cpuSystemMicros, heapUsedBytes})
+ * A request with {check: true} only parses the code and answers with one result frame
+ * {syntaxError}: the error as node would print it, or null.
+ *
+ * Each program gets a fresh vm context with its own globals, console, process, Buffer and timers. Its
+ * synchronous code and every timer callback run under the time left of its deadline. require serves a
+ * short list of built-ins, stdin-only fs and process shims, and the program's own files, which load
+ * into the same context.
+ *
+ * A vm context is not a security boundary: objects handed in from this realm still lead back to the
+ * real process. The pool therefore confines each worker to a cgroup and, by default, retires it after
+ * a single program.
+ */
+const fs = require('fs');
+const path = require('path');
+const vm = require('vm');
+const util = require('util');
+const v8 = require('v8');
+const { EventEmitter } = require('events');
+const { Readable, Writable } = require('stream');
+
+const OuterBuffer = Buffer;
+
+const FRAME_OUTPUT = 0;
+const FRAME_RESULT = 1;
+const OUTPUT_CHUNK = 8192;
+const MAX_SYNTAX_ERROR_LENGTH = 8000;
+const WRAPPER = '(function (exports, require, module, __filename, __dirname) {';
+// Built-ins a program may require besides the fs and process shims; nothing reaching processes, files or workers
+const ALLOWED_MODULES = Object.freeze(['assert', 'events', 'path', 'readline', 'string_decoder', 'util']);
+// Retire the worker once a program leaves this much of the heap limit in use
+const HEAP_RETIRE_RATIO = 0.5;
+
+// Frames own fd 1; anything the bootstrap itself prints goes to stderr
+console.log = console.info = console.debug = console.error;
+
+function writeFrame(payload) {
+    const header = Buffer.alloc(4);
+    header.writeUInt32BE(payload.length);
+    writeFully(Buffer.concat([header, payload]));
+}
+
+function writeFully(buffer) {
+    let offset = 0;
+    while (offset < buffer.length) {
+        try {
+            offset += fs.writeSync(1, buffer, offset);
+        } catch (e) {
+            if (e.code !== 'EAGAIN') {
+                throw e;
+            }
+        }
+    }
+}
+
+// Drop the wrapper and this bootstrap's frames so traces look like a plain `node main.js` run
+function userStack(stack) {
+    const lines = [];
+    let caretShift = 0;
+    for (const line of stack.split('\n')) {
+        if (/^\s+at /.test(line) && (line.includes(__filename) || line.includes('evalmachine.<anonymous>')
+            || line.includes('node:vm'))) {
+            break;
+        }
+        if (line.startsWith(WRAPPER)) {
+            lines.push(line.slice(WRAPPER.length));
+            caretShift = WRAPPER.length;
+        } else if (caretShift > 0 && /^\s*\^+\s*$/.test(line)) {
+            lines.push(line.slice(caretShift));
+            caretShift = 0;
+        } else {
+            lines.push(line);
+        }
+    }
+    return lines.join('\n');
+}
+
+// The program's own Buffer function: statics it patches die with its run. Instances share Buffer.prototype
+function contextBuffer() {
+    const ContextBuffer = function Buffer(value, encodingOrOffset, length) {
+        return typeof value === 'number' ? OuterBuffer.alloc(value) : OuterBuffer.from(value, encodingOrOffset, length);
+    };
+    for (const key of Reflect.ownKeys(OuterBuffer)) {
+        if (!Object.hasOwn(ContextBuffer, key)) {
+            Object.defineProperty(ContextBuffer, key, Object.getOwnPropertyDescriptor(OuterBuffer, key));
+        }
+    }
+    Object.defineProperty(ContextBuffer, 'prototype', { value: OuterBuffer.prototype, writable: false });
+    Object.setPrototypeOf(ContextBuffer, Object.getPrototypeOf(OuterBuffer));
+    return Object.freeze(ContextBuffer);
+}
+
+class ExitSignal {
+}
+
+const EXIT = new ExitSignal();
+
+let current = null;
+
+class Run {
+
+    constructor(request) {
+        this.file = request.file;
+        this.root = request.root || path.dirname(request.file);
+        this.stdin = Buffer.from(request.stdin || '', 'base64');
+        this.deadline = Date.now() + request.timeoutMs;
+        this.timers = new Map();
+        this.output = [];
+        this.outputLength = 0;
+        this.exitCode = 0;
+        this.timedOut = false;
+        this.finished = false;
+        this.context = this.createContext();
+        this.callScript = new vm.Script('__codeguardCall()');
+        this.done = new Promise(resolve => this.resolve = resolve);
+    }
+
+    createContext() {
+        const run = this;
+        const stream = new Writable({
+            write(chunk, encoding, callback) {
+                run.print(chunk);
+                callback();
+            }
+        });
+        const processShim = Object.assign(new EventEmitter(), {
+            argv: [process.execPath, this.file],
+            env: { ...process.env },
+            platform: process.platform,
+            version: process.version,
+            versions: process.versions,
+            arch: process.arch,
+            pid: process.pid,
+            hrtime: process.hrtime,
+            uptime: process.uptime,
+            memoryUsage: process.memoryUsage,
+            cpuUsage: process.cpuUsage,
+            nextTick: (fn, ...args) => process.nextTick(() => run.invoke(fn, args)),
+            cwd: () => this.root,
+            exitCode: undefined,
+            exit: code => {
+                run.exitCode = code !== undefined ? code : (processShim.exitCode || 0);
+                throw EXIT;
+            },
+            stdout: stream,
+            stderr: stream,
+            stdin: Readable.from(this.stdin.length > 0 ? [this.stdin] : [])
+        });
+        this.process = processShim;
+
+        // Reads of fd 0 or /dev/stdin see the submitted input; the real file system is not reachable
+        const stdin = this.stdin;
+        const isStdin = target => target === 0 || target === '/dev/stdin';
+        const fsShim = Object.freeze({
+            readFileSync: (target, options) => {
+                if (!isStdin(target)) {
+                    throw Object.assign(new Error(`EACCES: permission denied, open '${target}'`), { code: 'EACCES' });
+                }
+                const encoding = typeof options === 'string' ? options : options && options.encoding;
+                return encoding ? stdin.toString(encoding) : Buffer.from(stdin);
+            }
+        });
+        this.builtins = { fs: fsShim, process: processShim };
+        this.modules = new Map();
+
+        const timer = (schedule, cancel, repeat) => (fn, ...args) => {
+            const handle = schedule((...rest) => {
+                if (!repeat) {
+                    run.timers.delete(handle);
+                }
+                run.invoke(fn, rest);
+            }, ...args);
+            run.timers.set(handle, cancel);
+            return handle;
+        };
+        const clear = handle => {
+            const cancel = run.timers.get(handle);
+            if (cancel) {
+                run.timers.delete(handle);
+                cancel(handle);
+            }
+        };
+
+        const sandbox = {
+            console: new console.Console({ stdout: stream, stderr: stream }),
+            process: processShim,
+            Buffer: contextBuffer(),
+            URL,
+            URLSearchParams,
+            TextEncoder,
+            TextDecoder,
+            structuredClone,
+            queueMicrotask: fn => queueMicrotask(() => run.invoke(fn, [])),
+            setTimeout: timer(setTimeout, clearTimeout, false),
+            setInterval: timer(setInterval, clearInterval, true),
+            setImmediate: timer((fn, ...args) => setImmediate(fn, ...args), clearImmediate, false),
+            clearTimeout: clear,
+            clearInterval: clear,
+            clearImmediate: clear
+        };
+        sandbox.global = sandbox;
+        const context = vm.createContext(sandbox);
+        sandbox.require = this.requireFrom(path.dirname(this.file));
+        return context;
+    }
+
+    // require as seen from a module in dir: the allowed built-ins, the shims, and the program's own files
+    requireFrom(dir) {
+        const resolve = id => {
+            if (/^\.{0,2}\//.test(id)) {
+                const file = this.resolveFile(path.resolve(dir, id));
+                if (file) {
+                    return file;
+                }
+            } else {
+                const name = id.startsWith('node:') ? id.slice('node:'.length) : id;
+                if (Object.hasOwn(this.builtins, name) || ALLOWED_MODULES.includes(name)) {
+                    return name;
+                }
+            }
+            throw Object.assign(new Error(`Cannot find module '${id}'`), { code: 'MODULE_NOT_FOUND' });
+        };
+        const sandboxRequire = id => {
+            const resolved = resolve(id);
+            if (Object.hasOwn(this.builtins, resolved)) {
+                return this.builtins[resolved];
+            }
+            return path.isAbsolute(resolved) ? this.load(resolved) : require(resolved);
+        };
+        return Object.assign(sandboxRequire, { resolve });
+    }
+
+    // A file of the program, found like node would, as long as it lies inside the program's directory
+    resolveFile(target) {
+        const root = this.root;
+        for (const candidate of [target, target + '.js', target + '.json', path.join(target, 'index.js')]) {
+            if (candidate.startsWith(root + path.sep) && fs.statSync(candidate, { throwIfNoEntry: false })?.isFile()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Program modules are compiled into the program's context, so they get the same require
+    load(file) {
+        const cached = this.modules.get(file);
+        if (cached) {
+            return cached.exports;
+        }
+        const module = { exports: {}, filename: file, id: file, loaded: false };
+        this.modules.set(file, module);
+        const source = fs.readFileSync(file, 'utf8');
+        if (file.endsWith('.json')) {
+            module.exports = vm.runInContext('JSON', this.context).parse(source);
+        } else {
+            const dirname = path.dirname(file);
+            new vm.Script(WRAPPER + source + '\n})', { filename: file, columnOffset: -WRAPPER.length })
+                .runInContext(this.context)(module.exports, this.requireFrom(dirname), module, file, dirname);
+        }
+        module.loaded = true;
+        return module.exports;
+    }
+
+    start(code) {
+        const module = { exports: {}, filename: this.file, id: '.', loaded: false };
+        const dirname = path.dirname(this.file);
+        // Same wrapper as a CommonJS module, so `require`, `module` and `__dirname` work as under `node main.js`
+        let main;
+        try {
+            main = new vm.Script(WRAPPER + code + '\n})', { filename: this.file, columnOffset: -WRAPPER.length })
+                .runInContext(this.context);
+        } catch (e) {
+            this.fail(e);
+            return;
+        }
+        this.invoke(main, [module.exports, this.context.require, module, this.file, dirname]);
+    }
+
+    // Runs fn inside the context under the time left until the deadline
+    invoke(fn, args) {
+        if (this.finished) {
+            return;
+        }
+        const remaining = this.deadline - Date.now();
+        if (remaining <= 0) {
+            this.timeout();
+            return;
+        }
+        this.context.__codeguardCall = () => {
+            delete this.context.__codeguardCall;
+            return fn(...args);
+        };
+        try {
+            this.callScript.runInContext(this.context, { timeout: remaining });
+        } catch (e) {
+            if (e && e.code === 'ERR_SCRIPT_EXECUTION_TIMEOUT') {
+                this.timeout();
+            } else {
+                this.fail(e);
+            }
+        }
+    }
+
+    // An uncaught error ends the program like it ends a node process
+    fail(error) {
+        if (this.finished) {
+            return;
+        }
+        if (error !== EXIT) {
+            this.print(error && error.stack ? userStack(error.stack) + '\n' : 'Uncaught ' + util.inspect(error) + '\n');
+            this.exitCode = 1;
+        }
+        this.finish();
+    }
+
+    timeout() {
+        this.timedOut = true;
+        this.exitCode = -1;
+        this.finish();
+    }
+
+    print(chunk) {
+        const bytes = Buffer.isBuffer(chunk) ? chunk : Buffer.from(String(chunk));
+        this.output.push(bytes);
+        this.outputLength += bytes.length;
+        if (this.outputLength >= OUTPUT_CHUNK) {
+            this.flush();
+        }
+    }
+
+    flush() {
+        if (this.outputLength === 0) {
+            return;
+        }
+        // The pool refuses output frames longer than OUTPUT_CHUNK
+        const output = Buffer.concat(this.output);
+        for (let offset = 0; offset < output.length; offset += OUTPUT_CHUNK) {
+            writeFrame(Buffer.concat([Buffer.from([FRAME_OUTPUT]), output.subarray(offset, offset + OUTPUT_CHUNK)]));
+        }
+        this.output = [];
+        this.outputLength = 0;
+    }
+
+    // The program is over once nothing it scheduled is left, as when node exits on an empty event loop
+    async settle() {
+        let idleTurns = 0;
+        while (!this.finished && idleTurns < 2) {
+            await new Promise(resolve => setImmediate(resolve));
+            this.flush();
+            const reading = this.process.stdin.readableFlowing && !this.process.stdin.readableEnded;
+            idleTurns = this.timers.size === 0 && !reading ? idleTurns + 1 : 0;
+            if (Date.now() >= this.deadline) {
+                this.timeout();
+            }
+        }
+        if (!this.finished) {
+            this.exitCode = this.process.exitCode || 0;
+            this.finish();
+        }
+        return this.done;
+    }
+
+    finish() {
+        if (this.finished) {
+            return;
+        }
+        this.finished = true;
+        for (const [handle, cancel] of this.timers) {
+            cancel(handle);
+        }
+        this.timers.clear();
+        this.process.stdin.destroy();
+        this.flush();
+        this.resolve();
+    }
+}
+
+async function execute(request) {
+    const run = new Run(request);
+    // Creating the context counts as the pool's overhead, not as the program's run
+    const cpuBefore = process.cpuUsage();
+    const started = process.hrtime.bigint();
+    current = run;
+    run.start(request.code);
+    await run.settle();
+    current = null;
+
+    const runNanos = Number(process.hrtime.bigint() - started);
+    const cpu = process.cpuUsage(cpuBefore);
+    const heapUsed = process.memoryUsage().heapUsed;
+    const heapLimit = v8.getHeapStatistics().heap_size_limit;
+    const result = {
+        exitCode: run.exitCode,
+        timedOut: run.timedOut,
+        // Callbacks may still be queued inside node, or prototypes shared with this realm may hold its data
+        contaminated: run.timedOut || heapUsed > heapLimit * HEAP_RETIRE_RATIO,
+        runNanos,
+        cpuUserMicros: cpu.user,
+        cpuSystemMicros: cpu.system,
+        heapUsedBytes: heapUsed
+    };
+    writeFrame(Buffer.concat([Buffer.from([FRAME_RESULT]), Buffer.from(JSON.stringify(result))]));
+}
+
+function check(request) {
+    let syntaxError = null;
+    try {
+        new vm.Script(WRAPPER + request.code + '\n})', { filename: request.file, columnOffset: -WRAPPER.length });
+    } catch (e) {
+        // Keeps the result frame within the pool's bound even for a huge source line
+        syntaxError = userStack(e.stack).slice(0, MAX_SYNTAX_ERROR_LENGTH);
+    }
+    writeFrame(Buffer.concat([Buffer.from([FRAME_RESULT]), Buffer.from(JSON.stringify({ syntaxError }))]));
+}
+
+// Errors escaping the wrappers, e.g. from stream events or rejected promises, belong to the current program
+process.on('uncaughtException', error => current ? current.fail(error) : console.error(error));
+process.on('unhandledRejection', reason => current ? current.fail(reason) : console.error(reason));
+
+let pending = Buffer.alloc(0);
+let queue = Promise.resolve();
+process.stdin.on('data', chunk => {
+    pending = Buffer.concat([pending, chunk]);
+    while (pending.length >= 4 && pending.length >= 4 + pending.readUInt32BE(0)) {
+        const length = pending.readUInt32BE(0);
+        const request = JSON.parse(pending.subarray(4, 4 + length).toString('utf8'));
+        pending = pending.subarray(4 + length);
+        queue = queue.then(() => request.check ? check(request) : execute(request));
+    }
+});
+process.stdin.on('end', () => process.exit(0));
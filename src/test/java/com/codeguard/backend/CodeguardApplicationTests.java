@@ -3,7 +3,8 @@ package com.codeguard.backend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Building toolchain artifacts in the background only slows the context test down
+@SpringBootTest(properties = "codeguard.execution.toolchain.prepare=false")
 class CodeguardApplicationTests {
 
 	@Test
@@ -0,0 +1,46 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryJavaCompilerTest {
+
+	private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+
+	@Test
+	void compilesToBytecodeInMemory() {
+		InMemoryJavaCompiler.Result result = compiler.compile("Main",
+				"public class Main { static class Inner {} public static void main(String[] a) { System.out.println(1); } }");
+
+		assertTrue(result.success());
+		assertTrue(result.classes().containsKey("Main"));
+		assertTrue(result.classes().containsKey("Main$Inner"));
+		assertTrue(result.errors().isEmpty());
+	}
+
+	@Test
+	void reportsStructuredDiagnostics() {
+		InMemoryJavaCompiler.Result result = compiler.compile("Main",
+				"public class Main {\n  void f() { int x = \"a\"; }\n}");
+
+		assertFalse(result.success());
+		CompilationDiagnostic error = result.errors().get(0);
+		assertEquals(2, error.getLine());
+		assertTrue(error.getColumn() > 0);
+		assertFalse(error.getMessage().isBlank());
+	}
+
+	@Test
+	void compilesAgainstTheJdkOnly() {
+		String source = "public class Main { Class<?> c = org.junit.jupiter.api.Test.class; }";
+
+		assertFalse(compiler.compile("Main", source).success());
+		assertFalse(compiler.compile(Map.of("Main.java", source), null).success());
+		assertTrue(compiler.compile("Main", "public class Main { java.util.List<String> l; }").success());
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.exception.InvalidProjectException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaSourcesTest {
+
+	@Test
+	void findsTheLaunchClassByParsingRatherThanScanningLines() {
+		String code = "class Helper {}\n/* public class Fake {} */\n"
+				+ "public class Solution { public static void main(String[] args) {} }";
+
+		assertEquals("Solution", JavaSources.mainClassName(code));
+		assertEquals("Runner", JavaSources.mainClassName(
+				"class Model {}\nclass Runner { public static void main(String... args) {} }"));
+	}
+
+	@Test
+	void describesDeclaredTypesAndMentionedNames() {
+		JavaSources.Unit unit = JavaSources.parse(
+				"package app;\nimport app.util.Strings;\npublic class Main { Other other; }");
+
+		assertEquals("app", unit.packageName());
+		assertEquals("app.Main", unit.qualify(unit.types().get(0).name()));
+		assertTrue(unit.references().containsAll(List.of("Strings", "Other")));
+	}
+
+	@Test
+	void picksTheProjectEntryClass() {
+		Map<String, JavaSources.Unit> units = Map.of(
+				"app/Main.java", JavaSources.parse("package app; public class Main { public static void main(String[] a) {} }"),
+				"app/Tool.java", JavaSources.parse("package app; public class Tool { public static void main(String[] a) {} }"),
+				"app/Util.java", JavaSources.parse("package app; public class Util {}"));
+
+		assertEquals("app.Main", JavaProjectBuilder.entryClass(units, null));
+		assertEquals("app.Tool", JavaProjectBuilder.entryClass(units, "Tool"));
+		assertEquals("app.Tool", JavaProjectBuilder.entryClass(units, "app/Tool.java"));
+		assertThrows(InvalidProjectException.class, () -> JavaProjectBuilder.entryClass(units, "Missing"));
+	}
+}
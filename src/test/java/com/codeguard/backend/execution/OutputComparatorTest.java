@@ -0,0 +1,60 @@
+package com.codeguard.backend.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputComparatorTest {
+
+	@Test
+	void ignoresTrailingWhitespaceAndBlankLines() {
+		OutputComparator comparator = new OutputComparator("1 2\n3\n", 0);
+
+		feed(comparator, "1 2  \r\n");
+		feed(comparator, "3\n\n  \n");
+
+		assertTrue(comparator.finish());
+		assertNull(comparator.getMismatch());
+	}
+
+	@Test
+	void rejectsAtTheFirstDifferingByte() {
+		OutputComparator comparator = new OutputComparator("hello\nworld\n", 0);
+
+		feed(comparator, "hello\n");
+		assertThrows(OutputRejectedException.class, () -> feed(comparator, "wOrld\nmore output"));
+
+		assertFalse(comparator.finish());
+		assertEquals(new OutputComparator.Mismatch(2, 2, "world"), comparator.getMismatch());
+	}
+
+	@Test
+	void rejectsMissingAndExtraOutput() {
+		OutputComparator missing = new OutputComparator("a\nb\n", 0);
+		feed(missing, "a");
+		assertFalse(missing.finish());
+		assertEquals(2, missing.getMismatch().line());
+
+		OutputComparator extra = new OutputComparator("a\n", 0);
+		feed(extra, "a\n");
+		assertThrows(OutputRejectedException.class, () -> feed(extra, "b"));
+		assertNull(extra.getMismatch().expectedLine());
+	}
+
+	@Test
+	void stopsAtTheOutputLimit() {
+		OutputComparator comparator = new OutputComparator("x\n", 4);
+
+		assertThrows(OutputRejectedException.class, () -> feed(comparator, "x          "));
+
+		assertTrue(comparator.isLimitExceeded());
+		assertFalse(comparator.finish());
+	}
+
+	private static void feed(OutputComparator comparator, String output) {
+		byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+		comparator.onOutput(bytes, 0, bytes.length);
+	}
+}
@@ -0,0 +1,171 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.dto.CodeExecutionRequest;
+import com.codeguard.backend.exception.CompilationException;
+import com.codeguard.backend.exception.InvalidProjectException;
+import com.codeguard.backend.model.CodeSubmission;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Builds only; the runner pools and background toolchain preparation are not needed
+@SpringBootTest(properties = {
+		"codeguard.execution.toolchain.prepare=false",
+		"codeguard.execution.java-pool.enabled=false",
+		"codeguard.execution.node-pool.enabled=false"})
+class ProjectCompilerTest {
+
+	private static final String UTIL = "package app.util;\n"
+			+ "public class Strings { public static String shout(String s) { return s.toUpperCase() + \"!\"; } }\n";
+	private static final String OTHER = "package app.util;\npublic class Other { public static int n() { return 7; } }\n";
+	private static final String MAIN = "package app;\nimport app.util.Strings;\n"
+			+ "public class Main { public static void main(String[] a) { System.out.println(Strings.shout(\"hi\")); } }\n";
+	private static final String TOOL = "package app;\n"
+			+ "public class Tool { public static void main(String[] a) { System.out.println(\"tool\"); } }\n";
+
+	private static final String HEADER = "#pragma once\nint combine(int a, int b);\n";
+	private static final String IMPL = "#include \"lib/math.h\"\nint combine(int a, int b) { return a + b; }\n";
+	private static final String CPP_MAIN = "#include <cstdio>\n#include \"lib/math.h\"\n"
+			+ "int main() { printf(\"%d\\n\", combine(2, 3)); }\n";
+
+	@Autowired
+	private ProjectCompiler projectCompiler;
+
+	@Autowired
+	private WorkspaceManager workspaceManager;
+
+	@Test
+	void recompilesOnlyTheJavaFilesAChangeReaches() throws Exception {
+		Map<String, String> files = new TreeMap<>(Map.of(
+				"app/Main.java", MAIN, "app/util/Strings.java", UTIL, "app/util/Other.java", OTHER));
+
+		assertEquals(3, build(CodeSubmission.Language.JAVA, "java-incremental", files, null).compiled());
+		Counts unchanged = build(CodeSubmission.Language.JAVA, "java-incremental", files, null);
+		assertEquals(0, unchanged.compiled());
+		assertEquals(3, unchanged.reused());
+
+		// Main mentions Strings, so it is rebuilt with it; Other is not
+		files.put("app/util/Strings.java", UTIL.replace("\"!\"", "\"!!\""));
+		Counts changed = build(CodeSubmission.Language.JAVA, "java-incremental", files, null);
+		assertEquals(2, changed.compiled());
+		assertEquals(1, changed.reused());
+	}
+
+	@Test
+	void keepsJavaFilesWithErrorsDirtyUntilTheyCompile() throws Exception {
+		Map<String, String> files = new TreeMap<>(Map.of("app/Main.java", MAIN, "app/util/Strings.java", UTIL));
+		build(CodeSubmission.Language.JAVA, "java-recovery", files, null);
+
+		files.put("app/util/Strings.java", UTIL.replace("\"!\"", "1 +"));
+		assertThrows(CompilationException.class,
+				() -> build(CodeSubmission.Language.JAVA, "java-recovery", files, null));
+
+		files.put("app/util/Strings.java", UTIL);
+		assertEquals(2, build(CodeSubmission.Language.JAVA, "java-recovery", files, null).compiled());
+	}
+
+	@Test
+	void picksTheJavaEntryPoint() throws Exception {
+		Map<String, String> files = Map.of("app/Main.java", MAIN, "app/Tool.java", TOOL, "app/util/Strings.java", UTIL);
+
+		assertEquals("app.Main", mainClass(files, null));
+		assertEquals("app.Tool", mainClass(files, "Tool"));
+		assertEquals("app.Tool", mainClass(files, "app/Tool.java"));
+		assertThrows(InvalidProjectException.class, () -> mainClass(files, "Missing"));
+		assertThrows(InvalidProjectException.class,
+				() -> mainClass(Map.of("app/Tool.java", TOOL, "app/Other.java", TOOL.replace("Tool", "Other")), null));
+	}
+
+	@Test
+	void rebuildsCppUnitsWhoseSourceOrHeadersChanged() throws Exception {
+		Map<String, String> files = new TreeMap<>(Map.of("lib/math.h", HEADER, "lib/math.cpp", IMPL, "main.cpp", CPP_MAIN));
+		assertEquals("5", buildAndRunCpp("cpp-incremental", files, 2));
+		assertEquals("5", buildAndRunCpp("cpp-incremental", files, 0));
+
+		files.put("lib/math.cpp", IMPL.replace("a + b", "a * b"));
+		assertEquals("6", buildAndRunCpp("cpp-incremental", files, 1));
+
+		// Both units include the header
+		files.put("lib/math.h", HEADER + "// changed\n");
+		assertEquals("6", buildAndRunCpp("cpp-incremental", files, 2));
+	}
+
+	@Test
+	void reportsCppLinkErrors() {
+		Map<String, String> files = Map.of("lib/math.h", HEADER, "main.cpp", CPP_MAIN);
+
+		CompilationException error = assertThrows(CompilationException.class,
+				() -> build(CodeSubmission.Language.CPP, "cpp-link", files, null));
+		assertTrue(error.getMessage().contains("combine"), error.getMessage());
+	}
+
+	@Test
+	void rejectsPathsLeavingTheProject() {
+		for (CodeSubmission.Language language : CodeSubmission.Language.values()) {
+			assertThrows(InvalidProjectException.class,
+					() -> build(language, "escape", Map.of("../escape.js", "1", "main.cpp", CPP_MAIN), null));
+			assertThrows(InvalidProjectException.class,
+					() -> build(language, "escape", Map.of("/tmp/escape.cpp", "1", "index.js", "1"), null));
+		}
+
+		Path base = Path.of("/work/project");
+		assertEquals(base.resolve("src/main.cpp"), ProjectCompiler.resolveInside(base, "src/./main.cpp"));
+		assertThrows(InvalidProjectException.class, () -> ProjectCompiler.resolveInside(base, "src/../../x"));
+		assertThrows(InvalidProjectException.class, () -> ProjectCompiler.resolveInside(base, "/etc/passwd"));
+		assertThrows(InvalidProjectException.class, () -> ProjectCompiler.resolveInside(base, "."));
+	}
+
+	@Test
+	void singleFileRequestsCannotCarryProjectFiles() throws Exception {
+		CodeExecutionRequest request = new ObjectMapper().readValue("{\"code\": \"x\", \"language\": \"JAVASCRIPT\","
+				+ " \"files\": {\"../x.js\": \"1\"}, \"projectId\": \"p\", \"entryPoint\": \"../x.js\"}",
+				CodeExecutionRequest.class);
+
+		assertNull(request.getFiles());
+		assertNull(request.getProjectId());
+		assertNull(request.getEntryPoint());
+	}
+
+	private Counts build(CodeSubmission.Language language, String projectId, Map<String, String> files,
+						 String entryPoint) throws Exception {
+		ProjectCompiler.Stats before = projectCompiler.getStats();
+		try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+			projectCompiler.compile(language, "tests", projectId, files, entryPoint, workspace,
+					new RunContext(CgroupManager.Slot.NONE));
+		}
+		ProjectCompiler.Stats after = projectCompiler.getStats();
+		return new Counts(after.compiledFiles() - before.compiledFiles(), after.reusedFiles() - before.reusedFiles());
+	}
+
+	private String mainClass(Map<String, String> files, String entryPoint) throws Exception {
+		try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+			return projectCompiler.compile(CodeSubmission.Language.JAVA, "tests", "java-entry", files, entryPoint,
+					workspace, new RunContext(CgroupManager.Slot.NONE)).className();
+		}
+	}
+
+	private String buildAndRunCpp(String projectId, Map<String, String> files, int expectedCompiled)
+			throws Exception {
+		ProjectCompiler.Stats before = projectCompiler.getStats();
+		try (WorkspaceManager.Workspace workspace = workspaceManager.acquire()) {
+			CompiledProgram program = projectCompiler.compile(CodeSubmission.Language.CPP, "tests", projectId, files,
+					null, workspace, new RunContext(CgroupManager.Slot.NONE));
+			assertEquals(expectedCompiled, projectCompiler.getStats().compiledFiles() - before.compiledFiles());
+			Process process = new ProcessBuilder(program.command()).redirectErrorStream(true).start();
+			String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+			assertEquals(0, process.waitFor());
+			return output;
+		}
+	}
+
+	private record Counts(long compiled, long reused) {
+	}
+}
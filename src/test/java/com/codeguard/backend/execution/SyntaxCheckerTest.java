@@ -0,0 +1,51 @@
+package com.codeguard.backend.execution;
+
+import com.codeguard.backend.dto.CompilationDiagnostic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntaxCheckerTest {
+
+	@Test
+	void readsGccJsonDiagnosticsWithTheirNotes() {
+		String output = "[{\"kind\": \"error\", \"message\": \"'foo' was not declared in this scope\","
+				+ " \"locations\": [{\"caret\": {\"file\": \"main.cpp\", \"line\": 4, \"column\": 3}}],"
+				+ " \"children\": [{\"kind\": \"note\", \"message\": \"suggested alternative: 'for'\","
+				+ " \"locations\": [{\"caret\": {\"file\": \"main.cpp\", \"line\": 4, \"column\": 3}}]}]},"
+				+ " {\"kind\": \"warning\", \"message\": \"unused variable 'x'\","
+				+ " \"locations\": [{\"caret\": {\"file\": \"main.cpp\", \"line\": 3, \"column\": 7}}], \"children\": []}]";
+
+		List<CompilationDiagnostic> diagnostics = SyntaxChecker.parseGccJson(output);
+
+		assertEquals(List.of(
+				new CompilationDiagnostic(CompilationDiagnostic.Severity.ERROR, 4, 3,
+						"'foo' was not declared in this scope"),
+				new CompilationDiagnostic(CompilationDiagnostic.Severity.NOTE, 4, 3, "suggested alternative: 'for'"),
+				new CompilationDiagnostic(CompilationDiagnostic.Severity.WARNING, 3, 7, "unused variable 'x'")
+		), diagnostics);
+		assertTrue(SyntaxChecker.parseGccJson("").isEmpty());
+	}
+
+	@Test
+	void readsNodeSyntaxErrors() {
+		String output = "/ws/main.js:2\nlet = ;\n      ^\n\nSyntaxError: Unexpected token ';'\n"
+				+ "    at wrapSafe (node:internal/modules/cjs/loader:1464:18)\n\nNode.js v20.20.2\n";
+
+		assertEquals(List.of(new CompilationDiagnostic(CompilationDiagnostic.Severity.ERROR, 2, 7,
+				"SyntaxError: Unexpected token ';'")), SyntaxChecker.parseNode(output));
+		assertTrue(SyntaxChecker.parseNode("").isEmpty());
+	}
+
+	@Test
+	void readsJavacOutputAndKeepsWhatItCannotParse() {
+		String output = "Main.java:3: error: ';' expected\n        int x = 1\n                 ^\n1 error\n";
+
+		assertEquals(List.of(new CompilationDiagnostic(CompilationDiagnostic.Severity.ERROR, 3, 18,
+				"';' expected")), SyntaxChecker.parseJavac(output));
+		assertEquals(List.of(new CompilationDiagnostic(CompilationDiagnostic.Severity.ERROR, 0, 0,
+				"error: invalid flag: -x")), SyntaxChecker.parseJavac("error: invalid flag: -x\n"));
+	}
+}